@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.model.constraint;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.checker.MigrationBandwidthChecker;
+import btrplace.model.constraint.checker.SatConstraintChecker;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A constraint to restrict the bandwidth used by the concurrent migrations on nodes.
+ * <p/>
+ * The bandwidth of a node, in MB/s, is specified by its integer attribute {@value #BANDWIDTH_ATTRIBUTE}.
+ * A migration runs at the bandwidth of its source node. It then uses this bandwidth
+ * on its source node, and on its destination node up to the destination bandwidth.
+ * At any moment, the bandwidth used by the migrations involving each of the given nodes must not
+ * exceed the node bandwidth. The nodes without bandwidth are not restricted.
+ * <p/>
+ * The restriction is only continuous.
+ *
+ * @author Fabien Hermenier
+ */
+public class MigrationBandwidth extends SatConstraint {
+
+    /**
+     * The node attribute that indicates its bandwidth.
+     */
+    public static final String BANDWIDTH_ATTRIBUTE = "bandwidth";
+
+    /**
+     * Make a new constraint.
+     *
+     * @param nodes the nodes to restrict
+     */
+    public MigrationBandwidth(Collection<Node> nodes) {
+        super(Collections.<VM>emptySet(), nodes, true);
+    }
+
+    /**
+     * Get the bandwidth of a node.
+     *
+     * @param mo the model to consider
+     * @param n  the node
+     * @return the bandwidth stated by the {@value #BANDWIDTH_ATTRIBUTE} attribute. {@link Integer#MAX_VALUE}
+     * if the attribute is not set or the node is {@code null}
+     */
+    public static int getBandwidth(Model mo, Node n) {
+        if (n == null || !mo.getAttributes().isSet(n, BANDWIDTH_ATTRIBUTE)) {
+            return Integer.MAX_VALUE;
+        }
+        Integer bw = mo.getAttributes().getInteger(n, BANDWIDTH_ATTRIBUTE);
+        return bw == null ? Integer.MAX_VALUE : bw;
+    }
+
+    /**
+     * Get the bandwidth that a migration uses on a node.
+     *
+     * @param mo  the model to consider
+     * @param src the source node of the migration
+     * @param n   the source or the destination node of the migration
+     * @return the bandwidth
+     */
+    public static int getUsage(Model mo, Node src, Node n) {
+        return Math.min(getBandwidth(mo, src), getBandwidth(mo, n));
+    }
+
+    @Override
+    public boolean setContinuous(boolean b) {
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return getInvolvedNodes().equals(((MigrationBandwidth) o).getInvolvedNodes());
+    }
+
+    @Override
+    public int hashCode() {
+        return getInvolvedNodes().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "migrationBandwidth(nodes=" + getInvolvedNodes() + ", continuous)";
+    }
+
+    @Override
+    public SatConstraintChecker getChecker() {
+        return new MigrationBandwidthChecker(this);
+    }
+}
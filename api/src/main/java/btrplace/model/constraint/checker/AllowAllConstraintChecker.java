@@ -75,6 +75,18 @@ public abstract class AllowAllConstraintChecker<C extends SatConstraint> impleme
         return tracked.add(c);
     }
 
+    /**
+     * Indicates if the checker only reacts to the events that involve
+     * at least one of its VMs or one of its nodes.
+     * In this case, {@link btrplace.plan.ReconfigurationPlanChecker} does not
+     * notify the checker about the other events.
+     *
+     * @return {@code true} by default
+     */
+    public boolean hasLocalScope() {
+        return true;
+    }
+
     @Override
     public boolean startsWith(Model mo) {
         return true;
@@ -94,6 +94,17 @@ public class LonelyChecker extends AllowAllConstraintChecker<Lonely> {
         return true;
     }
 
+    /**
+     * Any VM arriving on a private node is a violation,
+     * so the checker must be notified about every action.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean hasLocalScope() {
+        return false;
+    }
+
     @Override
     public boolean start(BootNode a) {
         return idleNodes.add(a.getNode());
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.constraint.MigrationBandwidth;
+import btrplace.plan.event.MigrateVM;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * Checker for the {@link MigrationBandwidth} constraint.
+ *
+ * @author Fabien Hermenier
+ * @see MigrationBandwidth
+ */
+public class MigrationBandwidthChecker extends AllowAllConstraintChecker<MigrationBandwidth> {
+
+    private Model origin;
+
+    private TObjectIntHashMap<Node> usages;
+
+    /**
+     * Make a new checker.
+     *
+     * @param cstr the associated constraint
+     */
+    public MigrationBandwidthChecker(MigrationBandwidth cstr) {
+        super(cstr);
+    }
+
+    @Override
+    public boolean startsWith(Model mo) {
+        origin = mo;
+        usages = new TObjectIntHashMap<>();
+        return true;
+    }
+
+    @Override
+    public boolean start(MigrateVM a) {
+        return consume(a.getSourceNode(), a.getSourceNode(), 1)
+                & consume(a.getSourceNode(), a.getDestinationNode(), 1);
+    }
+
+    @Override
+    public void end(MigrateVM a) {
+        consume(a.getSourceNode(), a.getSourceNode(), -1);
+        consume(a.getSourceNode(), a.getDestinationNode(), -1);
+    }
+
+    /**
+     * Update the bandwidth used on a node.
+     *
+     * @param src the source node of the migration
+     * @param n   the node to update
+     * @param way 1 to consume the bandwidth, -1 to release it
+     * @return {@code false} iff the node bandwidth is exceeded
+     */
+    private boolean consume(Node src, Node n, int way) {
+        int bw = MigrationBandwidth.getBandwidth(origin, n);
+        if (!getNodes().contains(n) || bw == Integer.MAX_VALUE) {
+            return true;
+        }
+        int d = way * MigrationBandwidth.getUsage(origin, src, n);
+        return usages.adjustOrPutValue(n, d, d) <= bw;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.view.ShareableResource;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-node aggregates of a model that can be shared among concurrent checks.
+ * They are computed on demand, once per model.
+ * The model is only read so it must not be modified while the aggregates are in use.
+ *
+ * @author Fabien Hermenier
+ */
+public class ModelAggregates {
+
+    private Model mo;
+
+    private Map<String, TObjectIntHashMap<Node>> usages;
+
+    /**
+     * Make new aggregates.
+     *
+     * @param m the model to aggregate
+     */
+    public ModelAggregates(Model m) {
+        mo = m;
+        usages = new HashMap<>();
+    }
+
+    /**
+     * Get the aggregated model.
+     *
+     * @return the model
+     */
+    public Model getModel() {
+        return mo;
+    }
+
+    /**
+     * Get a resource of the model.
+     *
+     * @param id the resource identifier
+     * @return the resource. {@code null} if the resource is not defined
+     */
+    public ShareableResource getResource(String id) {
+        return (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + id);
+    }
+
+    /**
+     * Get the resource usage of each online node.
+     *
+     * @param id the resource identifier
+     * @return the usages. {@code null} if the resource is not defined
+     */
+    public synchronized TObjectIntHashMap<Node> getUsages(String id) {
+        if (usages.containsKey(id)) {
+            return usages.get(id);
+        }
+        ShareableResource rc = getResource(id);
+        TObjectIntHashMap<Node> u = null;
+        if (rc != null) {
+            Mapping map = mo.getMapping();
+            u = new TObjectIntHashMap<>(map.getOnlineNodes().size());
+            for (Node n : map.getOnlineNodes()) {
+                u.put(n, rc.sumConsumptions(map.getRunningVMs(n), true));
+            }
+        }
+        usages.put(id, u);
+        return u;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.Overbook;
+import btrplace.model.constraint.ResourceCapacity;
+import btrplace.model.constraint.RunningCapacity;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ShareableResource;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Check in parallel if a model satisfies a batch of {@link SatConstraint}.
+ * <p/>
+ * The constraints are split among the workers of a fork-join pool.
+ * The model is only read so it must not be modified during the check.
+ * <p/>
+ * The resource usage of each online node is computed once per resource using {@link ModelAggregates}
+ * and shared among the {@link ResourceCapacity} and the {@link Overbook} constraints.
+ * The other constraints are checked using {@link SatConstraint#isSatisfied(Model)}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ModelChecker {
+
+    /**
+     * The default number of constraints checked by a single task.
+     */
+    public static final int DEFAULT_GRAIN = 64;
+
+    /**
+     * The pool shared by the checkers that do not provide their own.
+     * Its workers are daemon threads that terminate when idle.
+     */
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool();
+
+    private ForkJoinPool pool;
+
+    private int grain;
+
+    /**
+     * Make a new checker that relies on the shared pool.
+     */
+    public ModelChecker() {
+        this(SHARED_POOL, DEFAULT_GRAIN);
+    }
+
+    /**
+     * Make a new checker.
+     * The pool is owned by the caller, so it is never shut down by the checker.
+     *
+     * @param p the pool to use
+     * @param g the maximum number of constraints checked by a single task
+     */
+    public ModelChecker(ForkJoinPool p, int g) {
+        if (g < 1) {
+            throw new IllegalArgumentException("The grain must be strictly positive");
+        }
+        pool = p;
+        grain = g;
+    }
+
+    /**
+     * Get the pool shared by the checkers that do not provide their own.
+     * It uses as many workers as available processors and must not be shut down.
+     *
+     * @return the shared pool
+     */
+    public static ForkJoinPool getSharedPool() {
+        return SHARED_POOL;
+    }
+
+    /**
+     * Get the maximum number of constraints checked by a single task.
+     *
+     * @return a positive integer
+     */
+    public int getGrain() {
+        return grain;
+    }
+
+    /**
+     * Check a model against a batch of constraints.
+     *
+     * @param mo     the model to check
+     * @param cstrs the constraints to check
+     * @return the violated constraints, in their iteration order, associated to the VMs that are
+     * responsible for the violation. If the guilty VMs cannot be identified precisely, all the VMs involved
+     * in the constraint are returned
+     */
+    public Map<SatConstraint, Set<VM>> check(Model mo, Collection<? extends SatConstraint> cstrs) {
+        SatConstraint[] cs = cstrs.toArray(new SatConstraint[cstrs.size()]);
+        List<Set<VM>> guilty = new ArrayList<>(Collections.<Set<VM>>nCopies(cs.length, null));
+        pool.invoke(new CheckTask(new ModelAggregates(mo), cs, guilty, 0, cs.length));
+
+        Map<SatConstraint, Set<VM>> res = new LinkedHashMap<>();
+        for (int i = 0; i < cs.length; i++) {
+            if (guilty.get(i) != null) {
+                res.put(cs[i], guilty.get(i));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Check a single constraint.
+     *
+     * @param ag the shared aggregates
+     * @param c  the constraint to check
+     * @return {@code null} if the constraint is satisfied, the guilty VMs otherwise
+     */
+    private static Set<VM> check(ModelAggregates ag, SatConstraint c) {
+        if (c instanceof ResourceCapacity) {
+            return check(ag, (ResourceCapacity) c);
+        } else if (c instanceof Overbook) {
+            return check(ag, (Overbook) c);
+        } else if (c instanceof RunningCapacity) {
+            return check(ag, (RunningCapacity) c);
+        }
+        if (c.isSatisfied(ag.getModel())) {
+            return null;
+        }
+        return new HashSet<>(c.getInvolvedVMs());
+    }
+
+    private static Set<VM> check(ModelAggregates ag, ResourceCapacity c) {
+        TObjectIntHashMap<Node> usages = ag.getUsages(c.getResource());
+        if (usages == null) {
+            return new HashSet<>(c.getInvolvedVMs());
+        }
+        int remainder = c.getAmount();
+        for (Node n : c.getInvolvedNodes()) {
+            remainder -= usages.get(n);
+        }
+        if (remainder >= 0) {
+            return null;
+        }
+        return ag.getModel().getMapping().getRunningVMs(c.getInvolvedNodes());
+    }
+
+    private static Set<VM> check(ModelAggregates ag, Overbook c) {
+        TObjectIntHashMap<Node> usages = ag.getUsages(c.getResource());
+        if (usages == null) {
+            return new HashSet<>(c.getInvolvedVMs());
+        }
+        ShareableResource rc = ag.getResource(c.getResource());
+        Set<VM> guilty = null;
+        for (Node n : c.getInvolvedNodes()) {
+            if (usages.get(n) > rc.getCapacity(n) * c.getRatio()) {
+                if (guilty == null) {
+                    guilty = new HashSet<>();
+                }
+                guilty.addAll(ag.getModel().getMapping().getRunningVMs(n));
+            }
+        }
+        return guilty;
+    }
+
+    private static Set<VM> check(ModelAggregates ag, RunningCapacity c) {
+        Mapping map = ag.getModel().getMapping();
+        int nb = 0;
+        for (Node n : c.getInvolvedNodes()) {
+            nb += map.getRunningVMs(n).size();
+        }
+        if (nb <= c.getAmount()) {
+            return null;
+        }
+        return map.getRunningVMs(c.getInvolvedNodes());
+    }
+
+    /**
+     * Check a range of constraints, split it if it is too large.
+     */
+    private class CheckTask extends RecursiveAction {
+
+        private ModelAggregates ag;
+
+        private SatConstraint[] cstrs;
+
+        private List<Set<VM>> guilty;
+
+        private int from;
+
+        private int to;
+
+        public CheckTask(ModelAggregates ag, SatConstraint[] cstrs, List<Set<VM>> guilty, int from, int to) {
+            this.ag = ag;
+            this.cstrs = cstrs;
+            this.guilty = guilty;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    guilty.set(i, ModelChecker.check(ag, cstrs[i]));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CheckTask(ag, cstrs, guilty, from, mid),
+                        new CheckTask(ag, cstrs, guilty, mid, to));
+            }
+        }
+    }
+}
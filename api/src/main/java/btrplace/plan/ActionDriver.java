@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.plan.event.Action;
+
+/**
+ * A driver to execute the actions of a reconfiguration plan
+ * on a real (or a simulated) infrastructure.
+ * <p/>
+ * A driver is called concurrently by a {@link ConcurrentPlanExecutor}, possibly
+ * from several threads at the same time, so the implementations must be thread-safe.
+ *
+ * @author Fabien Hermenier
+ */
+public interface ActionDriver {
+
+    /**
+     * Execute an action.
+     * The method blocks until the action is terminated.
+     *
+     * @param a the action to execute
+     * @return {@code true} iff the action has been successfully executed
+     * @throws InterruptedException if the execution has been interrupted
+     */
+    boolean execute(Action a) throws InterruptedException;
+}
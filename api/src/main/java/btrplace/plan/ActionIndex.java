@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.plan.event.*;
+
+import java.util.*;
+
+/**
+ * Index the actions of a plan by the elements they manipulate.
+ * Actions are inserted using {@code #visit(...)} methods.
+ * <p/>
+ * For each VM, the index stores the action that places it
+ * in the running state on a node. For each node, it stores the actions
+ * that involve the node.
+ *
+ * @author Fabien Hermenier
+ */
+public class ActionIndex implements ActionVisitor {
+
+    private Map<VM, Action> placements;
+
+    private Map<Node, Set<Action>> byNode;
+
+    /**
+     * Make a new empty index.
+     */
+    public ActionIndex() {
+        placements = new HashMap<>();
+        byNode = new HashMap<>();
+    }
+
+    /**
+     * Get the action that places a VM in the running state on a node.
+     *
+     * @param v the VM
+     * @return the action, that is also a {@link RunningVMPlacement}. {@code null} if there is no such action
+     */
+    public Action getPlacement(VM v) {
+        return placements.get(v);
+    }
+
+    /**
+     * Get the actions that involve a given node.
+     *
+     * @param n the node
+     * @return a set of actions that may be empty
+     */
+    public Set<Action> getActions(Node n) {
+        Set<Action> s = byNode.get(n);
+        if (s == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(s);
+    }
+
+    private boolean register(Node n, Action a) {
+        Set<Action> s = byNode.get(n);
+        if (s == null) {
+            s = new HashSet<>();
+            byNode.put(n, s);
+        }
+        return s.add(a);
+    }
+
+    private boolean place(RunningVMPlacement p, Action a) {
+        placements.put(p.getVM(), a);
+        return register(p.getDestinationNode(), a);
+    }
+
+    @Override
+    public Boolean visit(Allocate a) {
+        return register(a.getHost(), a);
+    }
+
+    @Override
+    public Boolean visit(AllocateEvent a) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(SubstitutedVMEvent a) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(BootNode a) {
+        return register(a.getNode(), a);
+    }
+
+    @Override
+    public Boolean visit(BootVM a) {
+        return place(a, a);
+    }
+
+    @Override
+    public Boolean visit(ForgeVM a) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(KillVM a) {
+        if (a.getNode() != null) {
+            return register(a.getNode(), a);
+        }
+        return true;
+    }
+
+    @Override
+    public Boolean visit(MigrateVM a) {
+        register(a.getSourceNode(), a);
+        return place(a, a);
+    }
+
+    @Override
+    public Boolean visit(ResumeVM a) {
+        register(a.getSourceNode(), a);
+        return place(a, a);
+    }
+
+    @Override
+    public Boolean visit(ShutdownNode a) {
+        return register(a.getNode(), a);
+    }
+
+    @Override
+    public Boolean visit(ShutdownVM a) {
+        return register(a.getNode(), a);
+    }
+
+    @Override
+    public Boolean visit(SuspendVM a) {
+        register(a.getDestinationNode(), a);
+        register(a.getSourceNode(), a);
+        return true;
+    }
+}
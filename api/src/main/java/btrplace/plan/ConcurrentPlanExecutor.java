@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.plan.event.*;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A plan executor that executes the actions concurrently using an {@link ActionDriver}.
+ * <p/>
+ * An action is dispatched to the driver once all its dependencies have been executed,
+ * unless the number of running actions reaches the global limit, or the number of running
+ * actions involving one of its nodes reaches the per-node limit. In that case, the action is delayed
+ * until some of the running actions terminate. Among the unblocked actions, the ones starting first in
+ * the plan are dispatched first.
+ * <p/>
+ * The driver mostly waits for the actions to complete, so the number of threads executing the actions
+ * is by default only bounded by the global limit. Without global limit, the threads are created on demand
+ * and re-used once idle. A thread limit can be set explicitly; the number of running actions is then also
+ * bounded by this limit.
+ * <p/>
+ * Once executed by the driver, an action is committed and the listeners are notified.
+ * The execution stops at the first failure.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutor extends DependencyBasedPlanApplier {
+
+    /**
+     * Value to indicate the absence of limit.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final TimedBasedActionComparator STARTS_CMP = new TimedBasedActionComparator(true, true);
+
+    private ActionDriver driver;
+
+    private int maxGlobal;
+
+    private int maxPerNode;
+
+    private int nbThreads;
+
+    /**
+     * Make a new executor without any limit on the concurrency.
+     *
+     * @param d the driver used to execute the actions
+     */
+    public ConcurrentPlanExecutor(ActionDriver d) {
+        this(d, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Make a new executor where the number of threads is only bounded by the global limit.
+     *
+     * @param d       the driver used to execute the actions
+     * @param global  the maximum number of actions executed simultaneously
+     * @param perNode the maximum number of actions involving a same node executed simultaneously
+     */
+    public ConcurrentPlanExecutor(ActionDriver d, int global, int perNode) {
+        this(d, global, perNode, global);
+    }
+
+    /**
+     * Make a new executor.
+     *
+     * @param d       the driver used to execute the actions
+     * @param global  the maximum number of actions executed simultaneously
+     * @param perNode the maximum number of actions involving a same node executed simultaneously
+     * @param threads the maximum number of threads used to execute the actions. {@link #UNLIMITED} to
+     *                create them on demand
+     */
+    public ConcurrentPlanExecutor(ActionDriver d, int global, int perNode, int threads) {
+        if (global < 1 || perNode < 1 || threads < 1) {
+            throw new IllegalArgumentException("The concurrency limits must be strictly positive");
+        }
+        driver = d;
+        maxGlobal = global;
+        maxPerNode = perNode;
+        nbThreads = threads;
+    }
+
+    /**
+     * Get the driver used to execute the actions.
+     *
+     * @return the driver
+     */
+    public ActionDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Get the maximum number of actions executed simultaneously.
+     *
+     * @return a positive number
+     */
+    public int getGlobalLimit() {
+        return maxGlobal;
+    }
+
+    /**
+     * Get the maximum number of actions involving a same node executed simultaneously.
+     *
+     * @return a positive number
+     */
+    public int getPerNodeLimit() {
+        return maxPerNode;
+    }
+
+    /**
+     * Get the maximum number of threads used to execute the actions.
+     *
+     * @return a positive number, possibly {@link #UNLIMITED}
+     */
+    public int getNbThreads() {
+        return nbThreads;
+    }
+
+    /**
+     * Execute a plan.
+     * The method blocks until all the actions have been executed or one of them failed.
+     *
+     * @param p the plan to execute
+     * @return the resulting model if all the actions have been executed. {@code null} otherwise
+     * @throws RuntimeException the first exception thrown by the driver, the plan monitor or a listener.
+     *                          The execution stops once the running actions terminate
+     */
+    @Override
+    public Model apply(ReconfigurationPlan p) {
+        if (p.getSize() == 0) {
+            return p.getOrigin().clone();
+        }
+        int slots = Math.min(Math.min(maxGlobal, nbThreads), p.getSize());
+        //Without thread limit, the idle threads are re-used rather than having one thread per running action
+        ExecutorService pool = nbThreads == UNLIMITED ? Executors.newCachedThreadPool() : Executors.newFixedThreadPool(slots);
+        try {
+            return new Execution(p, slots).run(pool);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The state of a plan execution.
+     */
+    private class Execution {
+
+        private ReconfigurationPlanMonitor rpm;
+
+        private ReentrantLock lock;
+
+        private Condition changed;
+
+        /**
+         * The unblocked actions waiting for a slot, by increasing starting moment.
+         */
+        private PriorityQueue<Action> ready;
+
+        private TObjectIntHashMap<Node> perNode;
+
+        private int running;
+
+        private int nbExecuted;
+
+        private boolean failed;
+
+        /**
+         * The first exception thrown while executing or committing an action.
+         */
+        private RuntimeException error;
+
+        private int size;
+
+        /**
+         * The maximum number of running actions.
+         */
+        private int maxRunning;
+
+        public Execution(ReconfigurationPlan p, int slots) {
+            rpm = new DefaultReconfigurationPlanMonitor(p);
+            lock = new ReentrantLock();
+            changed = lock.newCondition();
+            ready = new PriorityQueue<>(p.getSize(), STARTS_CMP);
+            perNode = new TObjectIntHashMap<>();
+            size = p.getSize();
+            maxRunning = slots;
+            for (Action a : p.getActions()) {
+                if (!rpm.isBlocked(a)) {
+                    ready.add(a);
+                }
+            }
+        }
+
+        public Model run(ExecutorService pool) throws InterruptedException {
+            lock.lock();
+            try {
+                while (!failed && nbExecuted != size) {
+                    dispatch(pool);
+                    if (running == 0 && !failed && nbExecuted != size) {
+                        //Nothing running, nothing to dispatch: the remaining actions are blocked forever
+                        return null;
+                    }
+                    changed.await();
+                }
+                //Let the running actions terminate so the exception is not raised in the middle of a commit
+                while (running > 0) {
+                    changed.await();
+                }
+                if (error != null) {
+                    throw error;
+                }
+                return failed ? null : rpm.getCurrentModel();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Dispatch the ready actions while there is enough free slots.
+         */
+        private void dispatch(ExecutorService pool) {
+            List<Action> delayed = new ArrayList<>();
+            while (running < maxRunning && !ready.isEmpty()) {
+                final Action a = ready.poll();
+                Node[] ns = (Node[]) a.visit(InvolvedNodes.INSTANCE);
+                if (!hasSlot(ns)) {
+                    delayed.add(a);
+                    continue;
+                }
+                acquire(ns, 1);
+                running++;
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean ok = false;
+                        RuntimeException err = null;
+                        try {
+                            ok = driver.execute(a);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        } catch (RuntimeException ex) {
+                            err = ex;
+                        }
+                        terminate(a, ok, err);
+                    }
+                });
+            }
+            ready.addAll(delayed);
+        }
+
+        private void terminate(Action a, boolean ok, RuntimeException err) {
+            lock.lock();
+            try {
+                running--;
+                acquire((Node[]) a.visit(InvolvedNodes.INSTANCE), -1);
+                if (err != null) {
+                    fail(err);
+                } else if (ok) {
+                    Set<Action> unblocked = rpm.commit(a);
+                    if (unblocked == null) {
+                        failed = true;
+                    } else {
+                        nbExecuted++;
+                        ready.addAll(unblocked);
+                        fireAction(a);
+                    }
+                } else {
+                    failed = true;
+                }
+            } catch (RuntimeException ex) {
+                fail(ex);
+            } finally {
+                changed.signal();
+                lock.unlock();
+            }
+        }
+
+        private void fail(RuntimeException ex) {
+            failed = true;
+            if (error == null) {
+                error = ex;
+            }
+        }
+
+        private boolean hasSlot(Node[] ns) {
+            for (Node n : ns) {
+                if (perNode.get(n) >= maxPerNode) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void acquire(Node[] ns, int delta) {
+            for (Node n : ns) {
+                perNode.adjustOrPutValue(n, delta, delta);
+            }
+        }
+    }
+
+    /**
+     * Get the nodes involved in an action.
+     */
+    private static final class InvolvedNodes implements ActionVisitor {
+
+        public static final InvolvedNodes INSTANCE = new InvolvedNodes();
+
+        private static final Node[] NONE = new Node[0];
+
+        private static Node[] nodes(Node n1, Node n2) {
+            if (n1 == null || n1.equals(n2)) {
+                return n2 == null ? NONE : new Node[]{n2};
+            }
+            return n2 == null ? new Node[]{n1} : new Node[]{n1, n2};
+        }
+
+        @Override
+        public Node[] visit(Allocate a) {
+            return nodes(a.getHost(), null);
+        }
+
+        @Override
+        public Node[] visit(AllocateEvent a) {
+            return NONE;
+        }
+
+        @Override
+        public Node[] visit(SubstitutedVMEvent a) {
+            return NONE;
+        }
+
+        @Override
+        public Node[] visit(BootNode a) {
+            return nodes(a.getNode(), null);
+        }
+
+        @Override
+        public Node[] visit(BootVM a) {
+            return nodes(a.getDestinationNode(), null);
+        }
+
+        @Override
+        public Node[] visit(ForgeVM a) {
+            return NONE;
+        }
+
+        @Override
+        public Node[] visit(KillVM a) {
+            return nodes(a.getNode(), null);
+        }
+
+        @Override
+        public Node[] visit(MigrateVM a) {
+            return nodes(a.getSourceNode(), a.getDestinationNode());
+        }
+
+        @Override
+        public Node[] visit(ResumeVM a) {
+            return nodes(a.getSourceNode(), a.getDestinationNode());
+        }
+
+        @Override
+        public Node[] visit(ShutdownNode a) {
+            return nodes(a.getNode(), null);
+        }
+
+        @Override
+        public Node[] visit(ShutdownVM a) {
+            return nodes(a.getNode(), null);
+        }
+
+        @Override
+        public Node[] visit(SuspendVM a) {
+            return nodes(a.getSourceNode(), a.getDestinationNode());
+        }
+    }
+}
@@ -18,6 +18,8 @@
 package btrplace.plan;
 
 import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
 import btrplace.plan.event.Action;
 
 import java.util.*;
@@ -25,6 +27,11 @@ import java.util.*;
 /**
  * Default implementation for {@link ReconfigurationPlan}.
  * By default, the instance relies on a {@link TimeBasedPlanApplier} to check for the plan applicability.
+ * <p/>
+ * The actions are indexed by their starting moment when they are added.
+ * Actions that start at the same moment are sorted by their ending moment.
+ * The iteration over the sorted actions then does not require any sort, and the actions
+ * starting in a given period are retrieved in O(log n + k), with k the number of actions in the period.
  *
  * @author Fabien Hermenier
  */
@@ -36,7 +43,15 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
     private DependenciesExtractor depsExtractor;
 
-    private static Comparator<Action> startFirstComparator = new TimedBasedActionComparator(true, true);
+    private ActionIndex index;
+
+    /**
+     * The actions, indexed by their starting moment.
+     * Each list is sorted by the ending moment of the actions.
+     */
+    private TreeMap<Integer, List<Action>> starts;
+
+    private int duration;
 
     private ReconfigurationPlanApplier applier = new TimeBasedPlanApplier();
 
@@ -48,6 +63,9 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     public DefaultReconfigurationPlan(Model m) {
         this.src = m;
         this.actions = new HashSet<>();
+        this.index = new ActionIndex();
+        this.starts = new TreeMap<>();
+        this.duration = 0;
         //Dependency management is performed lazily.
         this.depsExtractor = null;
     }
@@ -60,13 +78,45 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     @Override
     public boolean add(Action a) {
         boolean ret = this.actions.add(a);
-        if (ret && depsExtractor != null) {
-            //We only track dependencies incrementally if already started
-            a.visit(depsExtractor);
+        if (ret) {
+            insert(a);
+            a.visit(index);
+            if (depsExtractor != null) {
+                //We only track dependencies incrementally if already started
+                a.visit(depsExtractor);
+            }
         }
         return ret;
     }
 
+    /**
+     * Insert an action in the time index.
+     *
+     * @param a the action to insert
+     */
+    private void insert(Action a) {
+        List<Action> l = starts.get(a.getStart());
+        if (l == null) {
+            l = new ArrayList<>(1);
+            starts.put(a.getStart(), l);
+        }
+        //Insert after the actions ending no later
+        int lo = 0;
+        int hi = l.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l.get(mid).getEnd() <= a.getEnd()) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        l.add(lo, a);
+        if (a.getEnd() > duration) {
+            duration = a.getEnd();
+        }
+    }
+
     @Override
     public int getSize() {
         return actions.size();
@@ -74,18 +124,23 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
 
     @Override
     public int getDuration() {
-        int m = 0;
-        for (Action a : actions) {
-            if (a.getEnd() > m) {
-                m = a.getEnd();
-            }
-        }
-        return m;
+        return duration;
     }
 
     @Override
     public Set<Action> getActions() {
-        return actions;
+        //The indexes are only maintained through add()
+        return Collections.unmodifiableSet(actions);
+    }
+
+    @Override
+    public Action getPlacement(VM v) {
+        return index.getPlacement(v);
+    }
+
+    @Override
+    public Set<Action> getActions(Node n) {
+        return index.getActions(n);
     }
 
     /**
@@ -96,9 +151,18 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
      */
     @Override
     public Iterator<Action> iterator() {
-        Set<Action> sorted = new TreeSet<>(startFirstComparator);
-        sorted.addAll(actions);
-        return sorted.iterator();
+        return new SortedIterator(starts.values().iterator());
+    }
+
+    @Override
+    public List<Action> getActionsStartingIn(int from, int to) {
+        List<Action> res = new ArrayList<>();
+        if (from < to) {
+            for (List<Action> l : starts.subMap(from, true, to, false).values()) {
+                res.addAll(l);
+            }
+        }
+        return res;
     }
 
     @Override
@@ -155,4 +219,40 @@ public class DefaultReconfigurationPlan implements ReconfigurationPlan {
     public void setReconfigurationApplier(ReconfigurationPlanApplier ra) {
         this.applier = ra;
     }
+
+    /**
+     * A read-only iterator over the lists of actions of the time index.
+     */
+    private static class SortedIterator implements Iterator<Action> {
+
+        private Iterator<List<Action>> lists;
+
+        private Iterator<Action> cur;
+
+        public SortedIterator(Iterator<List<Action>> it) {
+            lists = it;
+            cur = Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!cur.hasNext() && lists.hasNext()) {
+                cur = lists.next().iterator();
+            }
+            return cur.hasNext();
+        }
+
+        @Override
+        public Action next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return cur.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
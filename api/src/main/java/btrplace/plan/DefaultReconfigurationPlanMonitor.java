@@ -21,6 +21,7 @@ import btrplace.model.Model;
 import btrplace.plan.event.Action;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Simulated execution of a {@link ReconfigurationPlan}.
@@ -30,22 +31,34 @@ import java.util.*;
  * The dependencies are updated each time an action is committed, which means the action
  * have been successfully executed.
  * <p/>
+ * The monitor can be used concurrently. Each action is associated to an atomic counter
+ * of its pending dependencies, so committing actions does not require any lock. Only the
+ * update of the current model is serialized as the model is not thread-safe.
  *
  * @author Fabien Hermenier
  */
 public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMonitor {
 
-    private ReconfigurationPlan plan;
+    private final ReconfigurationPlan plan;
 
-    private Model curModel;
+    private final Model curModel;
 
-    private final Map<Action, Set<Dependency>> pre;
+    /**
+     * The number of uncommitted dependencies for each action.
+     */
+    private final Map<Action, AtomicInteger> pending;
 
-    private final Map<Action, Dependency> dependencies;
+    /**
+     * The actions that depend on each action.
+     */
+    private final Map<Action, List<Action>> dependents;
 
-    private final Object lock;
+    private final AtomicInteger nbCommitted;
 
-    private int nbCommitted;
+    /**
+     * Guard the updates of the current model.
+     */
+    private final Object lock;
 
     /**
      * Make a new monitor.
@@ -54,34 +67,21 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
      */
     public DefaultReconfigurationPlanMonitor(ReconfigurationPlan p) {
         this.plan = p;
-
-        pre = new HashMap<>();
-        dependencies = new HashMap<>();
+        curModel = plan.getOrigin().clone();
+        pending = new HashMap<>();
+        dependents = new HashMap<>();
+        nbCommitted = new AtomicInteger(0);
         lock = new Object();
-        reset();
-    }
-
-    private void reset() {
-        synchronized (lock) {
-            curModel = plan.getOrigin().clone();
-            pre.clear();
-            nbCommitted = 0;
-            for (Action a : plan) {
-                Set<Action> deps = plan.getDirectDependencies(a);
-                if (deps.isEmpty()) {
-                    this.dependencies.put(a, new Dependency(a, Collections.<Action>emptySet()));
-                } else {
-                    Dependency dep = new Dependency(a, deps);
-                    this.dependencies.put(a, dep);
-                    for (Action x : dep.getDependencies()) {
-                        Set<Dependency> pres = pre.get(x);
-                        if (pres == null) {
-                            pres = new HashSet<>();
-                            pre.put(x, pres);
-                        }
-                        pres.add(dep);
-                    }
+        for (Action a : plan.getActions()) {
+            Set<Action> deps = plan.getDirectDependencies(a);
+            pending.put(a, new AtomicInteger(deps.size()));
+            for (Action x : deps) {
+                List<Action> l = dependents.get(x);
+                if (l == null) {
+                    l = new ArrayList<>();
+                    dependents.put(x, l);
                 }
+                l.add(a);
             }
         }
     }
@@ -93,24 +93,21 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
 
     @Override
     public Set<Action> commit(Action a) {
-        Set<Action> s = new HashSet<>();
         synchronized (lock) {
-            boolean ret = a.apply(curModel);
-            if (!ret) {
+            if (!a.apply(curModel)) {
                 return null;
             }
-            nbCommitted++;
-            //Browse all its dependencies for the action
-            Set<Dependency> deps = pre.get(a);
-            if (deps != null) {
-                for (Dependency dep : deps) {
-                    Set<Action> actions = dep.getDependencies();
-                    actions.remove(a);
-                    if (actions.isEmpty()) {
-                        Action x = dep.getAction();
-                        s.add(x);
-                    }
-                }
+        }
+        nbCommitted.incrementAndGet();
+        List<Action> deps = dependents.get(a);
+        if (deps == null) {
+            return new HashSet<>();
+        }
+        Set<Action> s = new HashSet<>();
+        for (Action x : deps) {
+            //The last committed dependency releases the action
+            if (pending.get(x).decrementAndGet() == 0) {
+                s.add(x);
             }
         }
         return s;
@@ -118,16 +115,12 @@ public class DefaultReconfigurationPlanMonitor implements ReconfigurationPlanMon
 
     @Override
     public int getNbCommitted() {
-        synchronized (lock) {
-            return nbCommitted;
-        }
+        return nbCommitted.get();
     }
 
     @Override
     public boolean isBlocked(Action a) {
-        synchronized (lock) {
-            return !dependencies.get(a).getDependencies().isEmpty();
-        }
+        return pending.get(a).get() > 0;
     }
 
     @Override
@@ -27,15 +27,34 @@ import java.util.*;
 /**
  * Detect dependencies between actions.
  * Actions are inserted using {@code #visit(...)} methods.
+ * <p/>
+ * The freeing actions of each node are sorted by their ending moment on demand.
+ * The dependencies of an action are then retrieved using a binary search
+ * in O(log n + k), with k the number of dependencies.
  *
  * @author Fabien Hermenier
  */
 public class DependenciesExtractor implements ActionVisitor {
 
+    private static final Action[] NO_ACTIONS = new Action[0];
+
+    private static final Comparator<Action> ENDS_CMP = new Comparator<Action>() {
+        @Override
+        public int compare(Action a1, Action a2) {
+            return a1.getEnd() - a2.getEnd();
+        }
+    };
+
     private Map<Action, Node> demandingNodes;
 
     private Map<Node, Set<Action>> freeing;
 
+    /**
+     * The freeing actions of each node, sorted by their ending moment.
+     * An entry is invalidated when a freeing action is added to the node.
+     */
+    private Map<Node, Action[]> sortedFreeing;
+
     private Map<Node, Set<Action>> demanding;
 
     private Model origin;
@@ -48,6 +67,7 @@ public class DependenciesExtractor implements ActionVisitor {
     public DependenciesExtractor(Model o) {
         demanding = new HashMap<>();
         freeing = new HashMap<>();
+        sortedFreeing = new HashMap<>();
         this.demandingNodes = new HashMap<>();
         origin = o;
     }
@@ -58,9 +78,53 @@ public class DependenciesExtractor implements ActionVisitor {
             actions = new HashSet<>();
             freeing.put(u, actions);
         }
+        //The set is about to be modified
+        sortedFreeing.remove(u);
         return actions;
     }
 
+    /**
+     * Get the freeing actions of a node, sorted by their ending moment.
+     *
+     * @param u the node
+     * @return an array that may be empty
+     */
+    private Action[] getSortedFreeings(Node u) {
+        Action[] sorted = sortedFreeing.get(u);
+        if (sorted == null) {
+            Set<Action> actions = freeing.get(u);
+            if (actions == null) {
+                return NO_ACTIONS;
+            }
+            sorted = actions.toArray(new Action[actions.size()]);
+            Arrays.sort(sorted, ENDS_CMP);
+            sortedFreeing.put(u, sorted);
+        }
+        return sorted;
+    }
+
+    /**
+     * Get the number of leading actions in a sorted array
+     * that end no later than a given moment.
+     *
+     * @param sorted the actions, sorted by their ending moment
+     * @param t      the moment
+     * @return the index of the first action ending after {@code t}
+     */
+    private static int endingBefore(Action[] sorted, int t) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid].getEnd() <= t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
     private Set<Action> getDemandings(Node u) {
         Set<Action> actions = demanding.get(u);
         if (actions == null) {
@@ -162,18 +226,54 @@ public class DependenciesExtractor implements ActionVisitor {
      * @return its dependencies, may be empty
      */
     public Set<Action> getDependencies(Action a) {
-        if (!demandingNodes.containsKey(a)) {
+        Action[] deps = getDependenciesArray(a);
+        if (deps.length == 0) {
             return Collections.emptySet();
-        } else {
-            Node n = demandingNodes.get(a);
-            Set<Action> allActions = getFreeings(n);
-            Set<Action> pre = new HashSet<>();
-            for (Action action : allActions) {
-                if (!action.equals(a) && a.getStart() >= action.getEnd()) {
-                    pre.add(action);
-                }
+        }
+        return new HashSet<>(Arrays.asList(deps));
+    }
+
+    /**
+     * Get the dependencies for an action.
+     *
+     * @param a the action to check
+     * @return its dependencies, sorted by their ending moment. The array may be empty
+     */
+    public Action[] getDependenciesArray(Action a) {
+        Node n = demandingNodes.get(a);
+        if (n == null) {
+            return NO_ACTIONS;
+        }
+        Action[] sorted = getSortedFreeings(n);
+        int nb = endingBefore(sorted, a.getStart());
+        if (nb == 0) {
+            return NO_ACTIONS;
+        }
+        Action[] pre = new Action[nb];
+        int x = 0;
+        for (int i = 0; i < nb; i++) {
+            if (!sorted[i].equals(a)) {
+                pre[x++] = sorted[i];
+            }
+        }
+        return x == nb ? pre : Arrays.copyOf(pre, x);
+    }
+
+    /**
+     * Get the dependencies of all the registered actions at once.
+     * The freeing actions of each node are sorted once, so the whole
+     * dependency graph is computed in O(n log n + k), with k the number of dependencies.
+     *
+     * @return for each action having dependencies, its dependencies sorted by their ending moment
+     */
+    public Map<Action, Action[]> getAllDependencies() {
+        Map<Action, Action[]> res = new HashMap<>();
+        for (Action a : demandingNodes.keySet()) {
+            Action[] deps = getDependenciesArray(a);
+            if (deps.length > 0) {
+                res.put(a, deps);
             }
-            return pre;
         }
+        return res;
     }
 }
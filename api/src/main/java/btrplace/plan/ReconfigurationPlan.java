@@ -18,8 +18,11 @@
 package btrplace.plan;
 
 import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
 import btrplace.plan.event.Action;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -70,6 +73,32 @@ public interface ReconfigurationPlan extends Iterable<Action> {
      */
     Set<Action> getActions();
 
+    /**
+     * Get the action that places a VM in the running state on a node.
+     *
+     * @param v the VM
+     * @return the action, that is also a {@link btrplace.plan.event.RunningVMPlacement}.
+     * {@code null} if the plan does not contain such an action
+     */
+    Action getPlacement(VM v);
+
+    /**
+     * Get the actions that involve a given node.
+     *
+     * @param n the node
+     * @return a set of actions that may be empty
+     */
+    Set<Action> getActions(Node n);
+
+    /**
+     * Get the actions that start in a given period.
+     *
+     * @param from the beginning of the period, inclusive
+     * @param to   the end of the period, exclusive
+     * @return the actions, sorted by their starting moment then by their ending moment. May be empty
+     */
+    List<Action> getActionsStartingIn(int from, int to);
+
     /**
      * Get the resulting model once all the actions are executed.
      *
@@ -18,13 +18,15 @@
 package btrplace.plan;
 
 import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
 import btrplace.model.constraint.SatConstraint;
+import btrplace.model.constraint.checker.AllowAllConstraintChecker;
 import btrplace.model.constraint.checker.SatConstraintChecker;
 import btrplace.plan.event.*;
+import gnu.trove.list.array.TIntArrayList;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.PriorityQueue;
+import java.util.*;
 
 /**
  * Checker to verify if a reconfiguration plan satisfies a set of
@@ -36,6 +38,11 @@ import java.util.PriorityQueue;
  * <p/>
  * Actions start and end moment are notified in the increasing order of their associated moment with
  * a priority given to the end moments.
+ * <p/>
+ * Once the origin model has been checked, the checkers are indexed by the VMs and the nodes they involve.
+ * An action is then only notified to the checkers that focus on its VM or on one of its nodes, and to
+ * the checkers that have no local scope (see {@link AllowAllConstraintChecker#hasLocalScope()}).
+ * Checkers are always notified in their registration order.
  *
  * @author Fabien Hermenier
  */
@@ -47,11 +54,39 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
     private static final TimedBasedActionComparator ENDS_CMP = new TimedBasedActionComparator(false, true);
     private List<SatConstraintChecker> checkers;
 
+    /**
+     * The position of the checkers that must be notified about every action.
+     * {@code null} while the index is not built.
+     */
+    private TIntArrayList globals;
+
+    /**
+     * The position of the checkers focusing on a given VM.
+     */
+    private Map<VM, TIntArrayList> vmCheckers;
+
+    /**
+     * The position of the checkers focusing on a given node.
+     */
+    private Map<Node, TIntArrayList> nodeCheckers;
+
+    /**
+     * The position of the checkers to notify for the current event.
+     */
+    private TIntArrayList selected;
+
+    private int[] marks;
+
+    private int curMark;
+
     /**
      * Make a new instance.
      */
     public ReconfigurationPlanChecker() {
         checkers = new ArrayList<>();
+        vmCheckers = new HashMap<>();
+        nodeCheckers = new HashMap<>();
+        selected = new TIntArrayList();
     }
 
     /**
@@ -61,6 +96,7 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      * @return {@code true} iff the checker has been added
      */
     public boolean addChecker(SatConstraintChecker c) {
+        clearIndex();
         return checkers.add(c);
     }
 
@@ -71,12 +107,15 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
      * @return {@code true} iff the checker was present
      */
     public boolean removeChecker(SatConstraintChecker c) {
+        clearIndex();
         return checkers.remove(c);
     }
 
     @Override
     public SatConstraint visit(Allocate a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getHost(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -90,7 +129,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(AllocateEvent a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), null, null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (!c.consume(a)) {
                 return c.getConstraint();
             }
@@ -100,17 +141,34 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(SubstitutedVMEvent a) {
+        //Every checker may track the substituted VM
         for (SatConstraintChecker c : checkers) {
             if (!c.consume(a)) {
                 return c.getConstraint();
             }
         }
+        //The new VM is now watched by the checkers focusing on the old one
+        TIntArrayList old = vmCheckers.get(a.getVM());
+        if (old != null) {
+            TIntArrayList l = vmCheckers.get(a.getNewVM());
+            if (l == null) {
+                vmCheckers.put(a.getNewVM(), new TIntArrayList(old));
+            } else {
+                for (int i = 0; i < old.size(); i++) {
+                    if (!l.contains(old.getQuick(i))) {
+                        l.add(old.getQuick(i));
+                    }
+                }
+            }
+        }
         return null;
     }
 
     @Override
     public SatConstraint visit(BootNode a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(null, a.getNode(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -125,7 +183,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(BootVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getDestinationNode(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -140,7 +200,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(ForgeVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), null, null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -155,7 +217,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(KillVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getNode(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -169,7 +233,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public SatConstraint visit(MigrateVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getSourceNode(), a.getDestinationNode());
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -183,7 +249,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ResumeVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getSourceNode(), a.getDestinationNode());
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -197,7 +265,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ShutdownNode a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(null, a.getNode(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -211,7 +281,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(ShutdownVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getNode(), null);
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -225,7 +297,9 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
 
     @Override
     public Object visit(SuspendVM a) {
-        for (SatConstraintChecker c : checkers) {
+        TIntArrayList cs = select(a.getVM(), a.getSourceNode(), a.getDestinationNode());
+        for (int i = 0; i < cs.size(); i++) {
+            SatConstraintChecker c = checkers.get(cs.getQuick(i));
             if (startingEvent) {
                 if (!c.start(a)) {
                     return c.getConstraint();
@@ -249,6 +323,8 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
         }
 
         checkModel(p.getOrigin(), true);
+        //The scope of some checkers may depend on the origin model
+        buildIndex();
 
         if (!p.getActions().isEmpty()) {
             PriorityQueue<Action> starts = new PriorityQueue<>(p.getActions().size(), STARTS_CMP);
@@ -281,10 +357,95 @@ public class ReconfigurationPlanChecker implements ActionVisitor {
                 curMoment = Math.min(nextEnd, nextStart);
             }
         }
+        clearIndex();
         Model mo = p.getResult();
         checkModel(mo, false);
     }
 
+    /**
+     * Index the checkers by the elements they focus on.
+     */
+    private void buildIndex() {
+        clearIndex();
+        globals = new TIntArrayList();
+        marks = new int[checkers.size()];
+        curMark = 0;
+        for (int i = 0; i < checkers.size(); i++) {
+            SatConstraintChecker c = checkers.get(i);
+            if (c instanceof AllowAllConstraintChecker && ((AllowAllConstraintChecker) c).hasLocalScope()) {
+                AllowAllConstraintChecker<?> chk = (AllowAllConstraintChecker<?>) c;
+                for (VM vm : chk.getVMs()) {
+                    register(vmCheckers, vm, i);
+                }
+                for (Node n : chk.getNodes()) {
+                    register(nodeCheckers, n, i);
+                }
+            } else {
+                globals.add(i);
+            }
+        }
+    }
+
+    private static <E> void register(Map<E, TIntArrayList> idx, E e, int pos) {
+        TIntArrayList l = idx.get(e);
+        if (l == null) {
+            l = new TIntArrayList();
+            idx.put(e, l);
+        }
+        l.add(pos);
+    }
+
+    private void clearIndex() {
+        globals = null;
+        vmCheckers.clear();
+        nodeCheckers.clear();
+    }
+
+    /**
+     * Get the checkers to notify for an event.
+     *
+     * @param vm the VM involved in the event. May be {@code null}
+     * @param n1 a node involved in the event. May be {@code null}
+     * @param n2 another node involved in the event. May be {@code null}
+     * @return the position of the checkers to notify, in increasing order
+     */
+    private TIntArrayList select(VM vm, Node n1, Node n2) {
+        selected.resetQuick();
+        if (globals == null) {
+            //No index, every checker is concerned
+            for (int i = 0; i < checkers.size(); i++) {
+                selected.add(i);
+            }
+            return selected;
+        }
+        curMark++;
+        collect(globals);
+        if (vm != null) {
+            collect(vmCheckers.get(vm));
+        }
+        if (n1 != null) {
+            collect(nodeCheckers.get(n1));
+        }
+        if (n2 != null) {
+            collect(nodeCheckers.get(n2));
+        }
+        selected.sort();
+        return selected;
+    }
+
+    private void collect(TIntArrayList positions) {
+        if (positions == null) {
+            return;
+        }
+        for (int i = 0; i < positions.size(); i++) {
+            int p = positions.getQuick(i);
+            if (marks[p] != curMark) {
+                marks[p] = curMark;
+                selected.add(p);
+            }
+        }
+    }
+
     private void visitAndThrowOnViolation(Action a) throws ReconfigurationPlanCheckerException {
         SatConstraint c = (SatConstraint) a.visit(this);
         if (c != null) {
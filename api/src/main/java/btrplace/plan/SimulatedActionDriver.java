@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.plan.event.Action;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An in-memory {@link ActionDriver} that simulates the execution of the actions.
+ * <p/>
+ * Executing an action takes {@code (a.getEnd() - a.getStart()) * unit} milliseconds.
+ * The driver records the number of actions executed and the maximum number of actions
+ * executed simultaneously to evaluate the throughput of an executor.
+ *
+ * @author Fabien Hermenier
+ */
+public class SimulatedActionDriver implements ActionDriver {
+
+    private long unit;
+
+    private Set<Action> failures;
+
+    private int running;
+
+    private int maxRunning;
+
+    private int nbExecuted;
+
+    /**
+     * Make a new driver.
+     *
+     * @param u the duration, in milliseconds, of one time unit of the plan
+     */
+    public SimulatedActionDriver(long u) {
+        unit = u;
+        failures = Collections.synchronizedSet(new HashSet<Action>());
+    }
+
+    /**
+     * Declare an action that must fail when it is executed.
+     *
+     * @param a the action
+     */
+    public void failOn(Action a) {
+        failures.add(a);
+    }
+
+    @Override
+    public boolean execute(Action a) throws InterruptedException {
+        synchronized (this) {
+            running++;
+            maxRunning = Math.max(maxRunning, running);
+        }
+        try {
+            Thread.sleep((a.getEnd() - a.getStart()) * unit);
+        } finally {
+            synchronized (this) {
+                running--;
+            }
+        }
+        if (failures.contains(a)) {
+            return false;
+        }
+        synchronized (this) {
+            nbExecuted++;
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of actions successfully executed.
+     *
+     * @return a positive number
+     */
+    public synchronized int getNbExecuted() {
+        return nbExecuted;
+    }
+
+    /**
+     * Get the maximum number of actions that were executed simultaneously.
+     *
+     * @return a positive number
+     */
+    public synchronized int getMaxConcurrency() {
+        return maxRunning;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.model.constraint;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.MigrateVM;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link MigrationBandwidth}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MigrationBandwidthTest {
+
+    @Test
+    public void testInstantiation() {
+        Model mo = new DefaultModel();
+        Set<Node> s = new HashSet<>(Arrays.asList(mo.newNode(), mo.newNode()));
+        MigrationBandwidth c = new MigrationBandwidth(s);
+        Assert.assertNotNull(c.getChecker());
+        Assert.assertEquals(c.getInvolvedNodes(), s);
+        Assert.assertTrue(c.getInvolvedVMs().isEmpty());
+        Assert.assertTrue(c.isContinuous());
+        Assert.assertFalse(c.setContinuous(false));
+        Assert.assertTrue(c.setContinuous(true));
+        Assert.assertFalse(c.toString().contains("null"));
+        Assert.assertEquals(c, new MigrationBandwidth(s));
+        Assert.assertEquals(c.hashCode(), new MigrationBandwidth(s).hashCode());
+        Assert.assertNotEquals(c, new MigrationBandwidth(Collections.singleton(mo.newNode())));
+    }
+
+    @Test
+    public void testBandwidth() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        mo.getAttributes().put(n1, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 1000);
+        mo.getAttributes().put(n2, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 100);
+        Assert.assertEquals(MigrationBandwidth.getBandwidth(mo, n1), 1000);
+        Assert.assertEquals(MigrationBandwidth.getBandwidth(mo, n3), Integer.MAX_VALUE);
+        Assert.assertEquals(MigrationBandwidth.getUsage(mo, n1, n1), 1000);
+        Assert.assertEquals(MigrationBandwidth.getUsage(mo, n1, n2), 100);
+        Assert.assertEquals(MigrationBandwidth.getUsage(mo, n3, n2), 100);
+        Assert.assertEquals(MigrationBandwidth.getUsage(mo, n2, n1), 100);
+    }
+
+    @Test
+    public void testIsSatisfiedPlan() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        map.addRunningVM(vm3, n2);
+        mo.getAttributes().put(n1, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 1000);
+        mo.getAttributes().put(n2, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 1000);
+        mo.getAttributes().put(n3, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 2000);
+
+        MigrationBandwidth c = new MigrationBandwidth(map.getAllNodes());
+        Assert.assertTrue(c.isSatisfied(mo));
+
+        //Sequential migrations out of n1
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vm1, n1, n3, 0, 3));
+        p.add(new MigrateVM(vm2, n1, n3, 3, 6));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        //Concurrent migrations out of n1
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vm1, n1, n3, 0, 3));
+        p.add(new MigrateVM(vm2, n1, n3, 2, 5));
+        Assert.assertFalse(c.isSatisfied(p));
+        //Not restricted if n1 is not in the scope
+        Assert.assertTrue(new MigrationBandwidth(Collections.singleton(n3)).isSatisfied(p));
+
+        //Concurrent migrations into n3, it has enough bandwidth
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vm1, n1, n3, 0, 3));
+        p.add(new MigrateVM(vm3, n2, n3, 0, 3));
+        Assert.assertTrue(c.isSatisfied(p));
+
+        //Concurrent migrations into n2, it has not
+        p = new DefaultReconfigurationPlan(mo);
+        p.add(new MigrateVM(vm1, n1, n2, 0, 3));
+        p.add(new MigrateVM(vm3, n2, n3, 1, 3));
+        Assert.assertFalse(c.isSatisfied(p));
+    }
+}
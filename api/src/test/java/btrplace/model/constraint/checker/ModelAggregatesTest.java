@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link ModelAggregates}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ModelAggregatesTest {
+
+    @Test
+    public void testUsages() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOfflineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        map.addSleepingVM(vm3, n2);
+        ShareableResource rc = new ShareableResource("cpu", 4, 2);
+        rc.setConsumption(vm1, 3);
+        mo.attach(rc);
+
+        ModelAggregates ag = new ModelAggregates(mo);
+        Assert.assertEquals(ag.getModel(), mo);
+        Assert.assertEquals(ag.getResource("cpu"), rc);
+        TObjectIntHashMap<Node> u = ag.getUsages("cpu");
+        Assert.assertEquals(u.get(n1), 5);
+        Assert.assertEquals(u.get(n2), 0);
+        Assert.assertFalse(u.containsKey(n3));
+        //Computed once
+        Assert.assertSame(ag.getUsages("cpu"), u);
+
+        Assert.assertNull(ag.getResource("mem"));
+        Assert.assertNull(ag.getUsages("mem"));
+    }
+}
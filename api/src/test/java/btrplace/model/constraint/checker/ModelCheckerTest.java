@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.model.constraint.checker;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link ModelChecker}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ModelCheckerTest {
+
+    @Test
+    public void testCheck() {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 3);
+        List<VM> vms = Util.newVMs(mo, 5);
+        Mapping map = mo.getMapping();
+        for (Node n : ns) {
+            map.addOnlineNode(n);
+        }
+        map.addRunningVM(vms.get(0), ns.get(0));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(1));
+        map.addRunningVM(vms.get(3), ns.get(2));
+        map.addReadyVM(vms.get(4));
+
+        ShareableResource rc = new ShareableResource("cpu", 4, 2);
+        rc.setConsumption(vms.get(3), 5);
+        mo.attach(rc);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        //Violated: 2 VMs
+        SatConstraint rCap = new RunningCapacity(ns.get(0), 1);
+        cstrs.add(rCap);
+        //Satisfied: 4 cpu
+        cstrs.add(new ResourceCapacity(ns.get(0), "cpu", 4));
+        //Violated: 5 > 4 * 1
+        SatConstraint ob = new Overbook(ns.get(2), "cpu", 1);
+        cstrs.add(ob);
+        //Satisfied
+        cstrs.add(new Overbook(ns.get(0), "cpu", 1));
+        //Violated
+        SatConstraint rsCap = new ResourceCapacity(new HashSet<>(Arrays.asList(ns.get(1), ns.get(2))), "cpu", 6);
+        cstrs.add(rsCap);
+        //Violated, no such resource
+        SatConstraint unknown = new ResourceCapacity(ns.get(1), "mem", 6);
+        cstrs.add(unknown);
+        //Violated, through isSatisfied()
+        SatConstraint sp = new Spread(new HashSet<>(Arrays.asList(vms.get(0), vms.get(1))));
+        cstrs.add(sp);
+        cstrs.add(new Ban(vms.get(0), Collections.singleton(ns.get(1))));
+
+        //A small grain to force the splitting
+        ForkJoinPool pool = new ForkJoinPool(2);
+        ModelChecker chk = new ModelChecker(pool, 1);
+        Map<SatConstraint, Set<VM>> res;
+        try {
+            res = chk.check(mo, cstrs);
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(new ArrayList<>(res.keySet()), Arrays.asList(rCap, ob, rsCap, unknown, sp));
+        Assert.assertEquals(res.get(rCap), new HashSet<>(Arrays.asList(vms.get(0), vms.get(1))));
+        Assert.assertEquals(res.get(ob), Collections.singleton(vms.get(3)));
+        Assert.assertEquals(res.get(rsCap), new HashSet<>(Arrays.asList(vms.get(2), vms.get(3))));
+        Assert.assertEquals(res.get(sp), new HashSet<>(Arrays.asList(vms.get(0), vms.get(1))));
+
+        //Same verdicts than the sequential check
+        for (SatConstraint c : cstrs) {
+            Assert.assertEquals(res.containsKey(c), !c.isSatisfied(mo), c.toString());
+        }
+
+        //Shutting down a caller-owned pool does not impact the shared one
+        Assert.assertTrue(pool.isShutdown());
+        Assert.assertFalse(ModelChecker.getSharedPool().isShutdown());
+        Assert.assertEquals(new ModelChecker().check(mo, cstrs), res);
+    }
+
+    @Test
+    public void testSharedPool() {
+        Assert.assertSame(ModelChecker.getSharedPool(), ModelChecker.getSharedPool());
+        Assert.assertEquals(new ModelChecker().getGrain(), ModelChecker.DEFAULT_GRAIN);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadGrain() {
+        new ModelChecker(ModelChecker.getSharedPool(), 0);
+    }
+}
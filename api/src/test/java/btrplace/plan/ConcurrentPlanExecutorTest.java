@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.plan;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link ConcurrentPlanExecutor}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ConcurrentPlanExecutorTest {
+
+    private static ReconfigurationPlan makePlan() {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 10);
+        List<Node> ns = Util.newNodes(mo, 10);
+
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(ns.get(0));
+        map.addOnlineNode(ns.get(1));
+        map.addOnlineNode(ns.get(2));
+        map.addOfflineNode(ns.get(3));
+
+        map.addRunningVM(vms.get(0), ns.get(2));
+        map.addRunningVM(vms.get(1), ns.get(0));
+        map.addRunningVM(vms.get(2), ns.get(1));
+        map.addRunningVM(vms.get(3), ns.get(1));
+        ShareableResource rc = new ShareableResource("cpu");
+        rc.setConsumption(vms.get(2), 3);
+        mo.attach(rc);
+
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        plan.add(new BootNode(ns.get(3), 3, 5));
+        plan.add(new MigrateVM(vms.get(0), ns.get(2), ns.get(3), 6, 7));
+        plan.add(new Allocate(vms.get(2), ns.get(1), "cpu", 7, 8, 9));
+        plan.add(new MigrateVM(vms.get(1), ns.get(0), ns.get(1), 1, 3));
+        plan.add(new MigrateVM(vms.get(3), ns.get(1), ns.get(2), 1, 7));
+        plan.add(new ShutdownNode(ns.get(0), 5, 7));
+        return plan;
+    }
+
+    /**
+     * Make a plan where {@code nb} VMs migrate from distinct nodes to the same node.
+     */
+    private static ReconfigurationPlan makeConsolidation(int nb) {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, nb);
+        List<Node> ns = Util.newNodes(mo, nb + 1);
+        Mapping map = mo.getMapping();
+        for (Node n : ns) {
+            map.addOnlineNode(n);
+        }
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        for (int i = 0; i < nb; i++) {
+            map.addRunningVM(vms.get(i), ns.get(i));
+            plan.add(new MigrateVM(vms.get(i), ns.get(i), ns.get(nb), 0, 1));
+        }
+        return plan;
+    }
+
+    @Test
+    public void testApply() {
+        ReconfigurationPlan plan = makePlan();
+        SimulatedActionDriver d = new SimulatedActionDriver(1);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        Model res = exec.apply(plan);
+        Assert.assertNotNull(res);
+        Assert.assertEquals(d.getNbExecuted(), plan.getSize());
+        Assert.assertEquals(res, new DependencyBasedPlanApplier().apply(plan));
+    }
+
+    @Test
+    public void testGlobalLimit() {
+        ReconfigurationPlan plan = makeConsolidation(10);
+        SimulatedActionDriver d = new SimulatedActionDriver(20);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d, 3, ConcurrentPlanExecutor.UNLIMITED);
+        long st = System.currentTimeMillis();
+        Assert.assertNotNull(exec.apply(plan));
+        long makespan = System.currentTimeMillis() - st;
+        Assert.assertEquals(d.getNbExecuted(), 10);
+        Assert.assertTrue(d.getMaxConcurrency() <= 3);
+        //At least 4 waves of 20 ms
+        Assert.assertTrue(makespan >= 80, Long.toString(makespan));
+    }
+
+    @Test
+    public void testPerNodeLimit() {
+        ReconfigurationPlan plan = makeConsolidation(6);
+        SimulatedActionDriver d = new SimulatedActionDriver(10);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d, ConcurrentPlanExecutor.UNLIMITED, 2);
+        Assert.assertNotNull(exec.apply(plan));
+        Assert.assertEquals(d.getNbExecuted(), 6);
+        //Every migration involves the destination node
+        Assert.assertTrue(d.getMaxConcurrency() <= 2);
+    }
+
+    @Test
+    public void testFailure() {
+        ReconfigurationPlan plan = makeConsolidation(5);
+        SimulatedActionDriver d = new SimulatedActionDriver(1);
+        d.failOn(plan.iterator().next());
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d, 1, 1);
+        Assert.assertNull(exec.apply(plan));
+        Assert.assertTrue(d.getNbExecuted() < 5);
+    }
+
+    @Test
+    public void testThreadLimit() {
+        //By default, the threads are only bounded by the global limit
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(new SimulatedActionDriver(1));
+        Assert.assertEquals(exec.getNbThreads(), ConcurrentPlanExecutor.UNLIMITED);
+        Assert.assertEquals(exec.getGlobalLimit(), ConcurrentPlanExecutor.UNLIMITED);
+        exec = new ConcurrentPlanExecutor(new SimulatedActionDriver(1), 3, 1);
+        Assert.assertEquals(exec.getNbThreads(), 3);
+
+        ReconfigurationPlan plan = makeConsolidation(10);
+        SimulatedActionDriver d = new SimulatedActionDriver(10);
+        exec = new ConcurrentPlanExecutor(d, ConcurrentPlanExecutor.UNLIMITED, ConcurrentPlanExecutor.UNLIMITED, 2);
+        Assert.assertNotNull(exec.apply(plan));
+        Assert.assertEquals(d.getNbExecuted(), 10);
+        Assert.assertTrue(d.getMaxConcurrency() <= 2);
+    }
+
+    @Test
+    public void testUnlimitedConcurrency() {
+        //The actions mostly wait so they must not be bounded by the number of processors
+        ReconfigurationPlan plan = makeConsolidation(10);
+        SimulatedActionDriver d = new SimulatedActionDriver(100);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d);
+        Assert.assertNotNull(exec.apply(plan));
+        Assert.assertEquals(d.getNbExecuted(), 10);
+        Assert.assertEquals(d.getMaxConcurrency(), 10);
+    }
+
+    @Test
+    public void testFailingListener() {
+        ReconfigurationPlan plan = makeConsolidation(5);
+        EventCommittedListener l = mock(EventCommittedListener.class);
+        IllegalStateException ex = new IllegalStateException("listener failure");
+        doThrow(ex).when(l).committed(Mockito.any(MigrateVM.class));
+        SimulatedActionDriver d = new SimulatedActionDriver(1);
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(d, 2, 2);
+        exec.addEventCommittedListener(l);
+        try {
+            exec.apply(plan);
+            Assert.fail("The exception should have been propagated");
+        } catch (IllegalStateException e) {
+            Assert.assertSame(e, ex);
+        }
+        Assert.assertTrue(d.getNbExecuted() < 5);
+    }
+
+    @Test(expectedExceptions = {UnsupportedOperationException.class})
+    public void testFailingDriver() {
+        ConcurrentPlanExecutor exec = new ConcurrentPlanExecutor(new ActionDriver() {
+            @Override
+            public boolean execute(Action a) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        exec.apply(makeConsolidation(3));
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadLimits() {
+        new ConcurrentPlanExecutor(new SimulatedActionDriver(1), 0, 1);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadThreadLimit() {
+        new ConcurrentPlanExecutor(new SimulatedActionDriver(1), 1, 1, 0);
+    }
+}
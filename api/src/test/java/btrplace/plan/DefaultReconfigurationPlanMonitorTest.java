@@ -23,8 +23,13 @@ import btrplace.plan.event.*;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit tests for {@link DefaultReconfigurationPlanMonitor}.
@@ -154,4 +159,50 @@ public class DefaultReconfigurationPlanMonitorTest {
 
         Assert.assertTrue(plan.isApplyable());
     }
+
+    /**
+     * Many threads commit independent migrations that all release
+     * the same shutdown action. It must be released exactly once.
+     */
+    @Test
+    public void testConcurrentCommits() throws InterruptedException {
+        Model mo = new DefaultModel();
+        List<VM> vs = Util.newVMs(mo, 100);
+        List<Node> nodes = Util.newNodes(mo, 2);
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(nodes.get(0));
+        map.addOnlineNode(nodes.get(1));
+        ReconfigurationPlan plan = new DefaultReconfigurationPlan(mo);
+        List<MigrateVM> migrations = new ArrayList<>();
+        for (VM v : vs) {
+            map.addRunningVM(v, nodes.get(0));
+            MigrateVM m = new MigrateVM(v, nodes.get(0), nodes.get(1), 0, 1);
+            migrations.add(m);
+            plan.add(m);
+        }
+        ShutdownNode s = new ShutdownNode(nodes.get(0), 1, 2);
+        plan.add(s);
+
+        final ReconfigurationPlanMonitor exec = new DefaultReconfigurationPlanMonitor(plan);
+        Assert.assertTrue(exec.isBlocked(s));
+        final AtomicInteger released = new AtomicInteger(0);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (final MigrateVM m : migrations) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Set<Action> r = exec.commit(m);
+                    if (r != null) {
+                        released.addAndGet(r.size());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(exec.getNbCommitted(), 100);
+        Assert.assertEquals(released.get(), 1);
+        Assert.assertFalse(exec.isBlocked(s));
+        Assert.assertEquals(exec.getCurrentModel().getMapping().getRunningVMs(nodes.get(1)).size(), 100);
+    }
 }
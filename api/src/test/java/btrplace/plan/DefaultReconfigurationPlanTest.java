@@ -18,12 +18,13 @@
 package btrplace.plan;
 
 import btrplace.model.*;
-import btrplace.plan.event.Action;
-import btrplace.plan.event.ShutdownNode;
-import btrplace.plan.event.SuspendVM;
+import btrplace.plan.event.*;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.mockito.Mockito.mock;
@@ -132,6 +133,78 @@ public class DefaultReconfigurationPlanTest {
         Assert.assertTrue(p1.getActions().contains(a3));
     }
 
+    @Test
+    public void testIndex() {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 3);
+        List<Node> ns = Util.newNodes(mo, 3);
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        Action m = new MigrateVM(vms.get(0), ns.get(0), ns.get(1), 0, 3);
+        Action b = new BootVM(vms.get(1), ns.get(2), 1, 2);
+        Action s = new SuspendVM(vms.get(2), ns.get(0), ns.get(0), 0, 1);
+        Action al = new Allocate(vms.get(2), ns.get(0), "cpu", 3, 0, 0);
+        Assert.assertNull(p.getPlacement(vms.get(0)));
+        Assert.assertTrue(p.getActions(ns.get(0)).isEmpty());
+        Assert.assertTrue(p.add(m));
+        Assert.assertTrue(p.add(b));
+        Assert.assertTrue(p.add(s));
+        Assert.assertTrue(p.add(al));
+
+        Assert.assertEquals(p.getPlacement(vms.get(0)), m);
+        Assert.assertEquals(p.getPlacement(vms.get(1)), b);
+        Assert.assertNull(p.getPlacement(vms.get(2)));
+
+        Assert.assertEquals(p.getActions(ns.get(0)).size(), 3);
+        Assert.assertTrue(p.getActions(ns.get(0)).containsAll(Arrays.asList(m, s, al)));
+        Assert.assertEquals(p.getActions(ns.get(1)).size(), 1);
+        Assert.assertTrue(p.getActions(ns.get(1)).contains(m));
+        Assert.assertEquals(p.getActions(ns.get(2)).size(), 1);
+        Assert.assertTrue(p.getActions(ns.get(2)).contains(b));
+
+        //No duplicate
+        Assert.assertFalse(p.add(m));
+        Assert.assertEquals(p.getActions(ns.get(1)).size(), 1);
+    }
+
+    @Test
+    public void testTimeIndex() {
+        Model mo = new DefaultModel();
+        List<VM> vms = Util.newVMs(mo, 6);
+        DefaultReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        Action a1 = new MockAction(vms.get(0), 5, 7);
+        Action a2 = new MockAction(vms.get(1), 0, 9);
+        Action a3 = new MockAction(vms.get(2), 0, 2);
+        Action a4 = new MockAction(vms.get(3), 3, 4);
+        Action a5 = new MockAction(vms.get(4), 5, 6);
+        Action a6 = new MockAction(vms.get(5), 0, 2);
+        for (Action a : Arrays.asList(a1, a2, a3, a4, a5, a6)) {
+            Assert.assertTrue(p.add(a));
+        }
+        Assert.assertEquals(p.getDuration(), 9);
+
+        List<Action> sorted = new ArrayList<>();
+        for (Action a : p) {
+            sorted.add(a);
+        }
+        Assert.assertEquals(sorted, Arrays.asList(a3, a6, a2, a4, a5, a1));
+
+        Assert.assertEquals(p.getActionsStartingIn(0, 1), Arrays.asList(a3, a6, a2));
+        Assert.assertEquals(p.getActionsStartingIn(1, 5), Arrays.asList(a4));
+        Assert.assertEquals(p.getActionsStartingIn(3, 10), Arrays.asList(a4, a5, a1));
+        Assert.assertTrue(p.getActionsStartingIn(6, 10).isEmpty());
+        Assert.assertTrue(p.getActionsStartingIn(5, 5).isEmpty());
+    }
+
+    @Test(expectedExceptions = {UnsupportedOperationException.class})
+    public void testReadOnlyIterator() {
+        Model mo = new DefaultModel();
+        DefaultReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        p.add(new MockAction(mo.newVM(), 0, 1));
+        Iterator<Action> ite = p.iterator();
+        ite.next();
+        ite.remove();
+    }
+
     @Test
     public void testEquals() {
         Model mo = new DefaultModel();
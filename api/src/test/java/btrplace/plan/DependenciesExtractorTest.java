@@ -23,7 +23,7 @@ import btrplace.plan.event.*;
 import junit.framework.Assert;
 import org.testng.annotations.Test;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Unit tests for {@link DependenciesExtractor}.
@@ -142,4 +142,47 @@ public class DependenciesExtractorTest {
         Assert.assertTrue(ex.getDependencies(a1).toString(), ex.getDependencies(a1).contains(a2));
     }
 
+    /**
+     * Many VMs moving onto a single node, each one after a VM leaves it.
+     */
+    @Test
+    public void testConsolidation() {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<Node> nodes = Util.newNodes(mo, 3);
+        List<VM> vs = Util.newVMs(mo, 20);
+        for (Node n : nodes) {
+            map.addOnlineNode(n);
+        }
+        DependenciesExtractor ex = new DependenciesExtractor(mo);
+        List<MigrateVM> outs = new ArrayList<>();
+        List<MigrateVM> ins = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            map.addRunningVM(vs.get(i), nodes.get(0));
+            map.addRunningVM(vs.get(i + 10), nodes.get(1));
+            //Leave n0 during [i, i + 1]
+            outs.add(new MigrateVM(vs.get(i), nodes.get(0), nodes.get(2), i, i + 1));
+            //Arrive on n0 during [i + 1, i + 3]
+            ins.add(new MigrateVM(vs.get(i + 10), nodes.get(1), nodes.get(0), i + 1, i + 3));
+        }
+        //Insertion in a reverse order to check the sorting
+        for (int i = 9; i >= 0; i--) {
+            Assert.assertTrue(ex.visit(ins.get(i)));
+            Assert.assertTrue(ex.visit(outs.get(i)));
+        }
+        Map<Action, Action[]> all = ex.getAllDependencies();
+        for (int i = 0; i < 10; i++) {
+            Set<Action> deps = ex.getDependencies(ins.get(i));
+            Assert.assertEquals(new HashSet<Action>(outs.subList(0, i + 1)), deps);
+            Assert.assertEquals(outs.subList(0, i + 1), Arrays.asList(ex.getDependenciesArray(ins.get(i))));
+            Assert.assertEquals(outs.subList(0, i + 1), Arrays.asList(all.get(ins.get(i))));
+            //Moving on n2 that is never freed
+            Assert.assertTrue(ex.getDependencies(outs.get(i)).isEmpty());
+            Assert.assertFalse(all.containsKey(outs.get(i)));
+        }
+        //An additional freeing action invalidates the sorted actions
+        ShutdownVM s = new ShutdownVM(vs.get(19), nodes.get(0), 0, 1);
+        Assert.assertTrue(ex.visit(s));
+        Assert.assertTrue(ex.getDependencies(ins.get(0)).contains(s));
+    }
 }
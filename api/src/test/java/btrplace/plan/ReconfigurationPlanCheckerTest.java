@@ -18,6 +18,10 @@
 package btrplace.plan;
 
 import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.model.constraint.Lonely;
+import btrplace.model.constraint.checker.BanChecker;
+import btrplace.model.constraint.checker.LonelyChecker;
 import btrplace.model.constraint.checker.SatConstraintChecker;
 import btrplace.plan.event.BootNode;
 import btrplace.plan.event.BootVM;
@@ -26,10 +30,11 @@ import org.mockito.InOrder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
-import static org.mockito.Mockito.inOrder;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link ReconfigurationPlanChecker}.
@@ -107,4 +112,42 @@ public class ReconfigurationPlanCheckerTest {
         order.verify(chk).endsWith(mo);
 
     }
+
+    /**
+     * Checkers with a local scope must only be notified about the actions
+     * involving their VMs or their nodes.
+     */
+    @Test
+    public void testDispatchOnInvolvedElements() throws ReconfigurationPlanCheckerException {
+        Model mo = new DefaultModel();
+        List<Node> ns = Util.newNodes(mo, 4);
+        List<VM> vms = Util.newVMs(mo, 3);
+        Mapping m = mo.getMapping();
+        for (Node n : ns) {
+            m.addOnlineNode(n);
+        }
+        m.addRunningVM(vms.get(0), ns.get(0));
+        m.addRunningVM(vms.get(1), ns.get(3));
+        m.addRunningVM(vms.get(2), ns.get(1));
+
+        ReconfigurationPlan p = new DefaultReconfigurationPlan(mo);
+        MigrateVM m1 = new MigrateVM(vms.get(0), ns.get(0), ns.get(2), 0, 3);
+        MigrateVM m2 = new MigrateVM(vms.get(2), ns.get(1), ns.get(0), 3, 5);
+        p.add(m1);
+        p.add(m2);
+
+        //Focus on vms[1] and ns[1] only
+        BanChecker ban = spy(new BanChecker(new Ban(vms.get(1), Collections.singleton(ns.get(1)))));
+        //No local scope
+        LonelyChecker lonely = spy(new LonelyChecker(new Lonely(new HashSet<>(Collections.singleton(vms.get(1))), true)));
+
+        ReconfigurationPlanChecker rc = new ReconfigurationPlanChecker();
+        rc.addChecker(ban);
+        rc.addChecker(lonely);
+        rc.check(p);
+        verify(ban, never()).start(m1);
+        verify(ban).start(m2);
+        verify(lonely).start(m1);
+        verify(lonely).start(m2);
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco;
+
+import solver.ResolutionPolicy;
+
+/**
+ * An objective alterer that adapts its aggressiveness to the history of the improvements.
+ * <p/>
+ * It starts with a dichotomic cut, then reduces the ratio of the distance to the best possible
+ * value to remove each time a target is unreachable, until falling back to the
+ * unit steps of the {@link DefaultObjectiveAlterer}. The ratio increases again each time a
+ * target is reached.
+ * An instance must be used for a single problem.
+ *
+ * @author Fabien Hermenier
+ */
+public class AdaptiveObjectiveAlterer implements BacktrackingObjectiveAlterer {
+
+    /**
+     * The most aggressive ratio.
+     */
+    public static final double MAX_RATIO = 0.5;
+
+    /**
+     * The least aggressive ratio.
+     */
+    public static final double MIN_RATIO = 0.001;
+
+    private int budget;
+
+    private double ratio = MAX_RATIO;
+
+    private int target;
+
+    private boolean hasTarget = false;
+
+    private int nbReached, nbUnreachable;
+
+    /**
+     * Make a new alterer with the default budget.
+     */
+    public AdaptiveObjectiveAlterer() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Make a new alterer.
+     *
+     * @param b the number of backtracks allowed to reach a target
+     */
+    public AdaptiveObjectiveAlterer(int b) {
+        budget = b;
+    }
+
+    @Override
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get the ratio of the distance to the best possible value that will be removed.
+     *
+     * @return a ratio in [{@link #MIN_RATIO}, {@link #MAX_RATIO}]
+     */
+    public double getRatio() {
+        return ratio;
+    }
+
+    /**
+     * Get the number of targets that were reached.
+     *
+     * @return a positive number
+     */
+    public int getNbReached() {
+        return nbReached;
+    }
+
+    /**
+     * Get the number of targets that were unreachable.
+     *
+     * @return a positive number
+     */
+    public int getNbUnreachable() {
+        return nbUnreachable;
+    }
+
+    @Override
+    public int newBound(ReconfigurationProblem rp, int currentValue) {
+        if (hasTarget && improves(rp, currentValue, target)) {
+            nbReached++;
+            ratio = Math.min(MAX_RATIO, ratio * 2);
+        }
+        long dist = Math.abs((long) currentValue - rp.getObjectiveBound());
+        target = GeometricObjectiveAlterer.toward(rp, currentValue, (long) (dist * ratio));
+        hasTarget = true;
+        return target;
+    }
+
+    @Override
+    public int onUnreachableBound(ReconfigurationProblem rp, int bound, int lastValue) {
+        nbUnreachable++;
+        ratio = Math.max(MIN_RATIO, ratio / 4);
+        long dist = Math.abs((long) lastValue - rp.getObjectiveBound());
+        target = GeometricObjectiveAlterer.toward(rp, lastValue, (long) (dist * ratio));
+        return target;
+    }
+
+    /**
+     * Check if a value is at least as good as a target.
+     */
+    private static boolean improves(ReconfigurationProblem rp, int v, int t) {
+        return rp.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE ? v >= t : v <= t;
+    }
+}
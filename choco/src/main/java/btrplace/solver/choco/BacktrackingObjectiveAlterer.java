@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco;
+
+/**
+ * An {@link ObjectiveAlterer} that may ask for bounds far from the current value
+ * and relax them when they appear to be unreachable.
+ * <p/>
+ * The bound computed by {@link #newBound(ReconfigurationProblem, int)} is only a target:
+ * a solution that improves the current value is still accepted. When no solution reaching
+ * the target is computed within a given number of backtracks, or when the search proves there is none,
+ * the target is relaxed using {@link #onUnreachableBound(ReconfigurationProblem, int, int)}
+ * and the search is restarted.
+ *
+ * @author Fabien Hermenier
+ */
+public interface BacktrackingObjectiveAlterer extends ObjectiveAlterer {
+
+    /**
+     * The default number of backtracks to reach a target.
+     */
+    int DEFAULT_BUDGET = 1000;
+
+    /**
+     * Get the number of backtracks allowed to reach a target.
+     *
+     * @return a positive number
+     */
+    int getBudget();
+
+    /**
+     * Compute a new target once the current one appears to be unreachable.
+     *
+     * @param rp        the associated problem
+     * @param bound     the unreachable target
+     * @param lastValue the value of the last solution
+     * @return a target between {@code bound} (excluded) and {@code lastValue} (excluded)
+     */
+    int onUnreachableBound(ReconfigurationProblem rp, int bound, int lastValue);
+}
@@ -19,8 +19,11 @@ package btrplace.solver.choco;
 
 import btrplace.solver.choco.constraint.ConstraintMapper;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.runner.SolutionListener;
 import btrplace.solver.choco.view.ModelViewMapper;
 
+import java.util.List;
+
 /**
  * Parameters for a {@link ChocoReconfigurationAlgorithm}.
  *
@@ -44,6 +47,25 @@ public interface ChocoReconfigurationAlgorithmParams {
      */
     boolean doRepair();
 
+    /**
+     * State if the repair mode must widen the set of manageable VMs when the problem has no solution.
+     * The set is widened in rounds, first with the VMs on the nodes of the manageable VMs, then with the
+     * VMs that share a constraint with them, and finally with all the VMs.
+     * Each round is solved within the time that remains.
+     *
+     * @param b {@code true} to escalate the repair
+     * @return the current instance
+     * @see #doRepair(boolean)
+     */
+    ChocoReconfigurationAlgorithmParams doEscalateRepair(boolean b);
+
+    /**
+     * Tell if the repair mode is escalated when the problem has no solution.
+     *
+     * @return {@code true} iff the repair is escalated
+     */
+    boolean doEscalateRepair();
+
     /**
      * State if the algorithm must try to improve the first computed solution.
      *
@@ -59,6 +81,57 @@ public interface ChocoReconfigurationAlgorithmParams {
      */
     boolean doOptimize();
 
+    /**
+     * State if the algorithm must post constraints to break the symmetries
+     * between the interchangeable VMs and between the interchangeable idle nodes.
+     *
+     * @param b {@code true} to break the symmetries
+     * @return the current instance
+     * @see SymmetryBreaker
+     */
+    ChocoReconfigurationAlgorithmParams doBreakSymmetries(boolean b);
+
+    /**
+     * Tell if the algorithm breaks the symmetries.
+     *
+     * @return {@code true} iff the symmetries are broken
+     */
+    boolean doBreakSymmetries();
+
+    /**
+     * State if the algorithm must remove from the problem the equivalent idle nodes
+     * that are in excess.
+     *
+     * @param b {@code true} to pool the idle nodes
+     * @return the current instance
+     * @see NodePooling
+     */
+    ChocoReconfigurationAlgorithmParams doPoolNodes(boolean b);
+
+    /**
+     * Tell if the algorithm pools the equivalent idle nodes.
+     *
+     * @return {@code true} iff the idle nodes are pooled
+     */
+    boolean doPoolNodes();
+
+    /**
+     * Set the maximum optimality gap that is tolerated.
+     * The solving process stops once the objective value of a solution is within that gap
+     * from the best value that can be expected.
+     *
+     * @param g a ratio of the objective value. {@code 0} to only stop on a proven optimal solution
+     * @return the current instance
+     */
+    ChocoReconfigurationAlgorithmParams setMaxOptimalityGap(double g);
+
+    /**
+     * Get the maximum optimality gap that is tolerated.
+     *
+     * @return a positive ratio
+     */
+    double getMaxOptimalityGap();
+
     /**
      * Get the mapper that is used to associate the {@link btrplace.model.view.ModelView}
      * to the {@link btrplace.solver.choco.view.ChocoModelView}.
@@ -138,6 +211,40 @@ public interface ChocoReconfigurationAlgorithmParams {
      */
     int getMaxEnd();
 
+    /**
+     * Set the maximum number of actions that can be executed simultaneously on a node.
+     * The cap of a node can be refined using the attribute
+     * {@value btrplace.solver.choco.constraint.CMaxConcurrentActions#CAP_ATTRIBUTE}.
+     *
+     * @param nb a positive integer. {@code 0} for no cap
+     * @return the current instance
+     * @see btrplace.solver.choco.constraint.CMaxConcurrentActions
+     */
+    ChocoReconfigurationAlgorithmParams setMaxConcurrentActionsPerNode(int nb);
+
+    /**
+     * Get the maximum number of actions that can be executed simultaneously on a node.
+     *
+     * @return a positive integer. {@code 0} for no cap
+     */
+    int getMaxConcurrentActionsPerNode();
+
+    /**
+     * Set the maximum number of actions that can be executed simultaneously on the whole infrastructure.
+     *
+     * @param nb a positive integer. {@code 0} for no cap
+     * @return the current instance
+     * @see btrplace.solver.choco.constraint.CMaxConcurrentActions
+     */
+    ChocoReconfigurationAlgorithmParams setMaxConcurrentActions(int nb);
+
+    /**
+     * Get the maximum number of actions that can be executed simultaneously on the whole infrastructure.
+     *
+     * @return a positive integer. {@code 0} for no cap
+     */
+    int getMaxConcurrentActions();
+
     /**
      * Set the verbosity level of the solver.
      * <ul>
@@ -159,4 +266,27 @@ public interface ChocoReconfigurationAlgorithmParams {
      * @see #setVerbosity(int)
      */
     int getVerbosity();
+
+    /**
+     * Add a listener that is notified each time a solution is computed.
+     *
+     * @param l the listener to add
+     * @return the current instance
+     */
+    ChocoReconfigurationAlgorithmParams addSolutionListener(SolutionListener l);
+
+    /**
+     * Remove a solution listener.
+     *
+     * @param l the listener to remove
+     * @return {@code true} iff the listener was registered
+     */
+    boolean removeSolutionListener(SolutionListener l);
+
+    /**
+     * Get the registered solution listeners.
+     *
+     * @return a list of listeners, in their registration order. May be empty
+     */
+    List<SolutionListener> getSolutionListeners();
 }
@@ -28,11 +28,13 @@ import btrplace.solver.choco.constraint.ConstraintMapper;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
 import btrplace.solver.choco.runner.InstanceResult;
 import btrplace.solver.choco.runner.InstanceSolver;
+import btrplace.solver.choco.runner.SolutionListener;
 import btrplace.solver.choco.runner.SolvingStatistics;
 import btrplace.solver.choco.runner.single.SingleRunner;
 import btrplace.solver.choco.view.ModelViewMapper;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Default implementation of {@link ChocoReconfigurationAlgorithm}.
@@ -76,6 +78,36 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         return params.doOptimize();
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams doBreakSymmetries(boolean b) {
+        return params.doBreakSymmetries(b);
+    }
+
+    @Override
+    public boolean doBreakSymmetries() {
+        return params.doBreakSymmetries();
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams doPoolNodes(boolean b) {
+        return params.doPoolNodes(b);
+    }
+
+    @Override
+    public boolean doPoolNodes() {
+        return params.doPoolNodes();
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxOptimalityGap(double g) {
+        return params.setMaxOptimalityGap(g);
+    }
+
+    @Override
+    public double getMaxOptimalityGap() {
+        return params.getMaxOptimalityGap();
+    }
+
     @Override
     public ChocoReconfigurationAlgorithmParams setTimeLimit(int t) {
         return params.setTimeLimit(t);
@@ -96,6 +128,16 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         return params.doRepair();
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams doEscalateRepair(boolean b) {
+        return params.doEscalateRepair(b);
+    }
+
+    @Override
+    public boolean doEscalateRepair() {
+        return params.doEscalateRepair();
+    }
+
     @Override
     public ReconfigurationPlan solve(Model i, Collection<SatConstraint> cstrs) throws SolverException {
         return solve(i, cstrs, new MinMTTR());
@@ -139,6 +181,26 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         return params.getMaxEnd();
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxConcurrentActionsPerNode(int nb) {
+        return params.setMaxConcurrentActionsPerNode(nb);
+    }
+
+    @Override
+    public int getMaxConcurrentActionsPerNode() {
+        return params.getMaxConcurrentActionsPerNode();
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxConcurrentActions(int nb) {
+        return params.setMaxConcurrentActions(nb);
+    }
+
+    @Override
+    public int getMaxConcurrentActions() {
+        return params.getMaxConcurrentActions();
+    }
+
     @Override
     public ModelViewMapper getViewMapper() {
         return params.getViewMapper();
@@ -169,6 +231,21 @@ public class DefaultChocoReconfigurationAlgorithm implements ChocoReconfiguratio
         return params.getVerbosity();
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams addSolutionListener(SolutionListener l) {
+        return params.addSolutionListener(l);
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return params.removeSolutionListener(l);
+    }
+
+    @Override
+    public List<SolutionListener> getSolutionListeners() {
+        return params.getSolutionListeners();
+    }
+
     @Override
     public InstanceSolver getInstanceSolver() {
         return runner;
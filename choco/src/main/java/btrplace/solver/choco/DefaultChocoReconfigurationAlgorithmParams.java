@@ -19,8 +19,13 @@ package btrplace.solver.choco;
 
 import btrplace.solver.choco.constraint.ConstraintMapper;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.runner.SolutionListener;
 import btrplace.solver.choco.view.ModelViewMapper;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Default implementation of {@link ChocoReconfigurationAlgorithmParams}.
  *
@@ -41,12 +46,29 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
 
     private boolean repair = false;
 
+    private boolean escalateRepair = true;
+
+    private boolean breakSymmetries = false;
+
+    private boolean poolNodes = false;
+
+    private double maxGap = 0;
+
     private DurationEvaluators durationEvaluators;
 
     private int maxEnd = DefaultReconfigurationProblem.DEFAULT_MAX_TIME;
 
     private int verbosityLevel;
 
+    private int maxConcurrentPerNode = 0;
+
+    private int maxConcurrent = 0;
+
+    /**
+     * The listeners may be read by concurrent solving processes.
+     */
+    private List<SolutionListener> listeners;
+
     /**
      * New set of parameters.
      */
@@ -54,6 +76,7 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
         cstrMapper = ConstraintMapper.newBundle();
         durationEvaluators = DurationEvaluators.newBundle();
         viewMapper = ModelViewMapper.newBundle();
+        listeners = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -67,6 +90,17 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
         return repair;
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams doEscalateRepair(boolean b) {
+        escalateRepair = b;
+        return this;
+    }
+
+    @Override
+    public boolean doEscalateRepair() {
+        return escalateRepair;
+    }
+
     @Override
     public ChocoReconfigurationAlgorithmParams doOptimize(boolean b) {
         optimize = b;
@@ -78,6 +112,39 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
         return optimize;
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams doBreakSymmetries(boolean b) {
+        breakSymmetries = b;
+        return this;
+    }
+
+    @Override
+    public boolean doBreakSymmetries() {
+        return breakSymmetries;
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams doPoolNodes(boolean b) {
+        poolNodes = b;
+        return this;
+    }
+
+    @Override
+    public boolean doPoolNodes() {
+        return poolNodes;
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxOptimalityGap(double g) {
+        maxGap = g;
+        return this;
+    }
+
+    @Override
+    public double getMaxOptimalityGap() {
+        return maxGap;
+    }
+
     @Override
     public ModelViewMapper getViewMapper() {
         return viewMapper;
@@ -133,6 +200,28 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
         return maxEnd;
     }
 
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxConcurrentActionsPerNode(int nb) {
+        maxConcurrentPerNode = nb;
+        return this;
+    }
+
+    @Override
+    public int getMaxConcurrentActionsPerNode() {
+        return maxConcurrentPerNode;
+    }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams setMaxConcurrentActions(int nb) {
+        maxConcurrent = nb;
+        return this;
+    }
+
+    @Override
+    public int getMaxConcurrentActions() {
+        return maxConcurrent;
+    }
+
     @Override
     public ChocoReconfigurationAlgorithmParams setVerbosity(int lvl) {
         verbosityLevel = lvl;
@@ -143,4 +232,20 @@ public class DefaultChocoReconfigurationAlgorithmParams implements ChocoReconfig
     public int getVerbosity() {
         return verbosityLevel;
     }
+
+    @Override
+    public ChocoReconfigurationAlgorithmParams addSolutionListener(SolutionListener l) {
+        listeners.add(l);
+        return this;
+    }
+
+    @Override
+    public boolean removeSolutionListener(SolutionListener l) {
+        return listeners.remove(l);
+    }
+
+    @Override
+    public List<SolutionListener> getSolutionListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
 }
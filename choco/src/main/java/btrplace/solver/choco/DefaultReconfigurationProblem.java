@@ -28,7 +28,9 @@ import btrplace.plan.ReconfigurationPlan;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.*;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.extensions.AliasedCumulatives;
+import btrplace.solver.choco.extensions.ObjectiveCut;
 import btrplace.solver.choco.view.ChocoModelView;
 import btrplace.solver.choco.view.ModelViewMapper;
 import gnu.trove.list.array.TIntArrayList;
@@ -39,10 +41,13 @@ import solver.ResolutionPolicy;
 import solver.Solver;
 import solver.constraints.IntConstraintFactory;
 import solver.exception.ContradictionException;
+import solver.search.loop.monitors.IMonitorContradiction;
 import solver.search.loop.monitors.IMonitorSolution;
 import solver.search.loop.monitors.SMF;
 import solver.search.solution.AllSolutionsRecorder;
 import solver.search.strategy.IntStrategyFactory;
+import solver.search.strategy.decision.Decision;
+import solver.search.strategy.decision.RootDecision;
 import solver.search.strategy.selectors.values.RealDomainMiddle;
 import solver.search.strategy.selectors.variables.InputOrder;
 import solver.search.strategy.selectors.variables.Occurrence;
@@ -101,8 +106,15 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private DurationEvaluators durEval;
 
+    private DurationTable durations;
+
     private Map<String, ChocoModelView> views;
 
+    /**
+     * The clone of each VM, created on demand.
+     */
+    private Map<VM, VM> clones;
+
     private IntVar[] vmsCountOnNodes;
 
     private SliceSchedulerBuilder taskSchedBuilder;
@@ -117,12 +129,45 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     private ResolutionPolicy solvingPolicy;
 
+    private double maxGap = 0;
+
+    private int objectiveBound;
+
+    /**
+     * Make a new RP where the next state for every VM is indicated.
+     * If the state for a VM is omitted, it is considered as unchanged
+     *
+     * @param m                 the initial model
+     * @param dEval             to evaluate the duration of every action
+     * @param ready             the VMs that must be in the ready state
+     * @param running           the VMs that must be in the running state
+     * @param sleeping          the VMs that must be in the sleeping state
+     * @param label             {@code true} to label the variables (for debugging purpose)
+     * @param killed            the VMs that must be killed
+     * @param runningToConsider the VMs that can be managed by the solver when they are already running and they must keep running
+     * @throws SolverException if an error occurred
+     * @see DefaultReconfigurationProblemBuilder to ease the instantiation process
+     */
+    public DefaultReconfigurationProblem(Model m,
+                                         DurationEvaluators dEval,
+                                         ModelViewMapper vMapper,
+                                         Set<VM> ready,
+                                         Set<VM> running,
+                                         Set<VM> sleeping,
+                                         Set<VM> killed,
+                                         Set<VM> runningToConsider,
+                                         boolean label
+    ) throws SolverException {
+        this(m, dEval, null, vMapper, ready, running, sleeping, killed, runningToConsider, label);
+    }
+
     /**
      * Make a new RP where the next state for every VM is indicated.
      * If the state for a VM is omitted, it is considered as unchanged
      *
      * @param m                 the initial model
      * @param dEval             to evaluate the duration of every action
+     * @param dTable            the precomputed durations. {@code null} to compute them from {@code dEval}
      * @param ready             the VMs that must be in the ready state
      * @param running           the VMs that must be in the running state
      * @param sleeping          the VMs that must be in the sleeping state
@@ -134,6 +179,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
      */
     public DefaultReconfigurationProblem(Model m,
                                          DurationEvaluators dEval,
+                                         DurationTable dTable,
                                          ModelViewMapper vMapper,
                                          Set<VM> ready,
                                          Set<VM> running,
@@ -150,6 +196,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         this.useLabels = label;
         model = m;
         durEval = dEval;
+        durations = dTable != null ? dTable : dEval.precompute(m);
         this.viewMapper = vMapper;
         solver = new Solver();
         solver.getSearchLoop().plugSearchMonitor(new AllSolutionsRecorder(solver));
@@ -159,6 +206,7 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         this.solvingPolicy = ResolutionPolicy.SATISFACTION;
         objective = null;
         this.views = new HashMap<>();
+        this.clones = new HashMap<>();
 
         fillElements();
 
@@ -222,19 +270,111 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         if (solvingPolicy == ResolutionPolicy.SATISFACTION) {
             solver.findSolution();
         } else {
-            solver.getSearchLoop().plugSearchMonitor(new IMonitorSolution() {
-                @Override
-                public void onSolution() {
-                    int v = objective.getValue();
-                    String op = solvingPolicy == ResolutionPolicy.MAXIMIZE ? ">=" : "<=";
-                    solver.postCut(IntConstraintFactory.arithm(objective, op, alterer.newBound(DefaultReconfigurationProblem.this, v)));
-                }
-            });
+            boolean maximize = solvingPolicy == ResolutionPolicy.MAXIMIZE;
+            objectiveBound = maximize ? objective.getUB() : objective.getLB();
+            ObjectiveMonitor mon = new ObjectiveMonitor(maximize);
+            solver.getSearchLoop().plugSearchMonitor(mon);
             solver.findOptimalSolution(solvingPolicy, objective);
         }
         return makeResultingPlan();
     }
 
+    /**
+     * Tighten the objective after each solution using the alterer.
+     * With a {@link BacktrackingObjectiveAlterer}, the computed bound is a target stated
+     * using an {@link ObjectiveCut} while a strict improvement is enforced with a cut.
+     * <p/>
+     * The target is relaxed when it is not reached within the alterer budget, or when
+     * the search tree is exhausted under it. The search is then restarted so the subtrees
+     * refuted under the previous target are explored again. The search can then only
+     * end once the target is the strict improvement of the last solution, so the optimality
+     * is only reported once it is proved.
+     */
+    private class ObjectiveMonitor implements IMonitorSolution, IMonitorContradiction {
+
+        private boolean maximize;
+
+        private BacktrackingObjectiveAlterer bAlterer;
+
+        private ObjectiveCut target;
+
+        private int lastValue;
+
+        private long lastBacktrack;
+
+        private boolean hasSolution = false;
+
+        public ObjectiveMonitor(boolean max) {
+            maximize = max;
+            if (alterer instanceof BacktrackingObjectiveAlterer) {
+                bAlterer = (BacktrackingObjectiveAlterer) alterer;
+                target = new ObjectiveCut(solver, objective, !maximize);
+                solver.post(target);
+            }
+        }
+
+        @Override
+        public void onSolution() {
+            int v = objective.getValue();
+            String op = maximize ? ">=" : "<=";
+            int step = maximize ? 1 : -1;
+            int next;
+            if (Math.abs((long) v - objectiveBound) <= maxGap * Math.abs(v)) {
+                //Close enough. A cut beyond the bound ends the search
+                getLogger().debug("Objective value {} is within the gap from the bound {}", v, objectiveBound);
+                next = objectiveBound + step;
+            } else if (bAlterer != null) {
+                lastValue = v;
+                hasSolution = true;
+                lastBacktrack = solver.getMeasures().getBackTrackCount();
+                target.setBound(bAlterer.newBound(DefaultReconfigurationProblem.this, v));
+                getLogger().debug("Objective value {}, next target: {}", v, target.getBound());
+                next = v + step;
+            } else {
+                next = alterer.newBound(DefaultReconfigurationProblem.this, v);
+            }
+            solver.postCut(IntConstraintFactory.arithm(objective, op, next));
+        }
+
+        @Override
+        public void onContradiction(ContradictionException cex) {
+            int step = maximize ? 1 : -1;
+            if (bAlterer == null || !hasSolution || target.getBound() == lastValue + step) {
+                return;
+            }
+            long nb = solver.getMeasures().getBackTrackCount();
+            boolean exhausted = isExhausted();
+            if (exhausted || nb - lastBacktrack > bAlterer.getBudget()) {
+                int t = target.getBound();
+                if (exhausted) {
+                    //Proved: no solution reaches the target
+                    objectiveBound = maximize ? Math.min(objectiveBound, t - 1) : Math.max(objectiveBound, t + 1);
+                }
+                int b = bAlterer.onUnreachableBound(DefaultReconfigurationProblem.this, t, lastValue);
+                getLogger().debug("Target {} unreachable, relaxed to {}", t, b);
+                target.setBound(b);
+                lastBacktrack = nb;
+                solver.getSearchLoop().restart();
+            }
+        }
+
+        /**
+         * Check if the search tree is exhausted once the current contradiction is handled.
+         *
+         * @return {@code true} iff none of the decisions in the current path has a remaining alternative
+         */
+        private boolean isExhausted() {
+            Decision d = solver.getSearchLoop().getLastDecision();
+            while (d != null && d != RootDecision.ROOT) {
+                if (d.hasNext()) {
+                    return false;
+                }
+                d = d.getPrevious();
+            }
+            return true;
+        }
+    }
+
     private ReconfigurationPlan makeResultingPlan() throws SolverException {
 
         //Check for the solution
@@ -246,7 +386,11 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
             //We don't know if the CSP has a solution
             throw new SolverException(model, "Unable to state about the problem feasibility.");
         }
+        return buildReconfigurationPlan();
+    }
 
+    @Override
+    public ReconfigurationPlan buildReconfigurationPlan() throws SolverException {
         DefaultReconfigurationPlan plan = new DefaultReconfigurationPlan(model);
         for (ActionModel action : nodeActions) {
             action.insertActions(plan);
@@ -654,6 +798,11 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
         return durEval;
     }
 
+    @Override
+    public DurationTable getDurationTable() {
+        return durations;
+    }
+
     @Override
     public Node[] getNodes() {
         return nodes;
@@ -748,10 +897,15 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
 
     @Override
     public VM cloneVM(VM vm) {
-        VM newVM = model.newVM();
+        VM newVM = clones.get(vm);
+        if (newVM != null) {
+            return newVM;
+        }
+        newVM = model.newVM();
         if (newVM == null) {
             return newVM;
         }
+        clones.put(vm, newVM);
         for (ChocoModelView v : views.values()) {
             v.cloneVM(vm, newVM);
         }
@@ -773,4 +927,19 @@ public class DefaultReconfigurationProblem implements ReconfigurationProblem {
     public ResolutionPolicy getResolutionPolicy() {
         return this.solvingPolicy;
     }
+
+    @Override
+    public void setMaxOptimalityGap(double g) {
+        maxGap = g;
+    }
+
+    @Override
+    public double getMaxOptimalityGap() {
+        return maxGap;
+    }
+
+    @Override
+    public int getObjectiveBound() {
+        return objectiveBound;
+    }
 }
@@ -23,6 +23,7 @@ import btrplace.model.Node;
 import btrplace.model.VM;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.view.ModelViewMapper;
 
 import java.util.Collections;
@@ -51,6 +52,8 @@ public class DefaultReconfigurationProblemBuilder {
 
     private DurationEvaluators dEval;
 
+    private DurationTable dTable;
+
     private ModelViewMapper viewMapper;
 
     private Set<VM> runs, waits, over, sleep;
@@ -98,6 +101,18 @@ public class DefaultReconfigurationProblemBuilder {
         return this;
     }
 
+    /**
+     * Provide the durations precomputed from the {@link DurationEvaluators}.
+     * The table may have been computed for a model that contains the one of the problem.
+     *
+     * @param t the table to use
+     * @return the current builder
+     */
+    public DefaultReconfigurationProblemBuilder setDurationTable(DurationTable t) {
+        dTable = t;
+        return this;
+    }
+
     /**
      * Provide a dedicated {@link ModelViewMapper}.
      *
@@ -173,7 +188,7 @@ public class DefaultReconfigurationProblemBuilder {
             manageable.addAll(model.getMapping().getRunningVMs());
             manageable.addAll(model.getMapping().getReadyVMs());
         }
-        return new DefaultReconfigurationProblem(model, dEval, viewMapper, waits, runs, sleep, over, manageable, labelVars);
+        return new DefaultReconfigurationProblem(model, dEval, dTable, viewMapper, waits, runs, sleep, over, manageable, labelVars);
     }
 
 }
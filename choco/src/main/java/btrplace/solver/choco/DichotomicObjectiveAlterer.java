@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco;
+
+import solver.ResolutionPolicy;
+
+/**
+ * An objective alterer that performs a dichotomic search between the current value and
+ * the best possible value of the objective.
+ * <p/>
+ * The best possible value is provided by {@link ReconfigurationProblem#getObjectiveBound()}.
+ * The targets that were unreachable are remembered so the search interval
+ * shrinks from both sides. An instance must then be used for a single problem.
+ *
+ * @author Fabien Hermenier
+ */
+public class DichotomicObjectiveAlterer implements BacktrackingObjectiveAlterer {
+
+    private int budget;
+
+    /**
+     * The tightest unreachable target, as a value to minimize.
+     */
+    private long unreachable = Long.MIN_VALUE / 2;
+
+    /**
+     * Make a new alterer with the default budget.
+     */
+    public DichotomicObjectiveAlterer() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Make a new alterer.
+     *
+     * @param b the number of backtracks allowed to reach a target
+     */
+    public DichotomicObjectiveAlterer(int b) {
+        budget = b;
+    }
+
+    @Override
+    public int getBudget() {
+        return budget;
+    }
+
+    @Override
+    public int newBound(ReconfigurationProblem rp, int currentValue) {
+        //The maximization is handled as the minimization of the opposite
+        int sign = rp.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE ? -1 : 1;
+        long v = (long) sign * currentValue;
+        long lo = Math.max((long) sign * rp.getObjectiveBound(), unreachable + 1);
+        long target = v - 1;
+        if (lo < target) {
+            target = lo + ((target - lo) >> 1);
+        }
+        return (int) (sign * target);
+    }
+
+    @Override
+    public int onUnreachableBound(ReconfigurationProblem rp, int bound, int lastValue) {
+        int sign = rp.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE ? -1 : 1;
+        unreachable = Math.max(unreachable, (long) sign * bound);
+        return newBound(rp, lastValue);
+    }
+}
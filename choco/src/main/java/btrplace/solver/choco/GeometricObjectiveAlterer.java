@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco;
+
+import solver.ResolutionPolicy;
+
+/**
+ * An objective alterer that reduces the distance between the current value and the
+ * best possible value of the objective by a constant ratio.
+ * <p/>
+ * The best possible value is provided by {@link ReconfigurationProblem#getObjectiveBound()}.
+ * When a target is unreachable, the next target is halfway between this target and
+ * the current value.
+ *
+ * @author Fabien Hermenier
+ */
+public class GeometricObjectiveAlterer implements BacktrackingObjectiveAlterer {
+
+    private double ratio;
+
+    private int budget;
+
+    /**
+     * Make a new alterer with the default budget.
+     *
+     * @param r the ratio of the distance to remove, between 0 and 1
+     */
+    public GeometricObjectiveAlterer(double r) {
+        this(r, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Make a new alterer.
+     *
+     * @param r the ratio of the distance to remove, between 0 and 1
+     * @param b the number of backtracks allowed to reach a target
+     */
+    public GeometricObjectiveAlterer(double r, int b) {
+        if (r <= 0 || r > 1) {
+            throw new IllegalArgumentException("The ratio must be in ]0, 1]");
+        }
+        ratio = r;
+        budget = b;
+    }
+
+    /**
+     * Get the ratio of the distance to remove.
+     *
+     * @return a ratio in ]0, 1]
+     */
+    public double getRatio() {
+        return ratio;
+    }
+
+    @Override
+    public int getBudget() {
+        return budget;
+    }
+
+    @Override
+    public int newBound(ReconfigurationProblem rp, int currentValue) {
+        long dist = Math.abs((long) currentValue - rp.getObjectiveBound());
+        return toward(rp, currentValue, (long) (dist * ratio));
+    }
+
+    @Override
+    public int onUnreachableBound(ReconfigurationProblem rp, int bound, int lastValue) {
+        return toward(rp, lastValue, Math.abs((long) lastValue - bound) / 2);
+    }
+
+    /**
+     * Improve a value.
+     *
+     * @param rp   the associated problem
+     * @param v    the value to improve
+     * @param step the improvement. At least 1
+     * @return the improved value
+     */
+    static int toward(ReconfigurationProblem rp, int v, long step) {
+        int s = (int) Math.max(1, Math.min(step, Integer.MAX_VALUE / 2));
+        if (rp.getResolutionPolicy() == ResolutionPolicy.MAXIMIZE) {
+            return v + s;
+        }
+        return v - s;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.MinMTTR;
+import btrplace.model.constraint.OptConstraint;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ModelView;
+import btrplace.model.view.NamingService;
+import btrplace.model.view.ShareableResource;
+
+import java.util.*;
+
+/**
+ * Aggregate the equivalent idle nodes of a model into pools.
+ * <p/>
+ * Two nodes are equivalent when they host no VM, have the same state, the same resource capacities
+ * and the same attributes. A node involved in a constraint is never pooled.
+ * <p/>
+ * The nodes of a pool are interchangeable so a problem only needs as many of them as VMs that may
+ * be placed. The other nodes can be removed from the problem: they stay idle and in their current state.
+ * As the representatives of a pool are concrete nodes, a plan computed without the removed nodes
+ * is also a plan for the whole model.
+ * <p/>
+ * Nothing is pooled if the model contains a view that is not supported, or if the optimization
+ * constraint is not {@link MinMTTR} as it could benefit from acting on idle nodes.
+ *
+ * @author Fabien Hermenier
+ * @see SymmetryBreaker
+ */
+public class NodePooling {
+
+    private Model mo;
+
+    private Set<Node> excluded;
+
+    private List<ShareableResource> rcs;
+
+    private String unsupported;
+
+    /**
+     * Make a new pooling.
+     *
+     * @param m  the model to analyse
+     * @param cs the satisfaction-oriented constraints the model is subject to
+     * @param o  the optimization constraint
+     */
+    public NodePooling(Model m, Collection<SatConstraint> cs, OptConstraint o) {
+        mo = m;
+        if (!(o instanceof MinMTTR)) {
+            unsupported = "objective '" + o + "'";
+        }
+        excluded = new HashSet<>();
+        for (SatConstraint c : cs) {
+            excluded.addAll(c.getInvolvedNodes());
+        }
+        rcs = new ArrayList<>();
+        for (ModelView v : mo.getViews()) {
+            if (v instanceof ShareableResource) {
+                rcs.add((ShareableResource) v);
+            } else if (!(v instanceof NamingService)) {
+                unsupported = "view '" + v.getIdentifier() + "'";
+            }
+        }
+        Collections.sort(rcs, new Comparator<ShareableResource>() {
+            @Override
+            public int compare(ShareableResource r1, ShareableResource r2) {
+                return r1.getIdentifier().compareTo(r2.getIdentifier());
+            }
+        });
+    }
+
+    /**
+     * Tell if the pooling is possible.
+     *
+     * @return {@code true} iff the model, its constraints and its objective are supported
+     */
+    public boolean isSupported() {
+        return unsupported == null;
+    }
+
+    /**
+     * Get the pools of equivalent idle nodes.
+     *
+     * @return pools of at least 2 nodes, sorted by node identifier. Empty if the pooling is not supported
+     */
+    public List<List<Node>> getPools() {
+        if (unsupported != null) {
+            return Collections.emptyList();
+        }
+        Mapping map = mo.getMapping();
+        Attributes attrs = mo.getAttributes();
+        Map<List<Object>, List<Node>> pools = new LinkedHashMap<>();
+        List<Node> nodes = new ArrayList<>(map.getAllNodes());
+        Collections.sort(nodes, new Comparator<Node>() {
+            @Override
+            public int compare(Node n1, Node n2) {
+                return n1.id() - n2.id();
+            }
+        });
+        for (Node n : nodes) {
+            if (excluded.contains(n) || !map.getRunningVMs(n).isEmpty() || !map.getSleepingVMs(n).isEmpty()) {
+                continue;
+            }
+            List<Object> sig = new ArrayList<>();
+            sig.add(map.isOnline(n));
+            for (ShareableResource rc : rcs) {
+                sig.add(rc.getCapacity(n));
+            }
+            Map<String, Object> m = new TreeMap<>();
+            for (String k : attrs.getKeys(n)) {
+                m.put(k, attrs.get(n, k));
+            }
+            sig.add(m);
+            List<Node> l = pools.get(sig);
+            if (l == null) {
+                l = new ArrayList<>();
+                pools.put(sig, l);
+            }
+            l.add(n);
+        }
+        List<List<Node>> res = new ArrayList<>();
+        for (List<Node> l : pools.values()) {
+            if (l.size() > 1) {
+                res.add(l);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Get the nodes that can be removed from a problem.
+     * The first nodes of each pool are kept as representatives.
+     *
+     * @param nbVMs the number of VMs that may be placed by the problem
+     * @return the nodes in excess in each pool. May be empty
+     */
+    public Set<Node> getRemovableNodes(int nbVMs) {
+        Set<Node> res = new HashSet<>();
+        for (List<Node> pool : getPools()) {
+            if (pool.size() > nbVMs) {
+                res.addAll(pool.subList(nbVMs, pool.size()));
+            }
+        }
+        return res;
+    }
+}
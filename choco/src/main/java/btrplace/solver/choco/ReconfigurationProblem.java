@@ -25,6 +25,7 @@ import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.NodeActionModel;
 import btrplace.solver.choco.actionModel.VMActionModel;
 import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.view.ChocoModelView;
 import btrplace.solver.choco.view.ModelViewMapper;
 import org.slf4j.Logger;
@@ -196,6 +197,13 @@ public interface ReconfigurationProblem {
      */
     DurationEvaluators getDurationEvaluators();
 
+    /**
+     * Get the precomputed duration of the actions.
+     *
+     * @return the table computed from {@link #getDurationEvaluators()}
+     */
+    DurationTable getDurationTable();
+
     /**
      * Solve the RP and return a solution if exists.
      *
@@ -207,6 +215,16 @@ public interface ReconfigurationProblem {
      */
     ReconfigurationPlan solve(int timeLimit, boolean optimize) throws SolverException;
 
+    /**
+     * Build the plan that corresponds to the current solution.
+     * Every variable must be instantiated so the method can only be called
+     * once the solving process succeeded, or while a solution is notified.
+     *
+     * @return the resulting plan
+     * @throws SolverException if an error occurs
+     */
+    ReconfigurationPlan buildReconfigurationPlan() throws SolverException;
+
     /**
      * Get the Solver used to model this problem.
      *
@@ -374,6 +392,8 @@ public interface ReconfigurationProblem {
     /**
      * Create a clone of a given VM.
      * The clone will take the place of the VM by the end of the reconfiguration process.
+     * A VM is cloned once: the next calls return the same clone so that the plans
+     * built for successive solutions do not create new VMs.
      *
      * @param vm the identifier of the  VM to substitute
      * @return the identifier of the new VM. {@code null} if the process failed
@@ -401,4 +421,30 @@ public interface ReconfigurationProblem {
      * @return the current resolution policy
      */
     ResolutionPolicy getResolutionPolicy();
+
+    /**
+     * Set the maximum optimality gap that is tolerated.
+     * Once a solution is within that gap, the optimisation process stops.
+     *
+     * @param g a ratio of the objective value
+     * @see #getObjectiveBound()
+     */
+    void setMaxOptimalityGap(double g);
+
+    /**
+     * Get the maximum optimality gap that is tolerated.
+     *
+     * @return a positive ratio. {@code 0} by default
+     */
+    double getMaxOptimalityGap();
+
+    /**
+     * Get the best value the objective can reach, as known before the solving process:
+     * its lower bound when it is minimised, its upper bound when it is maximised.
+     * The optimality gap of a solution having {@code v} as an objective value
+     * is {@code |v - bound| / |v|}.
+     *
+     * @return the bound. Only meaningful once the solving process started
+     */
+    int getObjectiveBound();
 }
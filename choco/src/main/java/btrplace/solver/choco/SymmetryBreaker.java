@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ModelView;
+import btrplace.model.view.NamingService;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.choco.actionModel.ActionModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import solver.Solver;
+import solver.constraints.IntConstraintFactory;
+import solver.variables.IntVar;
+
+import java.util.*;
+
+/**
+ * Break the symmetries between interchangeable elements of a {@link ReconfigurationProblem}.
+ * <p/>
+ * Two future running VMs are interchangeable when they have the same current state and location,
+ * the same action model, the same resource consumptions and attributes, and when they
+ * are involved in the same constraints. The hosting nodes of interchangeable VMs are then ordered
+ * in a non-decreasing order.
+ * <p/>
+ * Two nodes that host no VM are interchangeable under the same conditions, using their resource capacities.
+ * The number of VMs running on interchangeable nodes are then ordered in a non-increasing order.
+ * <p/>
+ * A permutation of interchangeable VMs does not alter the number of VMs on each node so both
+ * orderings can be stated together.
+ * The elements involved in a constraint that is not known to be symmetric are never considered
+ * as interchangeable. Nothing is done if the model contains a view that is not supported, or if the
+ * optimization constraint is not {@link MinMTTR}.
+ *
+ * @author Fabien Hermenier
+ */
+public class SymmetryBreaker {
+
+    /**
+     * The constraints that are known to consider their VMs and their nodes as a set.
+     */
+    private static final Set<Class<? extends SatConstraint>> SYMMETRIC = new HashSet<>(Arrays.<Class<? extends SatConstraint>>asList(
+            Among.class, Ban.class, Fence.class, Gather.class, Lonely.class, MaxOnline.class, Overbook.class,
+            Preserve.class, Quarantine.class, ResourceCapacity.class, Root.class, RunningCapacity.class,
+            Split.class, SplitAmong.class, Spread.class));
+
+    /**
+     * The constraints that are captured by the state of the elements.
+     */
+    private static final Set<Class<? extends SatConstraint>> STATES = new HashSet<>(Arrays.<Class<? extends SatConstraint>>asList(
+            Running.class, Sleeping.class, Ready.class, Killed.class));
+
+    private ReconfigurationProblem rp;
+
+    private Collection<SatConstraint> cstrs;
+
+    private OptConstraint obj;
+
+    private Map<Element, Set<List<Object>>> memberships;
+
+    private Set<Element> excluded;
+
+    private List<ShareableResource> rcs;
+
+    private String unsupported;
+
+    /**
+     * Make a new breaker.
+     *
+     * @param p  the problem to customize
+     * @param cs the satisfaction-oriented constraints the problem is subject to
+     * @param o  the optimization constraint
+     */
+    public SymmetryBreaker(ReconfigurationProblem p, Collection<SatConstraint> cs, OptConstraint o) {
+        rp = p;
+        cstrs = cs;
+        obj = o;
+        if (!(obj instanceof MinMTTR)) {
+            unsupported = "objective '" + obj + "'";
+        }
+        rcs = new ArrayList<>();
+        for (ModelView v : rp.getSourceModel().getViews()) {
+            if (v instanceof ShareableResource) {
+                rcs.add((ShareableResource) v);
+            } else if (!(v instanceof NamingService)) {
+                unsupported = "view '" + v.getIdentifier() + "'";
+            }
+        }
+        Collections.sort(rcs, new Comparator<ShareableResource>() {
+            @Override
+            public int compare(ShareableResource r1, ShareableResource r2) {
+                return r1.getIdentifier().compareTo(r2.getIdentifier());
+            }
+        });
+        indexMemberships();
+    }
+
+    /**
+     * Detect the interchangeable elements and state the ordering constraints.
+     *
+     * @return the number of posted constraints
+     */
+    public int inject() {
+        if (unsupported != null) {
+            rp.getLogger().debug("No symmetry breaking due to the unsupported {}", unsupported);
+            return 0;
+        }
+        return breakVMSymmetries() + breakNodeSymmetries();
+    }
+
+    /**
+     * Get the classes of interchangeable future running VMs.
+     *
+     * @return classes of at least 2 VMs, sorted by VM index. Empty if the problem is not supported
+     */
+    public List<List<VM>> getVMClasses() {
+        if (unsupported != null) {
+            return Collections.emptyList();
+        }
+        Map<List<Object>, List<VM>> classes = new LinkedHashMap<>();
+        Mapping map = rp.getSourceModel().getMapping();
+        for (VM v : rp.getVMs()) {
+            if (excluded.contains(v) || !rp.getFutureRunningVMs().contains(v)) {
+                continue;
+            }
+            VMActionModel a = rp.getVMAction(v);
+            List<Object> sig = new ArrayList<>();
+            sig.add(rp.getManageableVMs().contains(v));
+            sig.add(map.isRunning(v) ? 0 : map.isSleeping(v) ? 1 : map.isReady(v) ? 2 : 3);
+            sig.add(map.getVMLocation(v));
+            addAction(sig, a);
+            for (ShareableResource rc : rcs) {
+                sig.add(rc.getConsumption(v));
+            }
+            addCommon(sig, v);
+            add(classes, sig, v);
+        }
+        return filter(classes);
+    }
+
+    /**
+     * Get the classes of interchangeable nodes. Only the nodes that do not host any VM
+     * are considered.
+     *
+     * @return classes of at least 2 nodes, sorted by node index. Empty if the problem is not supported
+     */
+    public List<List<Node>> getNodeClasses() {
+        if (unsupported != null) {
+            return Collections.emptyList();
+        }
+        Map<List<Object>, List<Node>> classes = new LinkedHashMap<>();
+        Mapping map = rp.getSourceModel().getMapping();
+        for (Node n : rp.getNodes()) {
+            if (excluded.contains(n) || !map.getRunningVMs(n).isEmpty() || !map.getSleepingVMs(n).isEmpty()) {
+                continue;
+            }
+            List<Object> sig = new ArrayList<>();
+            sig.add(map.isOnline(n));
+            addAction(sig, rp.getNodeAction(n));
+            for (ShareableResource rc : rcs) {
+                sig.add(rc.getCapacity(n));
+            }
+            addCommon(sig, n);
+            add(classes, sig, n);
+        }
+        return filter(classes);
+    }
+
+    private int breakVMSymmetries() {
+        Solver s = rp.getSolver();
+        int nb = 0;
+        for (List<VM> cl : getVMClasses()) {
+            for (int i = 0; i < cl.size() - 1; i++) {
+                IntVar h1 = rp.getVMAction(cl.get(i)).getDSlice().getHoster();
+                IntVar h2 = rp.getVMAction(cl.get(i + 1)).getDSlice().getHoster();
+                s.post(IntConstraintFactory.arithm(h1, "<=", h2));
+                nb++;
+            }
+            rp.getLogger().debug("{} interchangeable VMs: {}", cl.size(), cl);
+        }
+        return nb;
+    }
+
+    private int breakNodeSymmetries() {
+        Solver s = rp.getSolver();
+        IntVar[] nbVMs = rp.getNbRunningVMs();
+        int nb = 0;
+        for (List<Node> cl : getNodeClasses()) {
+            for (int i = 0; i < cl.size() - 1; i++) {
+                s.post(IntConstraintFactory.arithm(nbVMs[rp.getNode(cl.get(i))], ">=", nbVMs[rp.getNode(cl.get(i + 1))]));
+                nb++;
+            }
+            rp.getLogger().debug("{} interchangeable nodes: {}", cl.size(), cl);
+        }
+        return nb;
+    }
+
+    private static void addAction(List<Object> sig, ActionModel a) {
+        sig.add(a.getClass());
+        IntVar d = a.getDuration();
+        sig.add(d == null ? null : d.getLB());
+        sig.add(d == null ? null : d.getUB());
+    }
+
+    private void addCommon(List<Object> sig, Element e) {
+        Attributes attrs = rp.getSourceModel().getAttributes();
+        Map<String, Object> m = new TreeMap<>();
+        for (String k : attrs.getKeys(e)) {
+            m.put(k, attrs.get(e, k));
+        }
+        sig.add(m);
+        Set<List<Object>> ms = memberships.get(e);
+        sig.add(ms == null ? Collections.emptySet() : ms);
+    }
+
+    private static <E> void add(Map<List<Object>, List<E>> classes, List<Object> sig, E e) {
+        List<E> l = classes.get(sig);
+        if (l == null) {
+            l = new ArrayList<>();
+            classes.put(sig, l);
+        }
+        l.add(e);
+    }
+
+    private static <E> List<List<E>> filter(Map<List<Object>, List<E>> classes) {
+        List<List<E>> res = new ArrayList<>();
+        for (List<E> l : classes.values()) {
+            if (l.size() > 1) {
+                res.add(l);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Compute the constraints each element is involved in.
+     */
+    private void indexMemberships() {
+        memberships = new HashMap<>();
+        excluded = new HashSet<>();
+        for (SatConstraint c : cstrs) {
+            if (STATES.contains(c.getClass())) {
+                //Captured by the VM states
+                continue;
+            }
+            if (c instanceof Online || c instanceof Offline) {
+                for (Node n : c.getInvolvedNodes()) {
+                    register(n, Arrays.<Object>asList(c.getClass()));
+                }
+                continue;
+            }
+            if (!SYMMETRIC.contains(c.getClass())) {
+                excluded.addAll(c.getInvolvedVMs());
+                excluded.addAll(c.getInvolvedNodes());
+                continue;
+            }
+            List<Object> single = singleVMSignature(c);
+            //The other constraints only distinguish the VMs and the nodes by their group
+            for (VM v : c.getInvolvedVMs()) {
+                register(v, single != null ? single : Arrays.asList(c, vmGroup(c, v)));
+            }
+            for (Node n : c.getInvolvedNodes()) {
+                register(n, Arrays.asList(c, nodeGroup(c, n)));
+            }
+        }
+    }
+
+    private void register(Element e, List<Object> m) {
+        Set<List<Object>> s = memberships.get(e);
+        if (s == null) {
+            s = new HashSet<>();
+            memberships.put(e, s);
+        }
+        s.add(m);
+    }
+
+    /**
+     * The constraints that are stated on a single VM are compared by their parameters,
+     * so interchangeable VMs can be subject to distinct but equivalent constraints.
+     *
+     * @param c the constraint
+     * @return the signature of the constraint, {@code null} if it does not focus on a single VM
+     */
+    private static List<Object> singleVMSignature(SatConstraint c) {
+        if (c.getInvolvedVMs().size() != 1) {
+            return null;
+        }
+        boolean continuous = c.isContinuous();
+        if (c instanceof Ban || c instanceof Fence || c instanceof Root) {
+            return Arrays.<Object>asList(c.getClass(), continuous, new HashSet<>(c.getInvolvedNodes()));
+        } else if (c instanceof Preserve) {
+            Preserve p = (Preserve) c;
+            return Arrays.<Object>asList(c.getClass(), continuous, p.getResource(), p.getAmount());
+        }
+        return null;
+    }
+
+    private static int vmGroup(SatConstraint c, VM v) {
+        Collection<Collection<VM>> groups = null;
+        if (c instanceof Split) {
+            groups = ((Split) c).getSets();
+        } else if (c instanceof SplitAmong) {
+            groups = ((SplitAmong) c).getGroupsOfVMs();
+        }
+        return indexOf(groups, v);
+    }
+
+    private static int nodeGroup(SatConstraint c, Node n) {
+        Collection<Collection<Node>> groups = null;
+        if (c instanceof Among) {
+            groups = ((Among) c).getGroupsOfNodes();
+        } else if (c instanceof SplitAmong) {
+            groups = ((SplitAmong) c).getGroupsOfNodes();
+        }
+        return indexOf(groups, n);
+    }
+
+    private static <E> int indexOf(Collection<Collection<E>> groups, E e) {
+        if (groups == null) {
+            return -1;
+        }
+        int i = 0;
+        for (Collection<E> g : groups) {
+            if (g.contains(e)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+}
@@ -69,7 +69,7 @@ public class BootVMModel implements VMActionModel {
     public BootVMModel(ReconfigurationProblem p, VM e) throws SolverException {
         vm = e;
 
-        int d = p.getDurationEvaluators().evaluate(p.getSourceModel(), BootVM.class, e);
+        int d = p.getDurationTable().get(BootVM.class, e);
         this.rp = p;
         start = p.makeDuration(p.getEnd().getUB() - d, 0, "bootVM(", e, ").start");
         end = VariableFactory.offset(start, d);
@@ -100,7 +100,7 @@ public class BootableNodeModel implements NodeActionModel {
     public BootableNodeModel(ReconfigurationProblem rp, Node nId) throws SolverException {
         node = nId;
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), BootNode.class, nId);
+        int d = rp.getDurationTable().get(BootNode.class, nId);
         Solver s = rp.getSolver();
 
         /*
@@ -66,7 +66,7 @@ public class ForgeVMModel implements VMActionModel {
      * @throws SolverException if an error occurred
      */
     public ForgeVMModel(ReconfigurationProblem rp, VM e) throws SolverException {
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ForgeVM.class, e);
+        int d = rp.getDurationTable().get(ForgeVM.class, e);
         template = rp.getSourceModel().getAttributes().getString(e, "template");
         if (template == null) {
             throw new SolverException(rp.getSourceModel(), "Unable to forge the VM '" + e + "'. The required attribute 'template' is missing from the model");
@@ -72,7 +72,7 @@ public class KillVMActionModel implements VMActionModel {
         node = map.getVMLocation(vm);
         state = VariableFactory.zero(rp.getSolver());
 
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), KillVM.class, e);
+        int d = rp.getDurationTable().get(KillVM.class, e);
 
         if (map.isRunning(vm)) {
             cSlice = new SliceBuilder(rp, e, "killVM('" + e + "').cSlice")
@@ -26,7 +26,7 @@ import btrplace.solver.SolverException;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import btrplace.solver.choco.SliceBuilder;
-import btrplace.solver.choco.durationEvaluator.DurationEvaluators;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.extensions.FastIFFEq;
 import solver.Solver;
 import solver.constraints.Constraint;
@@ -125,7 +125,7 @@ public class RelocatableVMModel implements KeepRunningVMModel {
 
         if (!getRelocationMethod().instantiated()) {
             //TODO: not very compliant with the ForgeActionModel but forge is useless for the moment
-            int forgeD = p.getDurationEvaluators().evaluate(p.getSourceModel(), ForgeVM.class, vm);
+            int forgeD = p.getDurationTable().get(ForgeVM.class, vm);
             IntVar time = VariableFactory.bounded(rp.makeVarLabel(doReinstantiation.getName(), " * ", forgeD), 0, Integer.MAX_VALUE / 100, s);
             s.post(IntConstraintFactory.times(doReinstantiation, VariableFactory.fixed(forgeD, s), time));
             s.post(IntConstraintFactory.arithm(this.dSlice.getStart(), ">=", time));
@@ -138,13 +138,13 @@ public class RelocatableVMModel implements KeepRunningVMModel {
     private void prepareRelocationMethod() throws SolverException {
         Model mo = rp.getSourceModel();
         Boolean cloneable = mo.getAttributes().getBoolean(vm, "clone");
-        DurationEvaluators dev = rp.getDurationEvaluators();
+        DurationTable dev = rp.getDurationTable();
         Solver s = rp.getSolver();
-        int migrateDuration = dev.evaluate(rp.getSourceModel(), MigrateVM.class, vm);
+        int migrateDuration = dev.get(MigrateVM.class, vm);
         if (Boolean.TRUE.equals(cloneable) && mo.getAttributes().isSet(vm, "template")) {
             doReinstantiation = VariableFactory.bool(rp.makeVarLabel("relocation_method(", vm, ")"), s);
-            int bootDuration = dev.evaluate(rp.getSourceModel(), BootVM.class, vm);
-            int shutdownDuration = dev.evaluate(rp.getSourceModel(), ShutdownVM.class, vm);
+            int bootDuration = dev.get(BootVM.class, vm);
+            int shutdownDuration = dev.get(ShutdownVM.class, vm);
             reInstantiateDuration = bootDuration + shutdownDuration;
             duration = VariableFactory.enumerated(rp.makeVarLabel("relocatable(", vm, ").duration"),
                     new int[]{0, Math.min(migrateDuration, reInstantiateDuration),
@@ -157,7 +157,7 @@ public class RelocatableVMModel implements KeepRunningVMModel {
 
     @Override
     public boolean insertActions(ReconfigurationPlan plan) {
-        DurationEvaluators dev = rp.getDurationEvaluators();
+        DurationTable dev = rp.getDurationTable();
         if (cSlice.getHoster().getValue() != dSlice.getHoster().getValue()) {
             assert stay.getValue() == 0;
             Action a;
@@ -174,12 +174,12 @@ public class RelocatableVMModel implements KeepRunningVMModel {
                         rp.getLogger().error("Unable to get a new int to plan the re-instantiate of VM {}", vm);
                         return false;
                     }
-                    ForgeVM fvm = new ForgeVM(newVM, dSlice.getStart().getValue() - dev.evaluate(rp.getSourceModel(), ForgeVM.class, vm), dSlice.getStart().getValue());
+                    ForgeVM fvm = new ForgeVM(newVM, dSlice.getStart().getValue() - dev.get(ForgeVM.class, vm), dSlice.getStart().getValue());
                     //forge the new VM from a template
                     plan.add(fvm);
                     //Boot the new VM
                     int endForging = fvm.getEnd();
-                    BootVM boot = new BootVM(newVM, dst, endForging, endForging + dev.evaluate(rp.getSourceModel(), BootVM.class, newVM));
+                    BootVM boot = new BootVM(newVM, dst, endForging, endForging + dev.get(BootVM.class, newVM));
                     boot.addEvent(Action.Hook.PRE, new SubstitutedVMEvent(vm, newVM));
                     return plan.add(boot) && plan.add(new ShutdownVM(vm, src, boot.getEnd(), cSlice.getEnd().getValue()));
                 } catch (SolverException ex) {
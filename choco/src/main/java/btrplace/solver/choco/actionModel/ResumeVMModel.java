@@ -70,7 +70,7 @@ public class ResumeVMModel implements VMActionModel {
         this.rp = p;
         this.vm = e;
 
-        int d = p.getDurationEvaluators().evaluate(p.getSourceModel(), ResumeVM.class, e);
+        int d = p.getDurationTable().get(ResumeVM.class, e);
 
         start = p.makeDuration(p.getEnd().getUB() - d, 0, "resumeVM(", e, ").start");
         end = VariableFactory.offset(start, d);
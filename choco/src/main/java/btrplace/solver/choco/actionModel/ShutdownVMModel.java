@@ -65,7 +65,7 @@ public class ShutdownVMModel implements VMActionModel {
         this.rp = p;
         this.vm = e;
 
-        int d = p.getDurationEvaluators().evaluate(p.getSourceModel(), ShutdownVM.class, e);
+        int d = p.getDurationTable().get(ShutdownVM.class, e);
         assert d > 0;
         duration = p.makeDuration(d, d, "shutdownVM(", e, ").duration");
         this.cSlice = new SliceBuilder(p, e, "shutdownVM(" + e + ").cSlice").setHoster(p.getCurrentVMLocation(p.getVM(e)))
@@ -115,7 +115,7 @@ public class ShutdownableNodeModel implements NodeActionModel {
         * D = {0, d}
         * D = St * d;
         */
-        int d = rp.getDurationEvaluators().evaluate(rp.getSourceModel(), ShutdownNode.class, e);
+        int d = rp.getDurationTable().get(ShutdownNode.class, e);
         duration = VariableFactory.enumerated(rp.makeVarLabel("shutdownableNode(", e, ").duration"), new int[]{0, d}, rp.getSolver());
         s.post(new FastIFFEq(isOnline, duration, 0));
 
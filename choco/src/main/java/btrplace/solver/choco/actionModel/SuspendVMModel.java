@@ -67,7 +67,7 @@ public class SuspendVMModel implements VMActionModel {
         this.rp = p;
         this.vm = e;
 
-        int d = p.getDurationEvaluators().evaluate(p.getSourceModel(), SuspendVM.class, e);
+        int d = p.getDurationTable().get(SuspendVM.class, e);
 
         duration = p.makeDuration(d, d, "suspendVM(", e, ").duration");
         this.cSlice = new SliceBuilder(p, e, "suspendVM(" + e + ").cSlice").setHoster(p.getCurrentVMLocation(p.getVM(e)))
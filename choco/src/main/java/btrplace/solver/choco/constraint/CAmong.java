@@ -25,8 +25,7 @@ import btrplace.model.constraint.Among;
 import btrplace.model.constraint.Fence;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ReconfigurationProblem;
-import solver.constraints.Constraint;
-import solver.constraints.IntConstraintFactory;
+import btrplace.solver.choco.extensions.SameGroup;
 import solver.variables.IntVar;
 import solver.variables.VariableFactory;
 
@@ -134,8 +133,8 @@ public class CAmong implements ChocoConstraint {
                     for (int i = 0; i < grp.length; i++) {
                         Node n = rp.getNodes()[i];
                         int idx = getGroup(n);
+                        grp[i] = idx;
                         if (idx >= 0) {
-                            grp[i] = idx;
                             possibleNodes.add(n);
                         }
                     }
@@ -146,11 +145,14 @@ public class CAmong implements ChocoConstraint {
                             return false;
                         }
                     }
-                    //We link the VM placement variable with the group variable
-                    for (VM vm : running) {
-                        IntVar assign = rp.getVMAction(vm).getDSlice().getHoster();
-                        Constraint c = IntConstraintFactory.element(assign, grp, vmGrpId, 0, "detect");
-                        rp.getSolver().post(c);
+                    //We link the VM placement variables with the group variable
+                    if (!running.isEmpty()) {
+                        IntVar[] assigns = new IntVar[running.size()];
+                        int i = 0;
+                        for (VM vm : running) {
+                            assigns[i++] = rp.getVMAction(vm).getDSlice().getHoster();
+                        }
+                        rp.getSolver().post(new SameGroup(rp.getSolver(), assigns, grp, vmGrpId));
                     }
                 } else {
                     vmGrpId = VariableFactory.fixed(rp.makeVarLabel("among#pGrp"), nextGrp, rp.getSolver());
@@ -26,9 +26,9 @@ import btrplace.model.constraint.Gather;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.extensions.AllEqual;
 import solver.Cause;
 import solver.Solver;
-import solver.constraints.IntConstraintFactory;
 import solver.exception.ContradictionException;
 import solver.variables.IntVar;
 
@@ -99,36 +99,20 @@ public class CGather implements ChocoConstraint {
     }
 
     private boolean forceDiscreteCollocation(ReconfigurationProblem rp, List<Slice> dSlices) {
-        Solver s = rp.getSolver();
-        for (int i = 0; i < dSlices.size(); i++) {
-            for (int j = 0; j < i; j++) {
-                Slice s1 = dSlices.get(i);
-                Slice s2 = dSlices.get(j);
-                IntVar i1 = s1.getHoster();
-                IntVar i2 = s2.getHoster();
-                if (i1.instantiated() && i2.instantiated() && i1.getValue() != i2.getValue()) {
-                    rp.getLogger().error("Unable to force VM '" + s1.getSubject() + "' to be co-located with VM '" + s2.getSubject() + "'");
-                    return false;
-                } else {
-                    if (i1.instantiated()) {
-                        try {
-                            i2.instantiateTo(i1.getValue(), Cause.Null);
-                        } catch (ContradictionException ex) {
-                            rp.getLogger().error("Unable to force VM '" + s1.getSubject() + "' to be co-located with VM '" + s2.getSubject() + "'");
-                            return false;
-                        }
-                    } else if (i2.instantiated()) {
-                        try {
-                            i1.instantiateTo(i2.getValue(), Cause.Null);
-                        } catch (ContradictionException ex) {
-                            rp.getLogger().error("Unable to force VM '" + s1.getSubject() + "' to be co-located with VM '" + s2.getSubject() + "'");
-                            return false;
-                        }
-                    } else {
-                        s.post(IntConstraintFactory.arithm(i1, "=", i2));
-                    }
-                }
+        //If a VM is already placed, the others go on the same node
+        for (Slice s : dSlices) {
+            if (s.getHoster().instantiated()) {
+                return placeDSlices(rp, dSlices, s.getHoster().getValue());
+            }
+        }
+        if (dSlices.size() > 1) {
+            IntVar[] hosters = new IntVar[dSlices.size()];
+            int i = 0;
+            for (Slice s : dSlices) {
+                hosters[i++] = s.getHoster();
             }
+            Solver s = rp.getSolver();
+            s.post(new AllEqual(s, hosters));
         }
         return true;
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Attributes;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.view.CConcurrentActions;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A solver-only constraint to bound the number of actions executed simultaneously,
+ * on each node and on the whole infrastructure.
+ * <p/>
+ * The cap of a node can be refined using the integer attribute {@value #CAP_ATTRIBUTE}.
+ * The constraint relies on the view {@link CConcurrentActions}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentActions implements ChocoConstraint {
+
+    /**
+     * The node attribute to state the node's own cap.
+     */
+    public static final String CAP_ATTRIBUTE = "maxConcurrentActions";
+
+    private int perNode;
+
+    private int global;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param perNode the maximum number of concurrent actions on each node. {@code 0} for no cap
+     * @param global  the maximum number of concurrent actions on the whole infrastructure. {@code 0} for no cap
+     */
+    public CMaxConcurrentActions(int perNode, int global) {
+        this.perNode = perNode;
+        this.global = global;
+    }
+
+    /**
+     * Get the default cap for each node.
+     *
+     * @return a positive integer. {@code 0} for no cap
+     */
+    public int getPerNode() {
+        return perNode;
+    }
+
+    /**
+     * Get the cap for the whole infrastructure.
+     *
+     * @return a positive integer. {@code 0} for no cap
+     */
+    public int getGlobal() {
+        return global;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        CConcurrentActions view = (CConcurrentActions) rp.getView(CConcurrentActions.VIEW_ID);
+        if (view == null) {
+            view = new CConcurrentActions(rp);
+            if (!rp.addView(view)) {
+                throw new SolverException(rp.getSourceModel(), "Unable to attach view '" + CConcurrentActions.VIEW_ID + "'");
+            }
+        }
+        Attributes attrs = rp.getSourceModel().getAttributes();
+        for (Node n : rp.getNodes()) {
+            int c = perNode;
+            Integer v = attrs.getInteger(n, CAP_ATTRIBUTE);
+            if (v != null) {
+                if (v <= 0) {
+                    throw new SolverException(rp.getSourceModel(), "Attribute '" + CAP_ATTRIBUTE + "' of node '" + n + "' must be a strictly positive integer");
+                }
+                c = v;
+            }
+            view.capNode(rp.getNode(n), c);
+        }
+        view.capGlobal(global);
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        //There is no action in a model
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return "maxConcurrentActions(perNode=" + perNode + ", global=" + global + ")";
+    }
+}
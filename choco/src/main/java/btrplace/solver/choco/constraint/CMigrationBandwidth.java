@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.Constraint;
+import btrplace.model.constraint.MigrationBandwidth;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.actionModel.RelocatableVMModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.extensions.FastIFFEq;
+import solver.Solver;
+import solver.constraints.IntConstraintFactory;
+import solver.variables.BoolVar;
+import solver.variables.IntVar;
+import solver.variables.Task;
+import solver.variables.VariableFactory;
+
+import java.util.*;
+
+/**
+ * Choco implementation of the {@link MigrationBandwidth} constraint.
+ * <p/>
+ * The migration of each relocatable VM is modeled as a task. For each restricted node, a cumulative
+ * constraint bounds the bandwidth of the tasks leaving or reaching the node by the node bandwidth.
+ * A VM that stays on its node has a migration of duration 0, so it does not consume any bandwidth.
+ * On a destination node, the height of a task is reified to the VM placement.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMigrationBandwidth implements ChocoConstraint {
+
+    private MigrationBandwidth cstr;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param c the constraint to rely on
+     */
+    public CMigrationBandwidth(MigrationBandwidth c) {
+        cstr = c;
+    }
+
+    @Override
+    public boolean inject(ReconfigurationProblem rp) throws SolverException {
+        Model mo = rp.getSourceModel();
+        Mapping map = mo.getMapping();
+        Solver s = rp.getSolver();
+
+        //The restricted nodes
+        Map<Node, List<Task>> tasks = new HashMap<>();
+        Map<Node, List<IntVar>> heights = new HashMap<>();
+        for (Node n : cstr.getInvolvedNodes()) {
+            if (rp.getNode(n) >= 0 && MigrationBandwidth.getBandwidth(mo, n) != Integer.MAX_VALUE) {
+                tasks.put(n, new ArrayList<Task>());
+                heights.put(n, new ArrayList<IntVar>());
+            }
+        }
+
+        for (VMActionModel a : rp.getVMActions()) {
+            if (!(a instanceof RelocatableVMModel)) {
+                continue;
+            }
+            VM v = a.getVM();
+            Node src = map.getVMLocation(v);
+            Task t = null;
+            if (tasks.containsKey(src)) {
+                t = VariableFactory.task(a.getStart(), a.getDuration(), a.getEnd());
+                tasks.get(src).add(t);
+                heights.get(src).add(VariableFactory.fixed(MigrationBandwidth.getUsage(mo, src, src), s));
+            }
+            IntVar hoster = a.getDSlice().getHoster();
+            for (Map.Entry<Node, List<Task>> e : tasks.entrySet()) {
+                Node n = e.getKey();
+                int nIdx = rp.getNode(n);
+                if (n.equals(src) || !hoster.contains(nIdx)) {
+                    continue;
+                }
+                if (t == null) {
+                    t = VariableFactory.task(a.getStart(), a.getDuration(), a.getEnd());
+                }
+                int h = MigrationBandwidth.getUsage(mo, src, n);
+                BoolVar on = VariableFactory.bool(rp.makeVarLabel("migrate(", v, ").to(", n, ")"), s);
+                IntVar height = VariableFactory.enumerated(rp.makeVarLabel("migrate(", v, ").bw(", n, ")"), new int[]{0, h}, s);
+                s.post(new FastIFFEq(on, hoster, nIdx));
+                s.post(new FastIFFEq(on, height, h));
+                e.getValue().add(t);
+                heights.get(n).add(height);
+            }
+        }
+
+        for (Map.Entry<Node, List<Task>> e : tasks.entrySet()) {
+            List<Task> ts = e.getValue();
+            if (ts.size() > 1) {
+                List<IntVar> hs = heights.get(e.getKey());
+                IntVar capacity = VariableFactory.fixed(MigrationBandwidth.getBandwidth(mo, e.getKey()), s);
+                s.post(IntConstraintFactory.cumulative(ts.toArray(new Task[ts.size()]), hs.toArray(new IntVar[hs.size()]), capacity, true));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<VM> getMisPlacedVMs(Model m) {
+        //There is no migration in a model
+        return Collections.emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return cstr.toString();
+    }
+
+    /**
+     * Builder associated to the constraint.
+     */
+    public static class Builder implements ChocoConstraintBuilder {
+        @Override
+        public Class<? extends Constraint> getKey() {
+            return MigrationBandwidth.class;
+        }
+
+        @Override
+        public CMigrationBandwidth build(Constraint c) {
+            return new CMigrationBandwidth((MigrationBandwidth) c);
+        }
+    }
+}
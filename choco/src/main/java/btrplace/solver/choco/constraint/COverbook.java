@@ -27,9 +27,6 @@ import btrplace.model.view.ShareableResource;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.view.CShareableResource;
-import solver.Cause;
-import solver.exception.ContradictionException;
-import solver.variables.RealVar;
 
 import java.util.Collections;
 import java.util.Set;
@@ -63,12 +60,8 @@ public class COverbook implements ChocoConstraint {
         }
 
         Node u = cstr.getInvolvedNodes().iterator().next();
-        RealVar v = rcm.getOverbookRatio(rp.getNode(u));
-
-        try {
-            v.updateUpperBound(cstr.getRatio(), Cause.Null);
-        } catch (ContradictionException ex) {
-            rp.getLogger().error("Unable to restrict {} to up to {}", v.getName(), cstr.getRatio());
+        if (!rcm.capOverbookRatio(rp.getNode(u), cstr.getRatio())) {
+            rp.getLogger().error("Unable to restrict the overbooking ratio of '{}' to up to {}", u, cstr.getRatio());
             return false;
         }
         return true;
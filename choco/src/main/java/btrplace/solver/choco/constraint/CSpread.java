@@ -26,11 +26,9 @@ import btrplace.model.constraint.Spread;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import btrplace.solver.choco.actionModel.VMActionModel;
-import btrplace.solver.choco.extensions.ChocoUtils;
+import btrplace.solver.choco.extensions.ContinuousSpread;
 import solver.Solver;
-import solver.constraints.Arithmetic;
 import solver.constraints.IntConstraintFactory;
-import solver.variables.BoolVar;
 import solver.variables.IntVar;
 
 import java.util.*;
@@ -57,12 +55,14 @@ public class CSpread implements ChocoConstraint {
     public boolean inject(ReconfigurationProblem rp) {
 
         List<IntVar> running = new ArrayList<>();
+        List<VMActionModel> actions = new ArrayList<>();
         for (VM vmId : cstr.getInvolvedVMs()) {
             if (rp.getFutureRunningVMs().contains(vmId)) {
                 VMActionModel a = rp.getVMAction(vmId);
                 Slice d = a.getDSlice();
                 if (d != null) {
                     running.add(d.getHoster());
+                    actions.add(a);
                 }
             }
         }
@@ -72,56 +72,25 @@ public class CSpread implements ChocoConstraint {
             s.post(IntConstraintFactory.alldifferent(running.toArray(new IntVar[running.size()]), "BC"));
 
             if (cstr.isContinuous()) {
-                VM[] vms = new VM[running.size()];
+                //The d-slices cannot overlap with the c-slices of the other VMs
+                IntVar[] dHosters = new IntVar[actions.size()];
+                IntVar[] dStarts = new IntVar[actions.size()];
+                int[] cHosts = new int[actions.size()];
+                IntVar[] cEnds = new IntVar[actions.size()];
                 int x = 0;
-                for (VM vm : cstr.getInvolvedVMs()) {
-                    if (rp.getFutureRunningVMs().contains(vm)) {
-                        vms[x++] = vm;
-                    }
-                }
-                for (int i = 0; i < vms.length; i++) {
-                    VM vm = vms[i];
-                    VMActionModel aI = rp.getVMAction(vm);
-                    for (int j = 0; j < i; j++) {
-                        VM vmJ = vms[j];
-                        VMActionModel aJ = rp.getVMAction(vmJ);
-                        Slice dI = aI.getDSlice();
-                        Slice cJ = aJ.getCSlice();
-
-                        Slice dJ = aJ.getDSlice();
-                        Slice cI = aI.getCSlice();
-
-                        //If both are currently hosted on the same node, no need to worry about non-overlapping
-                        //between the c and the d-slices as it may create a non-solution
-                        boolean currentlyGathered = cI != null && cJ != null && cJ.getHoster().instantiatedTo(cI.getHoster().getValue());
-
-                        if (!currentlyGathered && dI != null && cJ != null) {
-                            //No need to place the constraints if the slices do not have a chance to overlap
-                            if (!(cJ.getHoster().instantiated() && !dI.getHoster().contains(cJ.getHoster().getValue()))
-                                    && !(dI.getHoster().instantiated() && !cJ.getHoster().contains(dI.getHoster().getValue()))
-                                    ) {
-                                Arithmetic eqCstr = IntConstraintFactory.arithm(dI.getHoster(), "=", cJ.getHoster());
-                                BoolVar eq = eqCstr.reif();
-                                Arithmetic leqCstr = IntConstraintFactory.arithm(cJ.getEnd(), "<=", dI.getStart());
-                                ChocoUtils.postImplies(s, eq, leqCstr);
-                            }
-                        }
-
-                        //The inverse relation
-
-                        if (!currentlyGathered && dJ != null && cI != null) {
-                            //No need to place the constraints if the slices do not have a chance to overlap
-                            if (!(cI.getHoster().instantiated() && !dJ.getHoster().contains(cI.getHoster().getValue()))
-                                    && !(dJ.getHoster().instantiated() && !cI.getHoster().contains(dJ.getHoster().getValue()))
-                                    ) {
-                                Arithmetic eqCstr = IntConstraintFactory.arithm(dJ.getHoster(), "=", cI.getHoster());
-                                BoolVar eq = eqCstr.reif();
-                                Arithmetic leqCstr = IntConstraintFactory.arithm(cI.getEnd(), "<=", dJ.getStart());
-                                ChocoUtils.postImplies(s, eq, leqCstr);
-                            }
-                        }
+                for (VMActionModel a : actions) {
+                    dHosters[x] = a.getDSlice().getHoster();
+                    dStarts[x] = a.getDSlice().getStart();
+                    Slice c = a.getCSlice();
+                    if (c != null && c.getHoster().instantiated()) {
+                        cHosts[x] = c.getHoster().getValue();
+                        cEnds[x] = c.getEnd();
+                    } else {
+                        cHosts[x] = ContinuousSpread.NO_CSLICE;
                     }
+                    x++;
                 }
+                s.post(new ContinuousSpread(s, dHosters, dStarts, cHosts, cEnds));
             }
         }
         return true;
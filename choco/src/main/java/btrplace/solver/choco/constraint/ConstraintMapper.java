@@ -70,6 +70,7 @@ public class ConstraintMapper {
         map.register(new CLonely.Builder());
         map.register(new CSequentialVMTransitions.Builder());
         map.register(new CMaxOnline.Builder());
+        map.register(new CMigrationBandwidth.Builder());
         map.register(new CMinMTTR.Builder());
         return map;
     }
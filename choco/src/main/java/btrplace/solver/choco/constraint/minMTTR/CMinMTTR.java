@@ -27,6 +27,8 @@ import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.SliceUtils;
 import btrplace.solver.choco.actionModel.ActionModel;
 import btrplace.solver.choco.actionModel.ActionModelUtils;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.actionModel.RelocatableVMModel;
 import btrplace.solver.choco.actionModel.VMActionModel;
 import btrplace.solver.choco.constraint.ChocoConstraintBuilder;
 import solver.Solver;
@@ -39,6 +41,7 @@ import solver.search.strategy.selectors.variables.InputOrder;
 import solver.search.strategy.strategy.AbstractStrategy;
 import solver.search.strategy.strategy.Assignment;
 import solver.search.strategy.strategy.StrategiesSequencer;
+import solver.variables.BoolVar;
 import solver.variables.IntVar;
 import solver.variables.VariableFactory;
 
@@ -46,6 +49,9 @@ import java.util.*;
 
 /**
  * An objective that minimizes the time to repair a non-viable model.
+ * <p/>
+ * The cost is the sum of the end moment of every action. Its lower bound
+ * is the sum of the durations of the actions that are mandatory.
  *
  * @author Fabien Hermenier
  */
@@ -57,6 +63,8 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
 
     private ReconfigurationProblem rp;
 
+    private int lowerBound;
+
     /**
      * Make a new objective.
      */
@@ -77,7 +85,9 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
         }
         IntVar[] costs = mttrs.toArray(new IntVar[mttrs.size()]);
         Solver s = p.getSolver();
-        IntVar cost = VariableFactory.bounded(p.makeVarLabel("globalCost"), 0, Integer.MAX_VALUE / 100, s);
+        lowerBound = computeLowerBound(p);
+        p.getLogger().debug("Lower bound for the cost: {}", lowerBound);
+        IntVar cost = VariableFactory.bounded(p.makeVarLabel("globalCost"), lowerBound, Integer.MAX_VALUE / 100, s);
 
         Constraint costConstraint = IntConstraintFactory.sum(costs, cost);
         costConstraints.clear();
@@ -97,6 +107,60 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
         return true;
     }
 
+    /**
+     * Get the lower bound of the cost computed during the injection.
+     *
+     * @return a positive integer
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Compute a lower bound for the cost from the actions that are mandatory,
+     * as every action ends after its duration.
+     * A VM must migrate if its current node is no longer a possible host or if this node
+     * must go offline. A node must boot or halt if its next state is already known.
+     * The other actions have a fixed duration.
+     *
+     * @param p the problem, with all the constraints injected
+     * @return a positive integer
+     */
+    static int computeLowerBound(ReconfigurationProblem p) {
+        Mapping map = p.getSourceModel().getMapping();
+        int lb = 0;
+        for (VMActionModel a : p.getVMActions()) {
+            IntVar d = a.getDuration();
+            if (d == null) {
+                continue;
+            }
+            if (a instanceof RelocatableVMModel) {
+                if (d.getUB() > 0 && mustMove(p, map, a)) {
+                    //The smallest non-null duration
+                    lb += d.getLB() > 0 ? d.getLB() : d.nextValue(0);
+                }
+            } else {
+                lb += d.getLB();
+            }
+        }
+        for (NodeActionModel a : p.getNodeActions()) {
+            IntVar d = a.getDuration();
+            BoolVar st = a.getState();
+            if (st.instantiated() && map.isOnline(a.getNode()) != st.instantiatedTo(1)) {
+                lb += d.getUB();
+            } else {
+                lb += d.getLB();
+            }
+        }
+        return lb;
+    }
+
+    private static boolean mustMove(ReconfigurationProblem p, Mapping map, VMActionModel a) {
+        Node cur = map.getVMLocation(a.getVM());
+        return !a.getDSlice().getHoster().contains(p.getNode(cur))
+                || p.getNodeAction(cur).getState().instantiatedTo(0);
+    }
+
     private void injectPlacementHeuristic(ReconfigurationProblem p, IntVar cost) {
 
         Model mo = p.getSourceModel();
@@ -148,7 +212,7 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
         if (!badActions.isEmpty()) {
             IntVar[] hosts = SliceUtils.extractHoster(ActionModelUtils.getDSlices(badActions));
             if (hosts.length > 0) {
-                HostingVariableSelector selectForBad = new HostingVariableSelector(hosts, schedHeuristic);
+                HostingVariableSelector selectForBad = new HostingVariableSelector(hosts);
                 strategies.add(new Assignment(selectForBad, new RandomVMPlacement(p, pla, true)));
             }
         }
@@ -156,7 +220,7 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
         if (!goodActions.isEmpty()) {
             IntVar[] hosts = SliceUtils.extractHoster(ActionModelUtils.getDSlices(goodActions));
             if (hosts.length > 0) {
-                HostingVariableSelector selectForGoods = new HostingVariableSelector(hosts, schedHeuristic);
+                HostingVariableSelector selectForGoods = new HostingVariableSelector(hosts);
                 strategies.add(new Assignment(selectForGoods, new RandomVMPlacement(p, pla, true)));
             }
         }
@@ -174,7 +238,7 @@ public class CMinMTTR implements btrplace.solver.choco.constraint.CObjective {
         if (runActions.length > 0) {
             IntVar[] hosts = SliceUtils.extractHoster(ActionModelUtils.getDSlices(runActions));
             if (hosts.length > 0) {
-                HostingVariableSelector selectForRuns = new HostingVariableSelector(hosts, schedHeuristic);
+                HostingVariableSelector selectForRuns = new HostingVariableSelector(hosts);
                 strategies.add(new Assignment(selectForRuns, new RandomVMPlacement(p, pla, true)));
             }
         }
@@ -28,27 +28,13 @@ import solver.variables.IntVar;
  */
 public class HostingVariableSelector extends InputOrder<IntVar> {
 
-    private OnStableNodeFirst schedHeuristic;
-
     /**
      * Make a new heuristic.
      * By default, the heuristic doesn't touch the scheduling constraints.
      *
      * @param hosts the variables denoting the VMs next host
-     * @param sched  the scheduling heuristic to notify when the placement is invalidated
      */
-    public HostingVariableSelector(IntVar[] hosts, OnStableNodeFirst sched) {
+    public HostingVariableSelector(IntVar[] hosts) {
         super(hosts);
-        this.schedHeuristic = sched;
-    }
-
-    @Override
-    public IntVar getVariable() {
-        IntVar v = super.getVariable();
-        if (schedHeuristic != null) {
-            schedHeuristic.invalidPlacement();
-        }
-        return v;
     }
-
 }
@@ -23,44 +23,86 @@ import btrplace.model.VM;
 import btrplace.solver.choco.ReconfigurationProblem;
 import btrplace.solver.choco.Slice;
 import btrplace.solver.choco.actionModel.VMActionModel;
+import memory.IEnvironment;
+import memory.IStateBitSet;
 import memory.IStateInt;
 import solver.search.strategy.selectors.VariableSelector;
 import solver.variables.IntVar;
 
-import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.List;
 
 
 /**
  * A heuristic that first focus on scheduling the VMs
  * on nodes that are the source of actions liberating resources.
  * <p/>
- * For performance reason, the VM placement is put into a cache
- * that must be invalidated each time the placement is modified
+ * The VMs that stay or move are tracked incrementally using backtrackable structures:
+ * each placement variable is only inspected until it is instantiated. Once the placement
+ * is done, the tracking does not cost anything.
+ * <p/>
+ * The start moments are then selected in the following order:
+ * <ol>
+ * <li>the VMs that move to a node that no VM leaves</li>
+ * <li>the other moving VMs</li>
+ * <li>the VMs that stay on their node</li>
+ * <li>the remaining start moment having the smallest lower bound</li>
+ * </ol>
+ * For the first three categories, the start moments to schedule are stacked once their VM is placed
+ * and a backtrackable cursor skips the ones that are instantiated, so a selection costs
+ * an amortised constant time.
  *
  * @author Fabien Hermenier
  */
 public class OnStableNodeFirst implements VariableSelector<IntVar> {
 
+    private static final int LEAF = 0;
+
+    private static final int MOVE = 1;
+
+    private static final int STAY = 2;
+
     private IntVar[] hosts;
 
     private IntVar[] starts;
 
-    private List<VM> vms;
-
     private int[] oldPos;
 
     private BitSet[] outs;
 
-    private BitSet[] ins;
+    private IStateBitSet stays, move;
 
-    private CMinMTTR obj;
+    /**
+     * The indexes of the placement variables. The first {@link #nbWatched} ones
+     * are not instantiated yet.
+     */
+    private int[] watched;
 
-    private IStateInt firstFree;
+    private IStateInt nbWatched;
+
+    private CMinMTTR obj;
 
     private IntVar last;
 
+    /**
+     * For each category, the indexes of the start moments to schedule, in the order the VMs were placed.
+     */
+    private int[][] pending;
+
+    /**
+     * For each category, the number of stacked indexes.
+     */
+    private IStateInt[] nbPending;
+
+    /**
+     * For each category, the position of the first stacked start moment that may not be instantiated.
+     */
+    private IStateInt[] firstPending;
+
+    /**
+     * Every start moment before this position is instantiated.
+     */
+    private IStateInt firstFree;
+
     /**
      * Make a new heuristics
      *
@@ -69,7 +111,7 @@ public class OnStableNodeFirst implements VariableSelector<IntVar> {
      */
     public OnStableNodeFirst(ReconfigurationProblem rp, CMinMTTR o) {
 
-        firstFree = rp.getSolver().getEnvironment().makeInt(0);
+        IEnvironment env = rp.getSolver().getEnvironment();
         this.obj = o;
         Mapping cfg = rp.getSourceModel().getMapping();
 
@@ -78,15 +120,15 @@ public class OnStableNodeFirst implements VariableSelector<IntVar> {
         hosts = new IntVar[vmActions.length];
         starts = new IntVar[vmActions.length];
 
-        this.vms = new ArrayList<>(rp.getFutureRunningVMs());
-
         oldPos = new int[hosts.length];
         outs = new BitSet[rp.getNodes().length];
-        ins = new BitSet[rp.getNodes().length];
         for (int i = 0; i < rp.getNodes().length; i++) {
             outs[i] = new BitSet();
-            ins[i] = new BitSet();
         }
+        stays = env.makeBitSet(hosts.length);
+        move = env.makeBitSet(hosts.length);
+        watched = new int[hosts.length];
+        int nb = 0;
 
         for (int i = 0; i < hosts.length; i++) {
             VMActionModel action = vmActions[i];
@@ -95,6 +137,7 @@ public class OnStableNodeFirst implements VariableSelector<IntVar> {
                 IntVar h = slice.getHoster();
                 IntVar s = slice.getStart();
                 hosts[i] = h;
+                watched[nb++] = i;
                 if (s != rp.getEnd()) {
                     starts[i] = s;
                 }
@@ -109,67 +152,102 @@ public class OnStableNodeFirst implements VariableSelector<IntVar> {
                 }
             }
         }
+        nbWatched = env.makeInt(nb);
+
+        pending = new int[3][hosts.length];
+        nbPending = new IStateInt[3];
+        firstPending = new IStateInt[3];
+        for (int c = 0; c < pending.length; c++) {
+            nbPending[c] = env.makeInt(0);
+            firstPending[c] = env.makeInt(0);
+        }
+        firstFree = env.makeInt(0);
     }
 
-    private BitSet stays, move;
+    /**
+     * Fulfill stays and move. The VMs that go on a node are the moving VMs
+     * hosted by this node.
+     * Only the placement variables that were not instantiated at the last call are inspected.
+     * The two sets are not complementary: the VMs that are not running yet are in none of them.
+     * The start moment of each VM that moves or stays is stacked in its category.
+     */
+    private void makeIncoming() {
+        int nb = nbWatched.get();
+        for (int x = nb - 1; x >= 0; x--) {
+            int i = watched[x];
+            if (hosts[i].instantiated()) {
+                int newPos = hosts[i].getValue();
+                if (oldPos[i] != -1 && newPos != oldPos[i]) {
+                    //The VM has move
+                    move.set(i);
+                    //no outgoing VMs, can be launched directly.
+                    push(outs[newPos].isEmpty() ? LEAF : MOVE, i);
+                } else if (newPos == oldPos[i]) {
+                    stays.set(i);
+                    push(STAY, i);
+                }
+                //No longer watched
+                nb--;
+                watched[x] = watched[nb];
+                watched[nb] = i;
+            }
+        }
+        nbWatched.set(nb);
+    }
 
     /**
-     * Invalidate the VM placement.
-     * This must be called each time the placement is modified to
-     * clear the VM placement cache.
+     * Stack the start moment of a VM in a category.
+     * Once the stack is backtracked, the upper slots are simply overwritten.
+     *
+     * @param c the category
+     * @param i the VM index
      */
-    public void invalidPlacement() {
-        stays = null;
-        move = null;
+    private void push(int c, int i) {
+        if (starts[i] != null) {
+            int nb = nbPending[c].get();
+            pending[c][nb] = i;
+            nbPending[c].set(nb + 1);
+        }
     }
 
     /**
-     * For each node, we fill ins to indicate the VMs
-     * that go on this node. We also fulfill stays and move
-     * TODO: stays and move seems redundant !
+     * Get the first start moment of a category that is not instantiated.
+     * The instantiated ones are skipped for good in the current branch.
+     *
+     * @param c the category
+     * @return a start moment, or {@code null} if all the stacked moments are instantiated
      */
-    private void makeIncoming() {
-        if (stays == null && move == null) {
-            for (BitSet in : ins) {
-                in.clear();
-            }
-            stays = new BitSet();
-            move = new BitSet();
-            for (int i = 0; i < hosts.length; i++) {
-                if (hosts[i] != null && hosts[i].instantiated()) {
-                    int newPos = hosts[i].getValue();
-                    if (oldPos[i] != -1 && newPos != oldPos[i]) {
-                        //The VM has move
-                        ins[newPos].set(i);
-                        move.set(i);
-                    } else if (newPos == oldPos[i]) {
-                        stays.set(i);
-                    }
-                }
-            }
+    private IntVar firstPending(int c) {
+        int nb = nbPending[c].get();
+        int first = firstPending[c].get();
+        int x = first;
+        while (x < nb && starts[pending[c][x]].instantiated()) {
+            x++;
         }
+        if (x != first) {
+            firstPending[c].set(x);
+        }
+        return x < nb ? starts[pending[c][x]] : null;
     }
 
     @Override
     public IntVar getVariable() {
 
         makeIncoming();
-        IntVar v = getVMtoLeafNode();
+        IntVar v = firstPending(LEAF);
         if (v == null) {
-            last = null;
-            return null;
-        }
-
-        v = getMovingVM();
-        if (v != null) {
-            obj.postCostConstraints();
-            return v;
+            v = firstPending(MOVE);
+            if (v != null) {
+                obj.postCostConstraints();
+            } else {
+                v = firstPending(STAY);
+                if (v == null) {
+                    v = minInf();
+                }
+            }
         }
-
-        IntVar early = getEarlyVar();
-        last = early != null ? early : minInf();
+        last = v;
         return last;
-
     }
 
     @Override
@@ -187,88 +265,38 @@ public class OnStableNodeFirst implements VariableSelector<IntVar> {
     }
 
     /**
-     * Get the start moment for a VM that moves
+     * Get the start moment having the smallest lower bound among those that are not instantiated.
+     * The cost constraints are posted once all the start moments are instantiated.
      *
-     * @return a start moment, or {@code null} if all the moments  are already instantiated
+     * @return a start moment, or {@code null} if all the moments are already instantiated
      */
-    private IntVar getMovingVM() {
-        //VMs that are moving
-        for (int i = move.nextSetBit(0); i >= 0; i = move.nextSetBit(i + 1)) {
-            if (starts[i] != null && !starts[i].instantiated()) {
-                if (oldPos[i] != hosts[i].getValue()) {
-                    return starts[i];
-                }
-            }
-        }
-        return null;
-    }
-
     private IntVar minInf() {
         IntVar best = null;
-        for (int i = firstFree.get(); i < starts.length; i++) {
+        int ff = firstFree.get();
+        boolean prefix = true;
+        for (int i = ff; i < starts.length; i++) {
             IntVar v = starts[i];
-            if (i < vms.size() - 1) {
-                VM vm = vms.get(i);
-                if (vm != null && v != null) {
-                    if (!v.instantiated()) {
-                        if (best == null || best.getLB() < v.getLB()) {
-                            best = v;
-                            if (best.getLB() == 0) {
-                                break;
-                            }
-                        }
-                    } else {
-                        firstFree.add(1);
-                    }
+            if (v == null || v.instantiated()) {
+                if (prefix) {
+                    ff++;
+                }
+                continue;
+            }
+            prefix = false;
+            if (best == null || v.getLB() < best.getLB()) {
+                best = v;
+                if (best.getLB() == 0) {
+                    break;
                 }
             }
         }
+        if (ff != firstFree.get()) {
+            firstFree.set(ff);
+        }
         if (best == null) {
             //Plug the cost constraints
             obj.postCostConstraints();
         }
         return best;
     }
-
-    /**
-     * Get the earliest un-instantiated start moment
-     *
-     * @return the variable, or {@code null} if all the start moments are already instantiated
-     */
-    private IntVar getEarlyVar() {
-        IntVar earlyVar = null;
-        for (int i = stays.nextSetBit(0); i >= 0; i = stays.nextSetBit(i + 1)) {
-            if (starts[i] != null && !starts[i].instantiated()) {
-                if (earlyVar == null) {
-                    earlyVar = starts[i];
-                } else {
-                    if (earlyVar.getLB() > starts[i].getLB()) {
-                        earlyVar = starts[i];
-                    }
-                }
-            }
-        }
-        return earlyVar;
-    }
-
-    /**
-     * Get the start moment for a VM that move to
-     * a node where no VM will leave this node.
-     * This way, we are pretty sure the action can be scheduled at 0.
-     *
-     * @return a start moment, or {@code null} if there is no more un-schedule actions to leaf nodes
-     */
-    private IntVar getVMtoLeafNode() {
-        for (int x = 0; x < outs.length; x++) {
-            if (outs[x].cardinality() == 0) {
-                //no outgoing VMs, can be launched directly.
-                BitSet in = ins[x];
-                for (int i = in.nextSetBit(0); i >= 0; i = in.nextSetBit(i + 1)) {
-                    if (starts[i] != null && !starts[i].instantiated()) {
-                    }
-                }
-            }
-        }
-        return null;
-    }
 }
@@ -20,12 +20,11 @@ package btrplace.solver.choco.constraint.minMTTR;
 
 import btrplace.model.VM;
 import btrplace.solver.choco.ReconfigurationProblem;
-import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.set.hash.TIntHashSet;
 import solver.search.strategy.selectors.InValueIterator;
 import solver.variables.IntVar;
-import util.iterators.DisposableValueIterator;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Random;
 
@@ -34,11 +33,21 @@ import java.util.Random;
  * A heuristic to place a VM on a server picked up randomly.
  * It is possible to force the VMs to stay on its current node
  * if it is possible.
+ * <p/>
+ * Values are sampled directly from the domain bounds or from the members of the ranks, and
+ * rejected when they are not in the domain. The domain is only scanned when too many values
+ * were rejected, so the selection takes a constant expected time on dense domains and
+ * does not allocate memory.
  *
  * @author Fabien Hermenier
  */
 public class RandomVMPlacement implements InValueIterator {
 
+    /**
+     * The number of random draws before scanning the domain.
+     */
+    private static final int MAX_DRAWS = 16;
+
     private boolean stay;
 
     private ReconfigurationProblem rp;
@@ -47,8 +56,10 @@ public class RandomVMPlacement implements InValueIterator {
 
     private Map<IntVar, VM> vmPlacement;
 
-    private TIntHashSet[] ranks;
-
+    /**
+     * The sorted node indexes of each rank.
+     */
+    private int[][] ranks;
 
     /**
      * Make a new heuristic.
@@ -70,11 +81,35 @@ public class RandomVMPlacement implements InValueIterator {
      * @param stayFirst   {@code true} to force an already VM to stay on its current node if possible
      */
     public RandomVMPlacement(ReconfigurationProblem p, Map<IntVar, VM> pVarMapping, TIntHashSet[] priorities, boolean stayFirst) {
+        this(p, pVarMapping, priorities, stayFirst, new Random());
+    }
+
+    /**
+     * Make a new heuristic that picks the values in a reproducible order.
+     *
+     * @param p           the problem to rely on
+     * @param pVarMapping a map to indicate the VM associated to each of the placement variable
+     * @param priorities  a list of favorites servers. Servers in rank i will be favored wrt. servers in rank i + 1.
+     *                    {@code null} if there is no ranking
+     * @param stayFirst   {@code true} to force an already VM to stay on its current node if possible
+     * @param seed        the seed of the random generator
+     */
+    public RandomVMPlacement(ReconfigurationProblem p, Map<IntVar, VM> pVarMapping, TIntHashSet[] priorities, boolean stayFirst, long seed) {
+        this(p, pVarMapping, priorities, stayFirst, new Random(seed));
+    }
+
+    private RandomVMPlacement(ReconfigurationProblem p, Map<IntVar, VM> pVarMapping, TIntHashSet[] priorities, boolean stayFirst, Random r) {
         stay = stayFirst;
         this.rp = p;
-        rnd = new Random();
+        rnd = r;
         vmPlacement = pVarMapping;
-        this.ranks = priorities;
+        if (priorities != null) {
+            ranks = new int[priorities.length][];
+            for (int i = 0; i < priorities.length; i++) {
+                ranks[i] = priorities[i].toArray();
+                Arrays.sort(ranks[i]);
+            }
+        }
     }
 
     /**
@@ -82,32 +117,44 @@ public class RandomVMPlacement implements InValueIterator {
      * So values are picked up from the first rank possible.
      */
     private int randomWithRankedValues(IntVar x) {
-        TIntArrayList[] values = new TIntArrayList[ranks.length];
-
-        DisposableValueIterator ite = x.getValueIterator(true);
-        try {
-            while (ite.hasNext()) {
-                int v = ite.next();
-                int i;
-
-                for (i = 0; i < ranks.length; i++) {
-                    if (ranks[i].contains(v)) {
-                        if (values[i] == null) {
-                            values[i] = new TIntArrayList();
-                        }
-                        values[i].add(v);
-                    }
-                }
+        for (int[] rank : ranks) {
+            int v = randomValue(x, rank);
+            if (v >= 0) {
+                return v;
             }
-        } finally {
-            ite.dispose();
         }
+        return -1;
+    }
 
-        //We pick a random value in the first rank that is not empty (aka null here)
-        for (TIntArrayList rank : values) {
-            if (rank != null) {
-                int v = rnd.nextInt(rank.size());
-                return rank.get(v);
+    /**
+     * Pick a random value among the members of a rank that are inside the variable domain.
+     *
+     * @return the value. {@code -1} if no members are inside the domain
+     */
+    private int randomValue(IntVar x, int[] members) {
+        if (members.length == 0) {
+            return -1;
+        }
+        for (int d = 0; d < MAX_DRAWS; d++) {
+            int v = members[rnd.nextInt(members.length)];
+            if (x.contains(v)) {
+                return v;
+            }
+        }
+        //Too many rejections, count the candidates then pick one
+        int nb = 0;
+        for (int v : members) {
+            if (x.contains(v)) {
+                nb++;
+            }
+        }
+        if (nb == 0) {
+            return -1;
+        }
+        int k = rnd.nextInt(nb);
+        for (int v : members) {
+            if (x.contains(v) && k-- == 0) {
+                return v;
             }
         }
         return -1;
@@ -117,18 +164,24 @@ public class RandomVMPlacement implements InValueIterator {
      * Pick a random value inside the variable domain.
      */
     private int randomValue(IntVar x) {
-        int i = rnd.nextInt(x.getDomainSize());
-        DisposableValueIterator ite = x.getValueIterator(true);
-        int pos = -1;
-        try {
-            while (i >= 0) {
-                pos = ite.next();
-                i--;
+        int lb = x.getLB();
+        int width = x.getUB() - lb + 1;
+        int size = x.getDomainSize();
+        if (size == width) {
+            return lb + rnd.nextInt(width);
+        }
+        for (int d = 0; d < MAX_DRAWS; d++) {
+            int v = lb + rnd.nextInt(width);
+            if (x.contains(v)) {
+                return v;
             }
-        } finally {
-            ite.dispose();
         }
-        return pos;
+        //Sparse domain, walk to a random position
+        int v = lb;
+        for (int i = rnd.nextInt(size); i > 0; i--) {
+            v = x.nextValue(v);
+        }
+        return v;
     }
 
     @Override
@@ -151,4 +204,4 @@ public class RandomVMPlacement implements InValueIterator {
         }
         return x.getValue();
     }
-}
\ No newline at end of file
+}
@@ -22,8 +22,10 @@ import btrplace.model.Model;
 import btrplace.plan.event.*;
 import btrplace.solver.SolverException;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -102,13 +104,34 @@ public class DurationEvaluators {
         return durations.containsKey(a);
     }
 
+    /**
+     * Get the actions having a registered evaluator.
+     *
+     * @return an unmodifiable set of action classes
+     */
+    public Set<Class<? extends Action>> getRegisteredActions() {
+        return Collections.unmodifiableSet(durations.keySet());
+    }
+
+    /**
+     * Evaluate at once the duration of every registered action on
+     * every element of a model.
+     *
+     * @param mo the model to consider
+     * @return the resulting table
+     * @see DurationTable
+     */
+    public DurationTable precompute(Model mo) {
+        return new DurationTable(this, mo);
+    }
+
     /**
      * Get the evaluator associated to a given action.
      *
      * @param a the action' class
      * @return the registered evaluator, if exists
      */
-    public ActionDurationEvaluator getEvaluator(Class<? extends Action> a) {
+    public ActionDurationEvaluator<Element> getEvaluator(Class<? extends Action> a) {
         return durations.get(a);
     }
 
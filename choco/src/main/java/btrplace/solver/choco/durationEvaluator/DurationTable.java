@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.*;
+import btrplace.plan.event.Action;
+import btrplace.plan.event.NodeEvent;
+import btrplace.plan.event.VMEvent;
+import btrplace.solver.SolverException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A table that stores the duration of the actions for every element of a model.
+ * <p/>
+ * The durations of the registered {@link VMEvent} actions are computed for every VM in the mapping,
+ * the durations of the registered {@link NodeEvent} actions for every node in the mapping.
+ * They are stored in arrays indexed by the element identifiers so the lookups are in constant time.
+ * As the identifiers are unique among a model and its {@link btrplace.model.SubModel}s,
+ * a table computed for a model can also be used for its sub-models.
+ * <p/>
+ * The durations of the other actions, or the other elements, are evaluated on demand
+ * using the {@link DurationEvaluators} the table was built from.
+ * A duration that cannot be evaluated is only reported when it is requested, so an
+ * action that is never considered for an element does not prevent the solving.
+ * <p/>
+ * Once built, the table is never modified so it can be shared among concurrent threads.
+ *
+ * @author Fabien Hermenier
+ */
+public class DurationTable {
+
+    /**
+     * The value to denote a duration that cannot be evaluated.
+     */
+    private static final int INVALID = -1;
+
+    private DurationEvaluators dev;
+
+    private Model mo;
+
+    private Map<Class<? extends Action>, int[]> durations;
+
+    /**
+     * Make a new table.
+     * Every duration is evaluated once.
+     *
+     * @param d the evaluators to rely on
+     * @param m the model to consider
+     */
+    public DurationTable(DurationEvaluators d, Model m) {
+        dev = d;
+        mo = m;
+        durations = new HashMap<>();
+
+        Mapping map = m.getMapping();
+        Set<VM> vms = map.getAllVMs();
+        Set<Node> nodes = map.getAllNodes();
+        int[] vmIds = ids(vms);
+        int[] nodeIds = ids(nodes);
+        for (Class<? extends Action> a : d.getRegisteredActions()) {
+            ActionDurationEvaluator<Element> ev = d.getEvaluator(a);
+            if (VMEvent.class.isAssignableFrom(a)) {
+                durations.put(a, evaluate(ev, vms, vmIds));
+            } else if (NodeEvent.class.isAssignableFrom(a)) {
+                durations.put(a, evaluate(ev, nodes, nodeIds));
+            }
+        }
+    }
+
+    private static int[] ids(Set<? extends Element> elems) {
+        int max = -1;
+        for (Element e : elems) {
+            max = Math.max(max, e.id());
+        }
+        return new int[max + 1];
+    }
+
+    private int[] evaluate(ActionDurationEvaluator<Element> ev, Set<? extends Element> elems, int[] empty) {
+        int[] res = empty.clone();
+        for (Element e : elems) {
+            int v = ev.evaluate(mo, e);
+            res[e.id()] = v > 0 ? v : INVALID;
+        }
+        return res;
+    }
+
+    /**
+     * Get the model the table was computed for.
+     *
+     * @return the model
+     */
+    public Model getModel() {
+        return mo;
+    }
+
+    /**
+     * Get the duration of an action on a given element.
+     *
+     * @param a the action' class
+     * @param e the element
+     * @return a positive number
+     * @throws SolverException if the duration cannot be evaluated
+     */
+    public int get(Class<? extends Action> a, Element e) throws SolverException {
+        int[] ds = durations.get(a);
+        if (ds != null && e.id() >= 0 && e.id() < ds.length && ds[e.id()] != 0 && sameKind(a, e)) {
+            int d = ds[e.id()];
+            if (d == INVALID) {
+                throw new SolverException(mo, "Unable to estimate the duration of action '" + a.getSimpleName() + "' related to '" + e + "'");
+            }
+            return d;
+        }
+        return dev.evaluate(mo, a, e);
+    }
+
+    private static boolean sameKind(Class<? extends Action> a, Element e) {
+        return e instanceof VM ? VMEvent.class.isAssignableFrom(a) : NodeEvent.class.isAssignableFrom(a);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.Element;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.MigrationBandwidth;
+import btrplace.model.view.ShareableResource;
+
+/**
+ * Evaluate the duration of a live migration using a pre-copy model.
+ * <p/>
+ * The memory of the VM, in MB, is the consumption of the VM for a given resource.
+ * The memory is first copied entirely while the VM keeps running. Then, each round
+ * copies the memory that has been dirtied during the previous round, at the rate
+ * stated by the {@value #DIRTY_RATE_ATTRIBUTE} attribute of the VM (MB/s, 0 by default).
+ * Once the remaining memory is below a threshold or the maximum number of rounds is reached,
+ * the VM is suspended and the remaining memory is copied.
+ * <p/>
+ * The transfer rate is the bandwidth of the node that currently hosts the VM, stated by its
+ * {@value MigrationBandwidth#BANDWIDTH_ATTRIBUTE} attribute (MB/s). A default bandwidth is used
+ * when the attribute is not set. The resulting duration, in seconds, is rounded up and at least equals to 1.
+ * <p/>
+ * The evaluator is not registered by default. Use {@link DurationEvaluators#register(Class, ActionDurationEvaluator)}
+ * with {@link btrplace.plan.event.MigrateVM} to use it.
+ *
+ * @author Fabien Hermenier
+ * @see MigrationBandwidth
+ */
+public class PreCopyMigrationDuration implements ActionDurationEvaluator<VM> {
+
+    /**
+     * The VM attribute that indicates its memory dirty rate.
+     */
+    public static final String DIRTY_RATE_ATTRIBUTE = "dirtyRate";
+
+    /**
+     * The default maximum number of copy rounds.
+     */
+    public static final int DEFAULT_MAX_ROUNDS = 30;
+
+    /**
+     * The default amount of remaining memory that triggers the final copy, in MB.
+     */
+    public static final int DEFAULT_STOP_THRESHOLD = 50;
+
+    private String rc;
+
+    private int defBandwidth;
+
+    private int maxRounds;
+
+    private int threshold;
+
+    /**
+     * Make a new evaluator with the default number of rounds and stop threshold.
+     *
+     * @param rcId the identifier of the resource denoting the VM memory
+     * @param bw   the bandwidth to use when the source node does not state it
+     */
+    public PreCopyMigrationDuration(String rcId, int bw) {
+        this(rcId, bw, DEFAULT_MAX_ROUNDS, DEFAULT_STOP_THRESHOLD);
+    }
+
+    /**
+     * Make a new evaluator.
+     *
+     * @param rcId   the identifier of the resource denoting the VM memory
+     * @param bw     the bandwidth to use when the source node does not state it
+     * @param rounds the maximum number of copy rounds before the final copy
+     * @param t      the amount of remaining memory that triggers the final copy
+     */
+    public PreCopyMigrationDuration(String rcId, int bw, int rounds, int t) {
+        if (bw <= 0) {
+            throw new IllegalArgumentException("The default bandwidth must be strictly positive");
+        }
+        rc = rcId;
+        defBandwidth = bw;
+        maxRounds = rounds;
+        threshold = t;
+    }
+
+    @Override
+    public int evaluate(Model mo, VM e) {
+        ShareableResource r = (ShareableResource) mo.getView(ShareableResource.VIEW_ID_BASE + rc);
+        if (r == null) {
+            return -1;
+        }
+        Node host = mo.getMapping().getVMLocation(e);
+        int bw = host == null ? defBandwidth : MigrationBandwidth.getBandwidth(mo, host);
+        if (bw == Integer.MAX_VALUE) {
+            bw = defBandwidth;
+        }
+        if (bw <= 0) {
+            return -1;
+        }
+        return duration(r.getConsumption(e), getDirtyRate(mo, e), bw, maxRounds, threshold);
+    }
+
+    private static double getDirtyRate(Model mo, Element e) {
+        Object o = mo.getAttributes().get(e, DIRTY_RATE_ATTRIBUTE);
+        if (o instanceof Number) {
+            return Math.max(0, ((Number) o).doubleValue());
+        }
+        return 0;
+    }
+
+    /**
+     * Compute the duration of a pre-copy migration.
+     *
+     * @param mem       the memory to transfer
+     * @param dirtyRate the memory dirty rate
+     * @param bw        the transfer rate
+     * @param rounds    the maximum number of copy rounds
+     * @param t         the amount of remaining memory that triggers the final copy
+     * @return the duration, rounded up. At least 1
+     */
+    public static int duration(int mem, double dirtyRate, int bw, int rounds, int t) {
+        double remaining = mem;
+        double time = 0;
+        for (int i = 0; i < rounds && remaining > t; i++) {
+            double d = remaining / bw;
+            time += d;
+            remaining = Math.min(mem, dirtyRate * d);
+        }
+        //Stop and copy
+        time += remaining / bw;
+        return (int) Math.max(1, Math.ceil(time));
+    }
+
+    /**
+     * Get the identifier of the resource denoting the VM memory.
+     *
+     * @return a resource identifier
+     */
+    public String getResourceId() {
+        return rc;
+    }
+
+    /**
+     * Get the bandwidth used when the source node does not state it.
+     *
+     * @return a positive integer
+     */
+    public int getDefaultBandwidth() {
+        return defBandwidth;
+    }
+
+    /**
+     * Get the maximum number of copy rounds.
+     *
+     * @return a positive integer
+     */
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Get the amount of remaining memory that triggers the final copy.
+     *
+     * @return a positive integer
+     */
+    public int getStopThreshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import solver.Solver;
+import solver.constraints.IntConstraint;
+import solver.constraints.Propagator;
+import solver.constraints.PropagatorPriority;
+import solver.exception.ContradictionException;
+import solver.variables.EventType;
+import solver.variables.IntVar;
+import solver.variables.delta.IIntDeltaMonitor;
+import util.ESat;
+import util.iterators.DisposableValueIterator;
+import util.procedure.UnaryIntProcedure;
+
+/**
+ * Enforces a set of variables to be instantiated to a same value.
+ * <p/>
+ * A value removed from one of the domains is removed from all the others
+ * so the propagation is linear in the number of variables.
+ *
+ * @author Fabien Hermenier
+ */
+public class AllEqual extends IntConstraint<IntVar> {
+
+    /**
+     * Make a new constraint.
+     *
+     * @param s  the solver
+     * @param vs the variables that must be equal
+     */
+    public AllEqual(Solver s, IntVar[] vs) {
+        super(vs, s);
+        setPropagators(new AllEqualPropagator(vs));
+    }
+
+    @Override
+    public ESat isSatisfied(int[] tuple) {
+        for (int i = 1; i < tuple.length; i++) {
+            if (tuple[i] != tuple[0]) {
+                return ESat.FALSE;
+            }
+        }
+        return ESat.TRUE;
+    }
+
+    class AllEqualPropagator extends Propagator<IntVar> {
+
+        private IIntDeltaMonitor[] idms;
+
+        private RemProc remProc;
+
+        public AllEqualPropagator(IntVar[] vs) {
+            super(vs, PropagatorPriority.LINEAR, true);
+            idms = new IIntDeltaMonitor[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                idms[i] = vars[i].monitorDelta(aCause);
+            }
+            remProc = new RemProc();
+        }
+
+        @Override
+        protected int getPropagationConditions(int vIdx) {
+            return EventType.INSTANTIATE.mask + EventType.BOUND.mask + EventType.REMOVE.mask;
+        }
+
+        @Override
+        public void propagate(int m) throws ContradictionException {
+            //Every domain is restricted to the first one, then the first one is restricted to the others
+            IntVar ref = vars[0];
+            for (int i = 1; i < vars.length; i++) {
+                DisposableValueIterator it = vars[i].getValueIterator(true);
+                try {
+                    while (it.hasNext()) {
+                        int v = it.next();
+                        if (!ref.contains(v)) {
+                            vars[i].removeValue(v, aCause);
+                        }
+                    }
+                } finally {
+                    it.dispose();
+                }
+            }
+            int ub = ref.getUB();
+            for (int v = ref.getLB(); v <= ub; v = ref.nextValue(v)) {
+                for (int i = 1; i < vars.length; i++) {
+                    if (!vars[i].contains(v)) {
+                        removeEverywhere(v);
+                        break;
+                    }
+                }
+            }
+            for (IIntDeltaMonitor idm : idms) {
+                idm.unfreeze();
+            }
+        }
+
+        @Override
+        public void propagate(int idx, int mask) throws ContradictionException {
+            idms[idx].freeze();
+            if (EventType.isInstantiate(mask)) {
+                int v = vars[idx].getValue();
+                for (IntVar x : vars) {
+                    x.instantiateTo(v, aCause);
+                }
+            } else {
+                idms[idx].forEach(remProc.set(idx), EventType.REMOVE);
+            }
+            idms[idx].unfreeze();
+        }
+
+        private void removeEverywhere(int v) throws ContradictionException {
+            for (IntVar x : vars) {
+                x.removeValue(v, aCause);
+            }
+        }
+
+        @Override
+        public ESat isEntailed() {
+            boolean all = true;
+            int val = Integer.MIN_VALUE;
+            for (IntVar v : vars) {
+                if (v.instantiated()) {
+                    if (val == Integer.MIN_VALUE) {
+                        val = v.getValue();
+                    } else if (val != v.getValue()) {
+                        return ESat.FALSE;
+                    }
+                } else {
+                    all = false;
+                }
+            }
+            return all ? ESat.TRUE : ESat.UNDEFINED;
+        }
+
+        /**
+         * Remove the values from the other variables.
+         */
+        private class RemProc implements UnaryIntProcedure<Integer> {
+
+            private int var;
+
+            @Override
+            public UnaryIntProcedure set(Integer idxVar) {
+                this.var = idxVar;
+                return this;
+            }
+
+            @Override
+            public void execute(int val) throws ContradictionException {
+                for (int i = 0; i < vars.length; i++) {
+                    if (i != var) {
+                        vars[i].removeValue(val, aCause);
+                    }
+                }
+            }
+        }
+    }
+}
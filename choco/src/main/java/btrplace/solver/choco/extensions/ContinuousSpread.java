@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import memory.IStateBitSet;
+import solver.Solver;
+import solver.constraints.IntConstraint;
+import solver.constraints.Propagator;
+import solver.constraints.PropagatorPriority;
+import solver.exception.ContradictionException;
+import solver.variables.EventType;
+import solver.variables.IntVar;
+import util.ESat;
+import util.tools.ArrayUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A global constraint to spread VMs over distinct nodes, continuously.
+ * <p/>
+ * The d-slices of the VMs must be hosted on distinct nodes. In addition, a d-slice
+ * cannot start on a node before the c-slices of the other VMs that are leaving this node have ended.
+ * VMs that are currently hosted on a same node are not constrained against each other.
+ * <p/>
+ * The c-slices are grouped per hosting node, so the constraint size is linear
+ * in the number of VMs.
+ *
+ * @author Fabien Hermenier
+ */
+public class ContinuousSpread extends IntConstraint<IntVar> {
+
+    /**
+     * Denotes a VM without c-slice.
+     */
+    public static final int NO_CSLICE = -1;
+
+    private int nbVMs;
+
+    private int[] cHosts;
+
+    /**
+     * The index of each c-slice end in the variables, {@code -1} if there is no c-slice.
+     */
+    private int[] cEndIdx;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param s        the solver
+     * @param dHosters the hosting node of the d-slice of each VM
+     * @param dStarts  the moment the d-slice of each VM starts
+     * @param cHosts   the node hosting the c-slice of each VM. {@link #NO_CSLICE} if the VM has no c-slice
+     * @param cEnds    the moment the c-slice of each VM ends. {@code null} if the VM has no c-slice
+     */
+    public ContinuousSpread(Solver s, IntVar[] dHosters, IntVar[] dStarts, int[] cHosts, IntVar[] cEnds) {
+        super(ArrayUtils.append(dHosters, dStarts, nonNull(cEnds)), s);
+        this.nbVMs = dHosters.length;
+        this.cHosts = cHosts;
+        this.cEndIdx = new int[nbVMs];
+        int x = 2 * nbVMs;
+        for (int i = 0; i < nbVMs; i++) {
+            cEndIdx[i] = cEnds[i] == null ? -1 : x++;
+        }
+        setPropagators(new ContinuousSpreadPropagator(dHosters, dStarts, cEnds));
+    }
+
+    private static IntVar[] nonNull(IntVar[] vs) {
+        List<IntVar> l = new ArrayList<>(vs.length);
+        for (IntVar v : vs) {
+            if (v != null) {
+                l.add(v);
+            }
+        }
+        return l.toArray(new IntVar[l.size()]);
+    }
+
+    @Override
+    public ESat isSatisfied(int[] tuple) {
+        for (int i = 0; i < nbVMs; i++) {
+            int n = tuple[i];
+            for (int j = 0; j < nbVMs; j++) {
+                if (i == j) {
+                    continue;
+                }
+                if (tuple[j] == n) {
+                    return ESat.FALSE;
+                }
+                if (cHosts[j] == n && cHosts[i] != n && tuple[cEndIdx[j]] > tuple[nbVMs + i]) {
+                    return ESat.FALSE;
+                }
+            }
+        }
+        return ESat.TRUE;
+    }
+
+    /**
+     * The propagator. The c-slices are indexed by their hosting node
+     * so the filtering of a d-slice only considers the c-slices on its candidate nodes.
+     */
+    class ContinuousSpreadPropagator extends Propagator<IntVar> {
+
+        private IntVar[] dHosters, dStarts, cEnds;
+
+        /**
+         * The nodes hosting at least one c-slice, sorted.
+         */
+        private int[] nodes;
+
+        /**
+         * The VMs having a c-slice on each node, same order as {@link #nodes}.
+         */
+        private int[][] leaving;
+
+        /**
+         * The latest LB of the c-slice ends, per node. Same order as {@link #nodes}.
+         */
+        private int[] maxEnds;
+
+        /**
+         * The VMs whose hosting node have already been removed from the others.
+         */
+        private IStateBitSet placed;
+
+        public ContinuousSpreadPropagator(IntVar[] dHosters, IntVar[] dStarts, IntVar[] cEnds) {
+            super(ArrayUtils.append(dHosters, dStarts, nonNull(cEnds)), PropagatorPriority.LINEAR, true);
+            this.dHosters = dHosters;
+            this.dStarts = dStarts;
+            this.cEnds = cEnds;
+
+            TIntObjectHashMap<TIntArrayList> byNode = new TIntObjectHashMap<>();
+            for (int i = 0; i < nbVMs; i++) {
+                if (cHosts[i] != NO_CSLICE) {
+                    TIntArrayList l = byNode.get(cHosts[i]);
+                    if (l == null) {
+                        l = new TIntArrayList();
+                        byNode.put(cHosts[i], l);
+                    }
+                    l.add(i);
+                }
+            }
+            nodes = byNode.keys();
+            Arrays.sort(nodes);
+            leaving = new int[nodes.length][];
+            for (int x = 0; x < nodes.length; x++) {
+                leaving[x] = byNode.get(nodes[x]).toArray();
+            }
+            maxEnds = new int[nodes.length];
+            placed = vars[0].getSolver().getEnvironment().makeBitSet(nbVMs);
+        }
+
+        @Override
+        protected int getPropagationConditions(int vIdx) {
+            if (vIdx < nbVMs) {
+                return EventType.INSTANTIATE.mask + EventType.REMOVE.mask;
+            }
+            return EventType.BOUND.mask + EventType.INSTANTIATE.mask;
+        }
+
+        @Override
+        public void propagate(int idx, int mask) throws ContradictionException {
+            forcePropagate(EventType.INSTANTIATE);
+        }
+
+        @Override
+        public void propagate(int m) throws ContradictionException {
+            boolean changed;
+            do {
+                changed = false;
+                for (int x = 0; x < nodes.length; x++) {
+                    int max = Integer.MIN_VALUE;
+                    for (int j : leaving[x]) {
+                        max = Math.max(max, cEnds[j].getLB());
+                    }
+                    maxEnds[x] = max;
+                }
+                for (int i = 0; i < nbVMs; i++) {
+                    if (dHosters[i].instantiated()) {
+                        changed |= filterPlaced(i);
+                    } else {
+                        changed |= filterCandidates(i);
+                    }
+                }
+            } while (changed);
+        }
+
+        /**
+         * Filter the domains related to a VM which has a known hosting node.
+         *
+         * @param i the VM index
+         * @return {@code true} if a domain was reduced
+         * @throws ContradictionException if a domain becomes empty
+         */
+        private boolean filterPlaced(int i) throws ContradictionException {
+            boolean changed = false;
+            int n = dHosters[i].getValue();
+            if (!placed.get(i)) {
+                placed.set(i);
+                for (int k = 0; k < nbVMs; k++) {
+                    if (k != i) {
+                        changed |= dHosters[k].removeValue(n, aCause);
+                    }
+                }
+            }
+            int x = Arrays.binarySearch(nodes, n);
+            if (x >= 0 && n != cHosts[i]) {
+                //Start after every c-slice leaving the node
+                changed |= dStarts[i].updateLowerBound(maxEnds[x], aCause);
+                for (int j : leaving[x]) {
+                    changed |= cEnds[j].updateUpperBound(dStarts[i].getUB(), aCause);
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Remove the candidate nodes where a VM cannot start on time.
+         *
+         * @param i the VM index
+         * @return {@code true} if a domain was reduced
+         * @throws ContradictionException if a domain becomes empty
+         */
+        private boolean filterCandidates(int i) throws ContradictionException {
+            boolean changed = false;
+            int ub = dStarts[i].getUB();
+            for (int x = 0; x < nodes.length; x++) {
+                if (nodes[x] != cHosts[i] && maxEnds[x] > ub) {
+                    changed |= dHosters[i].removeValue(nodes[x], aCause);
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public ESat isEntailed() {
+            for (IntVar v : vars) {
+                if (!v.instantiated()) {
+                    return ESat.UNDEFINED;
+                }
+            }
+            int[] tuple = new int[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                tuple[i] = vars[i].getValue();
+            }
+            return isSatisfied(tuple);
+        }
+    }
+}
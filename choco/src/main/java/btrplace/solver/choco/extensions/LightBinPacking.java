@@ -29,6 +29,8 @@ import solver.variables.IntVar;
 import util.ESat;
 import util.tools.ArrayUtils;
 
+import java.util.EnumSet;
+
 /**
  * Lighter but faster version of BinPacking that does not provide the knapsack filtering
  *
@@ -109,6 +111,20 @@ public class LightBinPacking extends IntConstraint<IntVar> {
      * @param b           array of nbItems variables, each figuring the possible bins an item can be assigned to, usually initialized to [0, nbBins-1]
      */
     public LightBinPacking(String[] labels, IEnvironment environment, IntVar[][] l, int[][] s, IntVar[] b) {
+        this(labels, environment, l, s, b, LightBinPackingPropagator.getDefaultRules());
+    }
+
+    /**
+     * constructor of the FastBinPacking global constraint
+     *
+     * @param labels      the label describing each dimension
+     * @param environment the solver environment
+     * @param l           array of nbBins variables, each figuring the total size of the items assigned to it, usually initialized to [0, capacity]
+     * @param s           array of nbItems variables, each figuring the item size. Only the LB will be considered!
+     * @param b           array of nbItems variables, each figuring the possible bins an item can be assigned to, usually initialized to [0, nbBins-1]
+     * @param rules       the optional filtering rules to use
+     */
+    public LightBinPacking(String[] labels, IEnvironment environment, IntVar[][] l, int[][] s, IntVar[] b, EnumSet<LightBinPackingPropagator.Rule> rules) {
         super(ArrayUtils.append(b, ArrayUtils.flatten(l)), l[0][0].getSolver());
         this.name = labels;
         this.env = environment;
@@ -119,7 +135,7 @@ public class LightBinPacking extends IntConstraint<IntVar> {
         this.iSizes = s;
         this.bTLoads = new IStateInt[nbDims][nbBins];
         this.bRLoads = new IStateInt[nbDims][nbBins];
-        setPropagators(new LightBinPackingPropagator(labels, env, l, s, b));
+        setPropagators(new LightBinPackingPropagator(labels, env, l, s, b, rules));
     }
 
     @Override
@@ -27,20 +27,60 @@ import solver.constraints.PropagatorPriority;
 import solver.exception.ContradictionException;
 import solver.variables.EventType;
 import solver.variables.IntVar;
+import solver.variables.delta.IIntDeltaMonitor;
 import util.ESat;
-import util.iterators.DisposableIntIterator;
 import util.iterators.DisposableValueIterator;
+import util.procedure.UnaryIntProcedure;
 import util.tools.ArrayUtils;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
 
 /**
- * Lighter but faster version of a bin packing that does not provide the knapsack filtering
+ * Lighter but faster version of a bin packing.
+ * <p/>
+ * In addition to the load consistency, the propagator may use the following
+ * filtering rules, see {@link Rule}:
+ * <ul>
+ * <li>a knapsack reasoning on each bin, using the candidate items sorted by decreasing size</li>
+ * <li>the L2 lower bound of Martello and Toth on the number of bins required to pack all the items</li>
+ * <li>an incremental maintenance of the candidate loads using delta monitors</li>
+ * </ul>
  *
  * @author Fabien Hermenier
  */
 public class LightBinPackingPropagator extends Propagator<IntVar> {
 
+    /**
+     * The optional filtering rules.
+     */
+    public static enum Rule {
+        /**
+         * For each bin, remove the candidate items that cannot fit, pack the items
+         * that are required to reach the load LB, and tighten the load bounds
+         * to the reachable sums of the candidates.
+         */
+        KNAPSACK,
+        /**
+         * Fail if the Martello and Toth L2 bound exceeds the number of bins.
+         */
+        L2_BOUND,
+        /**
+         * Maintain the candidate loads incrementally using the removed values of the assignment variables.
+         * Otherwise, the loads are re-computed from scratch when an assignment variable changed.
+         */
+        DELTA_MONITORS
+    }
+
+    /**
+     * The rules used by default: all of them. Every rule only removes values that belong to no solution,
+     * so the solutions are the same whatever the rules, only the size of the search tree changes.
+     * {@code EnumSet.of(Rule.DELTA_MONITORS)} provides the filtering of the former implementation.
+     */
+    private static final EnumSet<Rule> DEFAULT_RULES = EnumSet.allOf(Rule.class);
+
     private boolean first = true;
     /**
      * The solver environment.
@@ -104,8 +144,75 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
 
     private IStateBitSet notEntailedDims;
 
+    private boolean useKnapsack, useL2, useDeltas;
+
     /**
-     * constructor of the FastBinPacking global constraint
+     * The delta monitor of each assignment variable.
+     */
+    private IIntDeltaMonitor[] deltaMonitors;
+
+    private RemProc remProc;
+
+    /**
+     * Has some assignment variable changed since the last propagation ?
+     * Only used when the delta monitors are disabled.
+     */
+    private IStateBool itemsHaveChanged;
+
+    /**
+     * The bins to check with the knapsack rule.
+     */
+    private BitSet dirtyBins;
+
+    /**
+     * Has some load UB been reduced since the last L2 check ?
+     */
+    private boolean checkL2;
+
+    /**
+     * The items indexes sorted by decreasing size. [nbDims][nbItems]
+     */
+    private int[][] sortedItems;
+
+    /**
+     * Buffers for the candidate items of a bin.
+     */
+    private int[] candItems, candSizes;
+
+    /**
+     * Buffer for the bounds computed by {@link #noSum(int[], int, int, int, int, int[])}.
+     */
+    private int[] noSumBounds = new int[2];
+
+    /**
+     * The stamp of the last change in the required or the candidate items of each bin. [nbBins]
+     * The stamps are never re-used along the search so two states of a bin having
+     * the same stamp have the same items.
+     */
+    private IStateInt[] itemsStamp;
+
+    private int lastStamp;
+
+    /**
+     * For each bin, the items stamp at the last knapsack filtering that did not change anything. [nbBins]
+     */
+    private int[] stableStamp;
+
+    /**
+     * For each bin, the load bounds at the last knapsack filtering that did not change anything. [nbDims][nbBins]
+     */
+    private int[][] stableLBs, stableUBs;
+
+    /**
+     * Buffers for the L2 bound.
+     */
+    private int[] l2Sizes;
+
+    private long[] l2Prefix;
+
+    /**
+     * constructor of the FastBinPacking global constraint.
+     * All the rules in {@link #getDefaultRules()} are used.
      *
      * @param labels      the label describing each dimension
      * @param environment the solver environment
@@ -114,6 +221,20 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
      * @param b           array of nbItems variables, each figuring the possible bins an item can be assigned to, usually initialized to [0, nbBins-1]
      */
     public LightBinPackingPropagator(String[] labels, IEnvironment environment, IntVar[][] l, int[][] s, IntVar[] b) {
+        this(labels, environment, l, s, b, DEFAULT_RULES);
+    }
+
+    /**
+     * constructor of the FastBinPacking global constraint
+     *
+     * @param labels      the label describing each dimension
+     * @param environment the solver environment
+     * @param l           array of nbBins variables, each figuring the total size of the items assigned to it, usually initialized to [0, capacity]
+     * @param s           array of nbItems variables, each figuring the item size. Only the LB will be considered!
+     * @param b           array of nbItems variables, each figuring the possible bins an item can be assigned to, usually initialized to [0, nbBins-1]
+     * @param rules       the optional filtering rules to use
+     */
+    public LightBinPackingPropagator(String[] labels, IEnvironment environment, IntVar[][] l, int[][] s, IntVar[] b, EnumSet<Rule> rules) {
         super(ArrayUtils.append(b, ArrayUtils.flatten(l)), PropagatorPriority.VERY_SLOW, true);
         this.name = labels;
         this.env = environment;
@@ -124,6 +245,83 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
         this.iSizes = s;
         this.bTLoads = new IStateInt[nbDims][nbBins];
         this.bRLoads = new IStateInt[nbDims][nbBins];
+        //Copy the rules so the caller cannot change them afterward
+        EnumSet<Rule> rs = EnumSet.copyOf(rules);
+        this.useKnapsack = rs.contains(Rule.KNAPSACK);
+        this.useL2 = rs.contains(Rule.L2_BOUND);
+        this.useDeltas = rs.contains(Rule.DELTA_MONITORS);
+        if (useDeltas) {
+            deltaMonitors = new IIntDeltaMonitor[bins.length];
+            for (int i = 0; i < bins.length; i++) {
+                deltaMonitors[i] = bins[i].monitorDelta(aCause);
+            }
+            remProc = new RemProc();
+        }
+        this.dirtyBins = new BitSet(nbBins);
+        if (useKnapsack) {
+            this.stableStamp = new int[nbBins];
+            Arrays.fill(stableStamp, -1);
+            this.stableLBs = new int[nbDims][nbBins];
+            this.stableUBs = new int[nbDims][nbBins];
+        }
+        this.candItems = new int[bins.length];
+        this.candSizes = new int[bins.length];
+        this.l2Sizes = new int[bins.length + nbBins];
+        this.l2Prefix = new long[bins.length + nbBins + 1];
+        this.sortedItems = new int[nbDims][];
+        for (int d = 0; d < nbDims; d++) {
+            sortedItems[d] = sortDecreasing(s[d]);
+        }
+    }
+
+    /**
+     * Get the rules used by default.
+     *
+     * @return a copy of the default rules
+     */
+    public static EnumSet<Rule> getDefaultRules() {
+        return EnumSet.copyOf(DEFAULT_RULES);
+    }
+
+    /**
+     * Get the indexes of items sorted by decreasing size.
+     *
+     * @param sizes the size of each item
+     * @return the sorted indexes
+     */
+    private static int[] sortDecreasing(final int[] sizes) {
+        Integer[] idx = new Integer[sizes.length];
+        for (int i = 0; i < idx.length; i++) {
+            idx[i] = i;
+        }
+        Arrays.sort(idx, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return sizes[o2] - sizes[o1];
+            }
+        });
+        int[] res = new int[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            res[i] = idx[i];
+        }
+        return res;
+    }
+
+    /**
+     * Indicates if a rule is used by this propagator.
+     *
+     * @param r the rule
+     * @return {@code true} iff the rule is enabled
+     */
+    public boolean uses(Rule r) {
+        switch (r) {
+            case KNAPSACK:
+                return useKnapsack;
+            case L2_BOUND:
+                return useL2;
+            default:
+                return useDeltas;
+        }
     }
 
     public boolean isConsistent() {
@@ -149,7 +347,7 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
     @Override
     public int getPropagationConditions(int idx) {
         if (idx < bins.length) {
-            return EventType.REMOVE.mask;
+            return EventType.INSTANTIATE.mask + EventType.BOUND.mask + EventType.REMOVE.mask;
         }
         return EventType.BOUND.mask;
     }
@@ -229,9 +427,25 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
         }
 
         this.loadsHaveChanged = env.makeBool(false);
+        this.itemsHaveChanged = env.makeBool(false);
+        if (useKnapsack) {
+            itemsStamp = new IStateInt[nbBins];
+            for (int b = 0; b < nbBins; b++) {
+                itemsStamp[b] = env.makeInt(0);
+            }
+        }
 
         detectEntailedDimensions(nbUnassigned);
 
+        if (useDeltas) {
+            //The current domains are already considered
+            for (IIntDeltaMonitor dm : deltaMonitors) {
+                dm.unfreeze();
+            }
+        }
+        dirtyBins.set(0, nbBins);
+        checkL2 = true;
+
         assert checkLoadConsistency();
         LOGGER.trace("BinPacking: " + Arrays.toString(name) + " notEntailed dimensions: " + notEntailedDims);
         forcePropagate(EventType.INSTANTIATE);
@@ -278,33 +492,366 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
      * rule 2.0, for each bin: binRequiredLoad <= binLoad <= binTotalLoad
      * rule 2.1, for each bin and candidate item: if binRequiredLoad + itemSize > binLoadSup then remove item from bin
      * rule 2.2, for each bin and candidate item: if binTotalLoad - itemSize < binLoadInf then pack item into bin
-     * with "big items" optimization, the last rule is not valid for big items but can be replaced by:
-     * rule 2.3: if smallItemSizes < binLoadInf then remove big candidates with size < binLoadInf-smallItemSizes
-     * and update binLoadInf as binRequiredLoad + the size of the smallest big remaining candidate
+     * rule 2.3, for each bin: binLoad is tightened to the nearest sums of candidates (knapsack)
+     * rule 3.0: if the L2 bound exceeds the number of bins then fail
      */
     public void propagate(int mask) throws ContradictionException {
         awake();
-        recomputeLoadSums();
+        if (!useDeltas && itemsHaveChanged.get()) {
+            itemsHaveChanged.set(false);
+            recomputeItemLoads();
+        }
+        if (recomputeLoadSums()) {
+            checkL2 = true;
+        }
         for (int d = 0; d < nbDims; d++) {
             if (sumISizes[d] > sumLoadSup[d].get() || sumISizes[d] < sumLoadInf[d].get()) {
                 contradiction(null, "");
             }
         }
+        if (useKnapsack) {
+            for (int b = dirtyBins.nextSetBit(0); b >= 0; b = dirtyBins.nextSetBit(0)) {
+                dirtyBins.clear(b);
+                filterKnapsack(b);
+            }
+        }
+        dirtyBins.clear();
+        if (useL2 && checkL2) {
+            checkL2 = false;
+            for (int d = notEntailedDims.nextSetBit(0); d >= 0; d = notEntailedDims.nextSetBit(d + 1)) {
+                checkL2(d);
+            }
+        }
         assert checkLoadConsistency();
     }
 
     @Override
     public void propagate(int idx, int mask) throws ContradictionException {
-        if (EventType.isBound(mask)) {
-            awakeOnRemovals(idx, null);
+        if (idx < bins.length) {
+            awakeOnRemovals(idx);
+        } else {
+            int b = (idx - bins.length) % nbBins;
+            if (EventType.isDecupp(mask)) {
+                awakeOnSup(b);
+            } else {
+                awakeOnInf(b);
+            }
         }
-        if (EventType.isInclow(mask)) {
-            awakeOnInf(idx);
+    }
+
+    /**
+     * Re-compute the required and the candidate loads from the assignment variables.
+     *
+     * @throws ContradictionException if a load variable becomes empty
+     */
+    private void recomputeItemLoads() throws ContradictionException {
+        int[][] rLoads = new int[nbDims][nbBins];
+        int[][] tLoads = new int[nbDims][nbBins];
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i].instantiated()) {
+                int b = bins[i].getValue();
+                for (int d = 0; d < nbDims; d++) {
+                    rLoads[d][b] += iSizes[d][i];
+                    tLoads[d][b] += iSizes[d][i];
+                }
+            } else {
+                int ub = bins[i].getUB();
+                for (int b = bins[i].getLB(); b <= ub; b = bins[i].nextValue(b)) {
+                    for (int d = 0; d < nbDims; d++) {
+                        tLoads[d][b] += iSizes[d][i];
+                    }
+                }
+            }
         }
-        if (EventType.isDecupp(mask)) {
-            awakeOnSup(idx);
+        for (int b = 0; b < nbBins; b++) {
+            for (int d = 0; d < nbDims; d++) {
+                bRLoads[d][b].set(rLoads[d][b]);
+                filterLoadInf(d, b, rLoads[d][b]);
+            }
+            for (int d = notEntailedDims.nextSetBit(0); d >= 0; d = notEntailedDims.nextSetBit(d + 1)) {
+                bTLoads[d][b].set(tLoads[d][b]);
+                filterLoadSup(d, b, tLoads[d][b]);
+            }
+            touch(b);
+        }
+        dirtyBins.set(0, nbBins);
+    }
+
+    /**
+     * The knapsack reasoning on a single bin, for each non-entailed dimension.
+     * The bin is marked as dirty again if its state changed.
+     * The bin is skipped if neither its items nor its load bounds changed since
+     * a filtering that did not change anything.
+     *
+     * @param b the bin index
+     * @throws ContradictionException if the bin cannot be filled properly
+     */
+    private void filterKnapsack(int b) throws ContradictionException {
+        if (isStable(b)) {
+            return;
+        }
+        boolean changed = false;
+        for (int d = notEntailedDims.nextSetBit(0); d >= 0; d = notEntailedDims.nextSetBit(d + 1)) {
+            //The candidates, sorted by decreasing size
+            int nb = 0;
+            for (int i : sortedItems[d]) {
+                if (iSizes[d][i] > 0 && !bins[i].instantiated() && bins[i].contains(b)) {
+                    candItems[nb] = i;
+                    candSizes[nb++] = iSizes[d][i];
+                }
+            }
+            if (nb == 0) {
+                continue;
+            }
+            int r = bRLoads[d][b].get();
+            //rule 2.1. The largest candidates that cannot fit
+            int x = 0;
+            for (; x < nb && r + candSizes[x] > loads[d][b].getUB(); x++) {
+                discard(candItems[x], b);
+            }
+            //rule 2.2. The largest candidates that are needed to reach the load LB
+            for (; x < nb && bTLoads[d][b].get() - candSizes[x] < loads[d][b].getLB(); x++) {
+                pack(candItems[x], b);
+            }
+            if (x > 0) {
+                //The required and the candidate items changed
+                dirtyBins.set(b);
+                return;
+            }
+
+            //rule 2.3
+            int total = bTLoads[d][b].get() - r;
+            int lb = loads[d][b].getLB() - r;
+            int ub = loads[d][b].getUB() - r;
+            if (noSum(candSizes, nb, total, lb, ub, noSumBounds)) {
+                contradiction(loads[d][b], "");
+            }
+            if (noSum(candSizes, nb, total, lb, lb, noSumBounds)) {
+                changed |= filterLoadInf(d, b, r + noSumBounds[1]);
+            }
+            if (noSum(candSizes, nb, total, ub, ub, noSumBounds)) {
+                changed |= filterLoadSup(d, b, r + noSumBounds[0]);
+            }
+        }
+        if (changed) {
+            dirtyBins.set(b);
+        } else {
+            //Nothing to do until the items or the load bounds change
+            stableStamp[b] = itemsStamp[b].get();
+            for (int d = 0; d < nbDims; d++) {
+                stableLBs[d][b] = loads[d][b].getLB();
+                stableUBs[d][b] = loads[d][b].getUB();
+            }
+        }
+    }
+
+    /**
+     * Check if the knapsack filtering of a bin would not change anything.
+     *
+     * @param b the bin index
+     * @return {@code true} iff the items and the load bounds of the bin are the same than
+     * at its last filtering that did not change anything
+     */
+    private boolean isStable(int b) {
+        if (stableStamp[b] != itemsStamp[b].get()) {
+            return false;
+        }
+        for (int d = 0; d < nbDims; d++) {
+            if (stableLBs[d][b] != loads[d][b].getLB() || stableUBs[d][b] != loads[d][b].getUB()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record a change in the required or the candidate items of a bin.
+     *
+     * @param bin the bin index
+     */
+    private void touch(int bin) {
+        if (useKnapsack) {
+            itemsStamp[bin].set(++lastStamp);
+        }
+    }
+
+    /**
+     * Remove a bin from the possible assignments of an item.
+     *
+     * @param i the item index
+     * @param b the bin index
+     * @throws ContradictionException if the item cannot be assigned anymore
+     */
+    private void discard(int i, int b) throws ContradictionException {
+        if (bins[i].removeValue(b, aCause)) {
+            removeItem(i, b);
+            if (bins[i].instantiated()) {
+                int v = bins[i].getValue();
+                assignItem(i, v);
+                dirtyBins.set(v);
+            }
         }
+    }
 
+    /**
+     * Assign an item to a bin.
+     *
+     * @param i the item index
+     * @param b the bin index
+     * @throws ContradictionException if the assignment is not possible
+     */
+    private void pack(int i, int b) throws ContradictionException {
+        int ub = bins[i].getUB();
+        for (int v = bins[i].getLB(); v <= ub; v = bins[i].nextValue(v)) {
+            if (v != b) {
+                removeItem(i, v);
+                dirtyBins.set(v);
+            }
+        }
+        bins[i].instantiateTo(b, aCause);
+        assignItem(i, b);
+    }
+
+    /**
+     * Check the L2 bound on a given dimension.
+     * Each bin with a load UB lower than the largest one is considered as a bin
+     * of maximum capacity that already contains a filler item.
+     *
+     * @param d the dimension
+     * @throws ContradictionException if the items cannot be packed into the bins
+     */
+    private void checkL2(int d) throws ContradictionException {
+        int c = 0;
+        for (int b = 0; b < nbBins; b++) {
+            c = Math.max(c, loads[d][b].getUB());
+        }
+        if (c == 0) {
+            return;
+        }
+        int nb = 0;
+        for (int i = 0; i < bins.length; i++) {
+            if (iSizes[d][i] > 0) {
+                l2Sizes[nb++] = iSizes[d][i];
+            }
+        }
+        for (int b = 0; b < nbBins; b++) {
+            if (loads[d][b].getUB() < c) {
+                l2Sizes[nb++] = c - loads[d][b].getUB();
+            }
+        }
+        Arrays.sort(l2Sizes, 0, nb);
+        if (l2(l2Sizes, nb, c, l2Prefix) > nbBins) {
+            contradiction(null, "");
+        }
+    }
+
+    /**
+     * The L2 lower bound of Martello and Toth on the number of bins required
+     * to pack some items into identical bins.
+     *
+     * @param sizes  the item sizes, sorted in ascending order
+     * @param nb     the number of items
+     * @param c      the bins capacity
+     * @param prefix a buffer of at least {@code nb + 1} elements
+     * @return the lower bound
+     */
+    static int l2(int[] sizes, int nb, int c, long[] prefix) {
+        prefix[0] = 0;
+        for (int i = 0; i < nb; i++) {
+            prefix[i + 1] = prefix[i] + sizes[i];
+        }
+        //The items larger than c/2 are in J1 or J2
+        int ih = firstGreater(sizes, nb, c / 2);
+        int best = 0;
+        int x = 0;
+        int k = 0;
+        while (true) {
+            int i1 = firstGreater(sizes, nb, c - k);
+            int i3 = firstGreater(sizes, nb, k - 1);
+            long nb2 = i1 - ih;
+            long free2 = nb2 * c - (prefix[i1] - prefix[ih]);
+            long rest = prefix[ih] - prefix[i3] - free2;
+            long l = (nb - ih) + (rest > 0 ? (rest + c - 1) / c : 0);
+            if (l > best) {
+                best = (int) l;
+            }
+            //Next value for k: the next distinct size that is <= c/2
+            while (x < ih && sizes[x] <= k) {
+                x++;
+            }
+            if (x >= ih) {
+                break;
+            }
+            k = sizes[x];
+        }
+        return best;
+    }
+
+    /**
+     * Get the index of the first element strictly greater than a value.
+     *
+     * @param sizes the elements sorted in ascending order
+     * @param nb    the number of elements
+     * @param v     the value
+     * @return the index, {@code nb} if there is no such element
+     */
+    private static int firstGreater(int[] sizes, int nb, long v) {
+        int lo = 0;
+        int hi = nb;
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (sizes[m] <= v) {
+                lo = m + 1;
+            } else {
+                hi = m;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * The NoSum test of Shaw. Check if there is no subset of items whose sum is in a given range.
+     * The detection is not complete: the method may miss a range that cannot be reached.
+     *
+     * @param sizes  the item sizes, sorted in decreasing order
+     * @param nb     the number of items
+     * @param total  the sum of the sizes
+     * @param alpha  the lower bound of the range
+     * @param beta   the upper bound of the range
+     * @param bounds when the range cannot be reached, store the greatest sum lower than {@code alpha} at index 0
+     *               and the lowest sum greater than {@code beta} at index 1
+     * @return {@code true} if no subset sum can be in {@code [alpha, beta]}
+     */
+    static boolean noSum(int[] sizes, int nb, int total, int alpha, int beta, int[] bounds) {
+        if (alpha <= 0 || beta >= total) {
+            return false;
+        }
+        int sumA = 0;
+        int sumC = 0;
+        int k = 0;
+        int k2 = 0;
+        while (sumC + sizes[nb - k2 - 1] < alpha) {
+            sumC += sizes[nb - k2 - 1];
+            k2++;
+        }
+        int sumB = sizes[nb - k2 - 1];
+        while (sumA < alpha && sumB <= beta) {
+            k++;
+            sumA += sizes[k - 1];
+            if (sumA < alpha) {
+                k2--;
+                sumB += sizes[nb - k2 - 1];
+                sumC -= sizes[nb - k2 - 1];
+                while (sumA + sumC >= alpha) {
+                    k2--;
+                    sumC -= sizes[nb - k2 - 1];
+                    sumB += sizes[nb - k2 - 1] - sizes[nb - k2 - k - 2];
+                }
+            }
+        }
+        bounds[0] = sumA + sumC;
+        bounds[1] = sumB;
+        return sumA < alpha;
     }
 
     /**
@@ -331,22 +878,24 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
 
     /**
      * on loads variables: delay propagation
+     *
+     * @param bin the bin index
      */
-    //@Override
-    public void awakeOnInf(int varIdx) throws ContradictionException {
+    public void awakeOnInf(int bin) throws ContradictionException {
         loadsHaveChanged.set(true);
+        dirtyBins.set(bin);
         forcePropagate(EventType.INSTANTIATE);
-        //constAwake(false);
     }
 
     /**
      * on loads variables: delay propagation
+     *
+     * @param bin the bin index
      */
-    //@Override
-    public void awakeOnSup(int varIdx) throws ContradictionException {
+    public void awakeOnSup(int bin) throws ContradictionException {
         loadsHaveChanged.set(true);
+        dirtyBins.set(bin);
         forcePropagate(EventType.INSTANTIATE);
-        //constAwake(false);
     }
 
 
@@ -354,25 +903,25 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
      * on bins variables: propagate the removal of item-to-bins assignments.
      * 1) update the candidate and check to decrease the load UB of each removed bins: binLoad <= binTotalLoad
      * 2) if item is assigned: update the required and check to increase the load LB of the bin: binLoad >= binRequiredLoad
+     * Without delta monitors, the propagation is delayed and the loads are re-computed from scratch.
      *
+     * @param iIdx the item index
      * @throws solver.exception.ContradictionException on the load variables
      */
-    //@Override
-    public void awakeOnRemovals(int iIdx, DisposableIntIterator deltaDomain) throws ContradictionException {
-        try {
-            while (deltaDomain.hasNext()) {
-                int b = deltaDomain.next();
-                removeItem(iIdx, b);
+    public void awakeOnRemovals(int iIdx) throws ContradictionException {
+        if (useDeltas) {
+            deltaMonitors[iIdx].freeze();
+            deltaMonitors[iIdx].forEach(remProc.set(iIdx), EventType.REMOVE);
+            deltaMonitors[iIdx].unfreeze();
+            if (vars[iIdx].instantiated()) {
+                int b = vars[iIdx].getValue();
+                assignItem(iIdx, b);
+                dirtyBins.set(b);
             }
-
-        } finally {
-            deltaDomain.dispose();
-        }
-        if (vars[iIdx].getLB() == vars[iIdx].getUB()) {
-            assignItem(iIdx, vars[iIdx].getValue());
+        } else {
+            itemsHaveChanged.set(true);
         }
         forcePropagate(EventType.INSTANTIATE);
-        //this.constAwake(false);
     }
 
     //****************************************************************//
@@ -389,6 +938,7 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
      * @throws solver.exception.ContradictionException on the load[bin] variable
      */
     private void assignItem(int item, int bin) throws ContradictionException {
+        touch(bin);
         for (int d = 0; d < nbDims; d++) {
             int r = bRLoads[d][bin].add(iSizes[d][item]);
             filterLoadInf(d, bin, r);
@@ -405,6 +955,7 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
      * @throws solver.exception.ContradictionException on the load[bin] variable
      */
     private void removeItem(int item, int bin) throws ContradictionException {
+        touch(bin);
         for (int d = notEntailedDims.nextSetBit(0); d >= 0; d = notEntailedDims.nextSetBit(d + 1)) {
             int r = bTLoads[d][bin].add(-1 * iSizes[d][item]);
             filterLoadSup(d, bin, r);
@@ -444,6 +995,7 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
         int dec = newLoadSup - loads[dim][bin].getUB();
         if (dec < 0) {
             loads[dim][bin].updateUpperBound(newLoadSup, aCause);
+            checkL2 = true;
             int r = sumLoadSup[dim].add(dec);
             if (sumISizes[dim] > r) {
                 contradiction(null, "");
@@ -453,6 +1005,25 @@ public class LightBinPackingPropagator extends Propagator<IntVar> {
         return false;
     }
 
+    /**
+     * Remove the bins from the candidates of an item.
+     */
+    private class RemProc implements UnaryIntProcedure<Integer> {
+        private int item;
+
+        @Override
+        public UnaryIntProcedure set(Integer idx) {
+            this.item = idx;
+            return this;
+        }
+
+        @Override
+        public void execute(int b) throws ContradictionException {
+            removeItem(item, b);
+            dirtyBins.set(b);
+        }
+    }
+
     //****************************************************************//
     //********* Checkers *********************************************//
     //****************************************************************//
@@ -18,7 +18,6 @@
 package btrplace.solver.choco.extensions;
 
 
-import gnu.trove.map.hash.TIntIntHashMap;
 import memory.IStateInt;
 import memory.IStateIntVector;
 import org.slf4j.Logger;
@@ -31,7 +30,10 @@ import java.util.Arrays;
 import java.util.BitSet;
 
 /**
- * TODO: Transpose dimension/element indexes to remove getUsage()
+ * Schedule the slices that are entering and leaving a single node.
+ * <p/>
+ * The min and the max resource profiles are stored in arrays that are allocated
+ * once, in the constructor, and reused at each propagation.
  *
  * @author Fabien Hermenier
  */
@@ -68,13 +70,41 @@ public class LocalTaskScheduler {
 
     public static final int NO_ASSOCIATIONS = -1;
 
-    private int[] sortedMinProfile;
+    /**
+     * The moments where the min profile changes, in ascending order.
+     */
+    private int[] minTimes;
+
+    /**
+     * The moments where the max profile changes, in ascending order.
+     */
+    private int[] maxTimes;
 
-    private TIntIntHashMap[] profilesMin;
+    /**
+     * The number of meaningful moments in {@link #minTimes} and {@link #maxTimes}.
+     */
+    private int nbMinTimes, nbMaxTimes;
 
-    private TIntIntHashMap[] profilesMax;
+    /**
+     * What is necessarily used on each dimension, at each moment of {@link #minTimes}.
+     */
+    private int[][] minProfile;
+
+    /**
+     * The maximum possible usage on each dimension, at each moment of {@link #maxTimes}.
+     */
+    private int[][] maxProfile;
+
+    /**
+     * The events that modify the profiles. Each event is encoded as {@code (moment << 32) | index}
+     * so sorting the events sort them by moments.
+     */
+    private long[] minEvents, maxEvents;
 
-    private int[] sortedMaxProfile;
+    /**
+     * The usage variation of each event, per dimension.
+     */
+    private int[][] minDeltas, maxDeltas;
 
     /**
      * LB of the moment the last c-slice leaves.
@@ -96,6 +126,11 @@ public class LocalTaskScheduler {
 
     private ICause aCause;
 
+    /**
+     * Indicates if a domain was reduced during the current propagation.
+     */
+    private boolean modified;
+
     public LocalTaskScheduler(int me,
                               IntVar early,
                               IntVar last,
@@ -129,14 +164,21 @@ public class LocalTaskScheduler {
         //The amount of free resources at startup
 
         startupFree = new int[nbDims];
-        profilesMax = new TIntIntHashMap[nbDims];
-        profilesMin = new TIntIntHashMap[nbDims];
         for (int i = 0; i < capacities.length; i++) {
             startupFree[i] = capacities[i][me];
-            profilesMax[i] = new TIntIntHashMap();
-            profilesMin[i] = new TIntIntHashMap();
         }
 
+        //At most one event for the initial usage, one per leaving slice, one per arriving slice
+        int nbEvents = 1 + out.cardinality() + dStarts.length;
+        minEvents = new long[nbEvents];
+        maxEvents = new long[nbEvents];
+        minDeltas = new int[nbDims][nbEvents];
+        maxDeltas = new int[nbDims][nbEvents];
+        minTimes = new int[nbEvents];
+        maxTimes = new int[nbEvents];
+        minProfile = new int[nbDims][nbEvents];
+        maxProfile = new int[nbDims][nbEvents];
+
         int lastInf = out.isEmpty() ? 0 : Integer.MAX_VALUE;
         int lastSup = 0;
 
@@ -158,47 +200,87 @@ public class LocalTaskScheduler {
         this.lastCendSup = early.getSolver().getEnvironment().makeInt(lastSup);
     }
 
+    /**
+     * Filter the variables related to the resource until a local fix point is reached.
+     *
+     * @return {@code false} if the profile is invalid
+     * @throws ContradictionException if a domain becomes empty
+     */
     public boolean propagate() throws ContradictionException {
-        computeProfiles();
-        last.updateLowerBound(lastCendInf.get(), aCause);
+        boolean changed = false;
+        do {
+            modified = false;
+            computeProfiles();
+            modified |= last.updateLowerBound(lastCendInf.get(), aCause);
 
-        if (!checkInvariant()) {
-            return false;
-        }
-        updateCEndsSup();
-        updateDStartsInf();
-        updateDStartsSup();
+            if (!checkInvariant()) {
+                return false;
+            }
+            updateCEndsSup();
+            updateDStartsInf();
+            updateDStartsSup();
+            changed |= modified;
+        } while (modified);
+        modified = changed;
         return true;
     }
 
     /**
-     * Translation for a relatives resources changes to an absolute free resources.
+     * Indicates if the last call to {@link #propagate()} modified a variable.
      *
-     * @param changes       the map that indicates the free CPU variation
-     * @param sortedMoments the different moments sorted in ascending order
+     * @return {@code true} iff at least one domain was reduced
      */
-    private static void toAbsoluteFreeResources(TIntIntHashMap changes, int[] sortedMoments) {
-        for (int i = 1; i < sortedMoments.length; i++) {
-            int t = sortedMoments[i];
-            int lastT = sortedMoments[i - 1];
-            int lastFree = changes.get(lastT);
+    public boolean hasModified() {
+        return modified;
+    }
 
-            changes.put(t, changes.get(t) + lastFree);
+    /**
+     * Make the absolute profile from a set of events.
+     * The events are sorted by moments then the events occurring at the same moment are merged.
+     *
+     * @param events   the events to consider
+     * @param nbEvents the number of events
+     * @param deltas   the usage variation of each event, per dimension
+     * @param times    the array to fill with the moments, in ascending order
+     * @param profile  the array to fill with the absolute usage at each moment, per dimension
+     * @return the number of distinct moments
+     */
+    private int toAbsoluteProfile(long[] events, int nbEvents, int[][] deltas, int[] times, int[][] profile) {
+        Arrays.sort(events, 0, nbEvents);
+        int nb = -1;
+        for (int x = 0; x < nbEvents; x++) {
+            int t = (int) (events[x] >>> 32);
+            int e = (int) events[x];
+            if (nb < 0 || times[nb] != t) {
+                nb++;
+                times[nb] = t;
+                for (int i = 0; i < nbDims; i++) {
+                    profile[i][nb] = nb == 0 ? deltas[i][e] : profile[i][nb - 1] + deltas[i][e];
+                }
+            } else {
+                for (int i = 0; i < nbDims; i++) {
+                    profile[i][nb] += deltas[i][e];
+                }
+            }
         }
+        return nb + 1;
+    }
+
+    private static long event(int t, int idx) {
+        return ((long) t << 32) | idx;
     }
 
     public void computeProfiles() {
 
+        //The initial usage of the resource
         for (int i = 0; i < nbDims; i++) {
-            //What is necessarily used on the resource
-            profilesMin[i] = new TIntIntHashMap();
-
-            //Maximum possible usage on the resource
-            profilesMax[i] = new TIntIntHashMap();
-
-            profilesMax[i].put(0, capacities[i][me] - startupFree[i]);
-            profilesMin[i].put(0, capacities[i][me] - startupFree[i]);
+            minDeltas[i][0] = capacities[i][me] - startupFree[i];
+            maxDeltas[i][0] = capacities[i][me] - startupFree[i];
         }
+        minEvents[0] = event(0, 0);
+        maxEvents[0] = event(0, 0);
+        int nbMin = 1;
+        int nbMax = 1;
 
         int lastInf = out.isEmpty() ? 0 : Integer.MAX_VALUE;
         int lastSup = 0;
@@ -215,17 +297,19 @@ public class LocalTaskScheduler {
                     LOGGER.debug(me + " " + cEnds[j].toString() + " increasing");
                 }
                 for (int i = 0; i < nbDims; i++) {
-                    profilesMax[i].put(t, profilesMax[i].get(t) - cUsages[i][j]);
+                    maxDeltas[i][nbMax] = -cUsages[i][j];
                 }
-
+                maxEvents[nbMax] = event(t, nbMax);
+                nbMax++;
             } else {
                 if (me == DEBUG || DEBUG == -2) {
                     LOGGER.debug(me + " " + cEnds[j].toString() + " < or non-associated (" + (revAssociations[j] >= 0 ? dStarts[revAssociations[j]].toString() : "no rev") + "?)");
                 }
                 for (int i = 0; i < nbDims; i++) {
-                    profilesMin[i].put(t, profilesMin[i].get(t) - cUsages[i][j]);
+                    minDeltas[i][nbMin] = -cUsages[i][j];
                 }
-
+                minEvents[nbMin] = event(t, nbMin);
+                nbMin++;
             }
 
             t = cEnds[j].getUB();
@@ -234,12 +318,16 @@ public class LocalTaskScheduler {
             }
             if (increasing) {
                 for (int i = 0; i < nbDims; i++) {
-                    profilesMin[i].put(t, profilesMin[i].get(t) - cUsages[i][j]);
+                    minDeltas[i][nbMin] = -cUsages[i][j];
                 }
+                minEvents[nbMin] = event(t, nbMin);
+                nbMin++;
             } else {
                 for (int i = 0; i < nbDims; i++) {
-                    profilesMax[i].put(t, profilesMax[i].get(t) - cUsages[i][j]);
+                    maxDeltas[i][nbMax] = -cUsages[i][j];
                 }
+                maxEvents[nbMax] = event(t, nbMax);
+                nbMax++;
             }
         }
         if (out.isEmpty()) {
@@ -250,32 +338,21 @@ public class LocalTaskScheduler {
         lastCendInf.set(lastInf);
         lastCendSup.set(lastSup);
 
-        for (int i = 0; i < nbDims; i++) {
-            for (int x = 0; x < vIn.size(); x++) {
-                int j = vIn.get(x);
-                int t = dStarts[j].getUB();
-                profilesMin[i].put(t, profilesMin[i].get(t) + dUsages[i][j]);
-                t = dStarts[j].getLB();
-                profilesMax[i].put(t, profilesMax[i].get(t) + dUsages[i][j]);
+        for (int x = 0; x < vIn.size(); x++) {
+            int j = vIn.get(x);
+            for (int i = 0; i < nbDims; i++) {
+                minDeltas[i][nbMin] = dUsages[i][j];
+                maxDeltas[i][nbMax] = dUsages[i][j];
             }
-        }
-        //Now transforms into an absolute profile
-        sortedMinProfile = null;
-        sortedMinProfile = profilesMin[0].keys();
-        Arrays.sort(sortedMinProfile);
-
-        sortedMaxProfile = null;
-        sortedMaxProfile = profilesMax[0].keys();
-        for (int i = 0; i < nbDims; i++) {
-            profilesMax[i].keys(sortedMaxProfile);
+            minEvents[nbMin] = event(dStarts[j].getUB(), nbMin);
+            nbMin++;
+            maxEvents[nbMax] = event(dStarts[j].getLB(), nbMax);
+            nbMax++;
         }
 
-        Arrays.sort(sortedMaxProfile);
-
-        for (int i = 0; i < nbDims; i++) {
-            toAbsoluteFreeResources(profilesMin[i], sortedMinProfile);
-            toAbsoluteFreeResources(profilesMax[i], sortedMaxProfile);
-        }
+        //Now transforms into an absolute profile
+        nbMinTimes = toAbsoluteProfile(minEvents, nbMin, minDeltas, minTimes, minProfile);
+        nbMaxTimes = toAbsoluteProfile(maxEvents, nbMax, maxDeltas, maxTimes, maxProfile);
 
         if (me == DEBUG || DEBUG == -2) {
             LOGGER.debug("---" + me + "--- startupFree=" + Arrays.toString(startupFree)
@@ -291,8 +368,8 @@ public class LocalTaskScheduler {
 
 
             for (int i = 0; i < nbDims; i++) {
-                LOGGER.debug("profileMin dim " + i + "=" + prettyProfile(sortedMinProfile, profilesMin[i]));
-                LOGGER.debug("profileMax dim " + i + "=" + prettyProfile(sortedMaxProfile, profilesMax[i]));
+                LOGGER.debug("profileMin dim " + i + "=" + prettyProfile(minTimes, nbMinTimes, minProfile[i]));
+                LOGGER.debug("profileMax dim " + i + "=" + prettyProfile(maxTimes, nbMaxTimes, maxProfile[i]));
             }
             LOGGER.debug("/--- " + me + "---/");
         }
@@ -326,14 +403,13 @@ public class LocalTaskScheduler {
         return associations[dSlice] != NO_ASSOCIATIONS && out.get(associations[dSlice]);
     }
 
-    private String prettyProfile(int[] ascMoments, TIntIntHashMap prof) {
+    private String prettyProfile(int[] ascMoments, int nb, int[] prof) {
         StringBuilder b = new StringBuilder();
-        for (int i = 0; i < ascMoments.length; i++) {
-            int t = ascMoments[i];
-            b.append(t);
+        for (int i = 0; i < nb; i++) {
+            b.append(ascMoments[i]);
             b.append(':');
-            b.append(prof.get(t));
-            if (i != ascMoments.length - 1) {
+            b.append(prof[i]);
+            if (i != nb - 1) {
                 b.append(' ');
             }
         }
@@ -341,13 +417,12 @@ public class LocalTaskScheduler {
     }
 
     public boolean checkInvariant() {
-        for (int x = 0; x < sortedMinProfile.length; x++) {
-            int t = sortedMinProfile[x];
+        for (int x = 0; x < nbMinTimes; x++) {
             for (int i = 0; i < nbDims; i++) {
-                if (profilesMin[i].get(t) > capacities[i][me]) {
+                if (minProfile[i][x] > capacities[i][me]) {
                     if (me == DEBUG || DEBUG == -2) {
-                        LOGGER.debug("(" + me + ") Invalid min profile at " + t + " on dimension " + i
-                                + ": " + profilesMin[i].get(t) + " > " + capacities[i][me]);
+                        LOGGER.debug("(" + me + ") Invalid min profile at " + minTimes[x] + " on dimension " + i
+                                + ": " + minProfile[i][x] + " > " + capacities[i][me]);
                     }
                     return false;
                 }
@@ -386,22 +461,19 @@ public class LocalTaskScheduler {
                     LOGGER.debug("(" + me + ") - try to update lb of " + dStarts[i]);
                 }
 
-                int[] myUsage = getUsages(dUsages, i);
-
                 int lastT = -1;
-                for (int x = sortedMinProfile.length - 1; x >= 0; x--) {
-                    int t = sortedMinProfile[x];
+                for (int x = nbMinTimes - 1; x >= 0; x--) {
+                    int t = minTimes[x];
                     if (t <= dStarts[i].getLB()) {
                         break;
                     }
-                    int prevT = sortedMinProfile[x - 1];
                     if (t <= dStarts[i].getUB()
-                            && exceedCapacity(profilesMin, prevT, myUsage)) {
+                            && exceedCapacity(minProfile, x - 1, dUsages, i)) {
                         lastT = t;
                         break;
                     }
                 }
-                dStarts[i].updateLowerBound(Math.max(lastT, early.getLB()), aCause);
+                modified |= dStarts[i].updateLowerBound(Math.max(lastT, early.getLB()), aCause);
             }
         }
     }
@@ -409,12 +481,10 @@ public class LocalTaskScheduler {
     private void updateDStartsSup() throws ContradictionException {
 
 
-        int[] myCapacity = getUsages(capacities, me);
         int lastSup = -1;
-        for (int i = sortedMaxProfile.length - 1; i >= 0; i--) {
-            int t = sortedMaxProfile[i];
-            if (!exceedCapacity(profilesMax, t, myCapacity)) {
-                lastSup = t;
+        for (int x = nbMaxTimes - 1; x >= 0; x--) {
+            if (!exceedCapacity(maxProfile, x, capacities, me)) {
+                lastSup = maxTimes[x];
             } else {
                 break;
             }
@@ -424,7 +494,7 @@ public class LocalTaskScheduler {
                 int i = vIn.get(x);
                 if (!dStarts[i].instantiated() && !associatedToCSliceOnCurrentNode(i)) {
                     int s = Math.max(dStarts[i].getLB(), lastSup);
-                    dStarts[i].updateUpperBound(s, aCause);
+                    modified |= dStarts[i].updateUpperBound(s, aCause);
                 }
             }
         }
@@ -434,31 +504,39 @@ public class LocalTaskScheduler {
         for (int i = out.nextSetBit(0); i >= 0; i = out.nextSetBit(i + 1)) {
             if (!cEnds[i].instantiated() && !associatedToDSliceOnCurrentNode(i)) {
 
-                int[] myUsage = getUsages(cUsages, i);
                 int lastT = -1;
-                for (int x = 0; x < sortedMinProfile.length; x++) {
-                    int t = sortedMinProfile[x];
+                for (int x = 0; x < nbMinTimes; x++) {
+                    int t = minTimes[x];
                     if (t >= cEnds[i].getUB()) {
                         break;
                     } else if (t >= cEnds[i].getLB() &&
-                            exceedCapacity(profilesMin, t, myUsage)) {
+                            exceedCapacity(minProfile, x, cUsages, i)) {
                         lastT = t;
                         break;
                     }
                 }
                 if (lastT != -1) {
-                    cEnds[i].updateUpperBound(Math.min(lastT, last.getUB()), aCause);
+                    modified |= cEnds[i].updateUpperBound(Math.min(lastT, last.getUB()), aCause);
                 } else {
-                    cEnds[i].updateUpperBound(last.getUB(), aCause);
+                    modified |= cEnds[i].updateUpperBound(last.getUB(), aCause);
                 }
             }
 
         }
     }
 
-    private boolean exceedCapacity(TIntIntHashMap[] profiles, int t, int[] usage) {
+    /**
+     * Check if adding an element to a profile exceeds the capacity of the node.
+     *
+     * @param profile the profile to consider
+     * @param x       the index of the moment in the profile
+     * @param usages  the usages of the elements, per dimension
+     * @param j       the element index
+     * @return {@code true} iff the capacity is exceeded on at least one dimension
+     */
+    private boolean exceedCapacity(int[][] profile, int x, int[][] usages, int j) {
         for (int i = 0; i < nbDims; i++) {
-            if (profiles[i].get(t) + usage[i] > capacities[i][me]) {
+            if (profile[i][x] + usages[i][j] > capacities[i][me]) {
                 return true;
             }
         }
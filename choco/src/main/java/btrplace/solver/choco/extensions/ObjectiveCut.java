@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco.extensions;
+
+import solver.Solver;
+import solver.constraints.IntConstraint;
+import solver.constraints.Propagator;
+import solver.constraints.PropagatorPriority;
+import solver.exception.ContradictionException;
+import solver.variables.EventType;
+import solver.variables.IntVar;
+import util.ESat;
+
+/**
+ * A cut on an objective variable with a bound that can be changed during the search,
+ * in both directions.
+ * <p/>
+ * Contrary to a cut posted on the solver, the bound can be relaxed once it appears
+ * to be unreachable. The bound is checked each time the domain of the objective changes,
+ * so a new bound is only considered at the next event on the objective.
+ * The subtrees refuted under a previous bound are not explored again unless the search is restarted.
+ *
+ * @author Fabien Hermenier
+ */
+public class ObjectiveCut extends IntConstraint<IntVar> {
+
+    private boolean minimize;
+
+    private int bound;
+
+    /**
+     * Make a new cut that does not restrict the objective yet.
+     *
+     * @param s        the solver
+     * @param obj      the objective variable
+     * @param minimize {@code true} to restrict the upper bound of the objective, {@code false} for its lower bound
+     */
+    public ObjectiveCut(Solver s, IntVar obj, boolean minimize) {
+        super(new IntVar[]{obj}, s);
+        this.minimize = minimize;
+        bound = minimize ? obj.getUB() : obj.getLB();
+        setPropagators(new ObjectiveCutPropagator(vars));
+    }
+
+    /**
+     * Set the bound of the objective.
+     *
+     * @param b the new bound. An upper bound when the objective is minimized, a lower bound otherwise
+     */
+    public void setBound(int b) {
+        bound = b;
+    }
+
+    /**
+     * Get the current bound.
+     *
+     * @return an integer
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    @Override
+    public ESat isSatisfied(int[] tuple) {
+        return ESat.eval(minimize ? tuple[0] <= bound : tuple[0] >= bound);
+    }
+
+    @Override
+    public String toString() {
+        return vars[0].toString() + (minimize ? " <= " : " >= ") + bound;
+    }
+
+    /**
+     * Propagator for {@link ObjectiveCut}.
+     */
+    class ObjectiveCutPropagator extends Propagator<IntVar> {
+
+        public ObjectiveCutPropagator(IntVar[] vs) {
+            super(vs, PropagatorPriority.UNARY, true);
+        }
+
+        @Override
+        public int getPropagationConditions(int idx) {
+            return EventType.INSTANTIATE.mask + EventType.BOUND.mask;
+        }
+
+        @Override
+        public void propagate(int evtMask) throws ContradictionException {
+            if (minimize) {
+                vars[0].updateUpperBound(bound, aCause);
+            } else {
+                vars[0].updateLowerBound(bound, aCause);
+            }
+        }
+
+        @Override
+        public void propagate(int idx, int mask) throws ContradictionException {
+            propagate(0);
+        }
+
+        @Override
+        public ESat isEntailed() {
+            IntVar o = vars[0];
+            if (minimize) {
+                return o.getUB() <= bound ? ESat.TRUE : o.getLB() > bound ? ESat.FALSE : ESat.UNDEFINED;
+            }
+            return o.getLB() >= bound ? ESat.TRUE : o.getUB() < bound ? ESat.FALSE : ESat.UNDEFINED;
+        }
+    }
+}
@@ -27,57 +27,121 @@ import solver.variables.IntVar;
 import util.ESat;
 
 /**
- * A constraint to enforce {@code a == b / divider} where {@code divider} is a real and {@code a} and {@code b} are
- * both integers.
+ * A constraint to enforce {@code a == b / divider} where {@code divider} is a positive
+ * fixed-point number {@code num / den} and {@code a} and {@code b} are both integers.
  * The division is rounded up to the smallest integer.
  * <p/>
- * In practice, the constraint maintains:
+ * In practice, the constraint maintains, using integer arithmetic only:
  * <ul>
- * <li>{@code a = Math.ceil(b / divider)}</li>
- * <li>{@code b = ((a - 1 )* divider) % 1 == 0 ? [(a - 1)*divider + 1; Math.floor(a * divider)] : [Math.ceil((a -1)*divider); Math.floor(a * divider)]}</li>
+ * <li>{@code a = ceil(b * den / num)}</li>
+ * <li>{@code b = [floor((a - 1) * num / den) + 1; floor(a * num / den)]}</li>
  * </ul>
  *
  * @author Fabien Hermenier
  */
 public class RoundedUpDivision extends IntConstraint<IntVar> {
 
-    private double qq;
+    /**
+     * The denominator used to convert a real divider to a fixed-point number.
+     */
+    public static final int PRECISION = 1000;
+
+    /**
+     * The tolerance used to absorb the representation error of the dividers
+     * that are not exact binary fractions. 2.01 * 1000 is 2009.9999999999998 for example.
+     */
+    private static final double EPSILON = 1e-6;
+
+    private int num;
+
+    private int den;
 
     /**
      * Make a new constraint.
+     * The divider is converted to a fixed-point number with a {@link #PRECISION} denominator.
+     * It is rounded down, so {@code a} may be over-estimated but never under-estimated.
+     *
      * @param a the variable to divide
      * @param b the resulting ratio
      * @param d the divider
      */
     public RoundedUpDivision(IntVar a, IntVar b, double d) {
+        this(a, b, (int) toFixedPoint(d), PRECISION);
+    }
+
+    /**
+     * Convert a real number to a fixed-point number with a {@link #PRECISION} denominator.
+     * The number is rounded down, but the representation errors of its decimal digits
+     * are ignored so a number having at most 3 decimals is converted exactly.
+     *
+     * @param d the number to convert
+     * @return the numerator of the fixed-point number
+     */
+    public static long toFixedPoint(double d) {
+        return (long) Math.floor(d * PRECISION + EPSILON);
+    }
+
+    /**
+     * Make a new constraint.
+     *
+     * @param a  the variable to divide
+     * @param b  the resulting ratio
+     * @param nu the numerator of the divider, strictly positive
+     * @param de the denominator of the divider, strictly positive
+     */
+    public RoundedUpDivision(IntVar a, IntVar b, int nu, int de) {
         super(new IntVar[]{a, b}, a.getSolver());
-        qq = d;
-        setPropagators(new RoundedUpDivisionPropagator(vars, d));
+        if (nu <= 0 || de <= 0) {
+            throw new IllegalArgumentException("The divider must be strictly positive");
+        }
+        num = nu;
+        den = de;
+        setPropagators(new RoundedUpDivisionPropagator(vars));
+    }
+
+    /**
+     * Compute {@code ceil(b * den / num)}.
+     */
+    private int div(int b) {
+        long x = (long) b * den;
+        long q = x / num;
+        if (x % num > 0) {
+            q++;
+        }
+        return (int) q;
+    }
+
+    /**
+     * Compute {@code floor(a * num / den)}.
+     */
+    private int mult(int a) {
+        long x = (long) a * num;
+        long q = x / den;
+        if (x % den < 0) {
+            q--;
+        }
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, q));
     }
 
     @Override
     public ESat isSatisfied(int[] values) {
-        return ESat.eval(values[0] == (int) Math.ceil((double) values[1] / qq));
+        return ESat.eval(values[0] == div(values[1]));
     }
 
     @Override
     public String toString() {
-        return vars[0].toString() + " = " + vars[1].toString() + '/' + qq;
+        return vars[0].toString() + " = " + vars[1].toString() + '/' + ((double) num / den);
     }
 
     class RoundedUpDivisionPropagator extends Propagator<IntVar> {
 
-        private double divider;
-
         /**
          * New propagator
          *
          * @param vs the variables
-         * @param d  the divider
          */
-        public RoundedUpDivisionPropagator(IntVar[] vs, double d) {
+        public RoundedUpDivisionPropagator(IntVar[] vs) {
             super(vs, PropagatorPriority.BINARY, true);
-            this.divider = d;
         }
 
         @Override
@@ -88,22 +152,11 @@ public class RoundedUpDivision extends IntConstraint<IntVar> {
         @Override
         public ESat isEntailed() {
             if (vars[0].getDomainSize() == 1 && vars[1].getDomainSize() == 1) {
-                return ESat.eval(vars[0].getValue() == (int) Math.ceil((double) vars[1].getValue() / divider));
+                return ESat.eval(vars[0].getValue() == div(vars[1].getValue()));
             }
             return ESat.UNDEFINED;
         }
 
-        private int div(int b) {
-            return (int) Math.ceil((double) b / divider);
-        }
-
-        private int multLB(int a) {
-            if ((a - 1 * divider) % 1 == 0) {
-                return (int) ((a - 1) * divider + 1);
-            }
-            return (int) Math.ceil(divider * (a - 1));
-        }
-
         @Override
         public void propagate(int evtMask) throws ContradictionException {
             filter();
@@ -127,12 +180,11 @@ public class RoundedUpDivision extends IntConstraint<IntVar> {
             } while (filter());
         }
 
-
         public boolean awakeOnInf(int i) throws ContradictionException {
             if (i == 1) {
                 return vars[0].updateLowerBound(div(vars[1].getLB()), aCause);
             } else {
-                return vars[1].updateLowerBound(multLB(vars[0].getLB()), aCause);
+                return vars[1].updateLowerBound(mult(vars[0].getLB() - 1) + 1, aCause);
             }
         }
 
@@ -140,7 +192,7 @@ public class RoundedUpDivision extends IntConstraint<IntVar> {
             if (i == 1) {
                 return vars[0].updateUpperBound(div(vars[1].getUB()), aCause);
             } else {
-                return vars[1].updateUpperBound((int) Math.floor(divider * vars[0].getUB()), aCause);
+                return vars[1].updateUpperBound(mult(vars[0].getUB()), aCause);
             }
         }
     }
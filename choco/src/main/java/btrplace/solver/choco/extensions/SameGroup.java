@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import gnu.trove.list.array.TIntArrayList;
+import memory.IStateInt;
+import solver.Solver;
+import solver.constraints.IntConstraint;
+import solver.constraints.Propagator;
+import solver.constraints.PropagatorPriority;
+import solver.exception.ContradictionException;
+import solver.variables.EventType;
+import solver.variables.IntVar;
+import solver.variables.delta.IIntDeltaMonitor;
+import util.ESat;
+import util.iterators.DisposableValueIterator;
+import util.procedure.UnaryIntProcedure;
+import util.tools.ArrayUtils;
+
+/**
+ * Enforces a set of variables to take their values inside a same group of values.
+ * A variable indicates the selected group.
+ * <p/>
+ * This is equivalent to one element constraint per variable but the groups
+ * that are supported by each variable are counted so the propagation is incremental.
+ *
+ * @author Fabien Hermenier
+ */
+public class SameGroup extends IntConstraint<IntVar> {
+
+    /**
+     * Denotes a value that belongs to no group.
+     */
+    public static final int NO_GROUP = -1;
+
+    private int[] groupOf;
+
+    private int nbVars;
+
+    /**
+     * Make a new constraint.
+     *
+     * @param s       the solver
+     * @param vs      the variables to constraint
+     * @param groupOf the group of each value. {@link #NO_GROUP} if the value belongs to no group
+     * @param grp     the variable indicating the group of the values
+     */
+    public SameGroup(Solver s, IntVar[] vs, int[] groupOf, IntVar grp) {
+        super(ArrayUtils.append(vs, new IntVar[]{grp}), s);
+        this.groupOf = groupOf;
+        this.nbVars = vs.length;
+        setPropagators(new SameGroupPropagator(vs, grp));
+    }
+
+    private int getGroup(int v) {
+        return v >= 0 && v < groupOf.length ? groupOf[v] : NO_GROUP;
+    }
+
+    @Override
+    public ESat isSatisfied(int[] tuple) {
+        int g = tuple[nbVars];
+        for (int i = 0; i < nbVars; i++) {
+            if (getGroup(tuple[i]) != g) {
+                return ESat.FALSE;
+            }
+        }
+        return ESat.TRUE;
+    }
+
+    class SameGroupPropagator extends Propagator<IntVar> {
+
+        private IntVar[] vs;
+
+        private IntVar grp;
+
+        /**
+         * The values in each group.
+         */
+        private int[][] valuesOf;
+
+        /**
+         * counts[i][g] = number of values of group g in the domain of variable i.
+         */
+        private IStateInt[][] counts;
+
+        private IIntDeltaMonitor[] idms;
+
+        private VarRemProc varRemProc;
+
+        private GrpRemProc grpRemProc;
+
+        private boolean first = true;
+
+        public SameGroupPropagator(IntVar[] vs, IntVar grp) {
+            super(ArrayUtils.append(vs, new IntVar[]{grp}), PropagatorPriority.LINEAR, true);
+            this.vs = vs;
+            this.grp = grp;
+            int nbGroups = 0;
+            for (int g : groupOf) {
+                nbGroups = Math.max(nbGroups, g + 1);
+            }
+            TIntArrayList[] l = new TIntArrayList[nbGroups];
+            for (int g = 0; g < nbGroups; g++) {
+                l[g] = new TIntArrayList();
+            }
+            for (int v = 0; v < groupOf.length; v++) {
+                if (groupOf[v] != NO_GROUP) {
+                    l[groupOf[v]].add(v);
+                }
+            }
+            valuesOf = new int[nbGroups][];
+            for (int g = 0; g < nbGroups; g++) {
+                valuesOf[g] = l[g].toArray();
+            }
+            idms = new IIntDeltaMonitor[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                idms[i] = vars[i].monitorDelta(aCause);
+            }
+            varRemProc = new VarRemProc();
+            grpRemProc = new GrpRemProc();
+        }
+
+        @Override
+        protected int getPropagationConditions(int vIdx) {
+            return EventType.INSTANTIATE.mask + EventType.BOUND.mask + EventType.REMOVE.mask;
+        }
+
+        @Override
+        public void propagate(int m) throws ContradictionException {
+            if (!first) {
+                return;
+            }
+            first = false;
+            int nbGroups = valuesOf.length;
+            grp.updateLowerBound(0, aCause);
+            grp.updateUpperBound(nbGroups - 1, aCause);
+            int[][] cnt = new int[vs.length][nbGroups];
+            for (int i = 0; i < vs.length; i++) {
+                DisposableValueIterator it = vs[i].getValueIterator(true);
+                try {
+                    while (it.hasNext()) {
+                        int v = it.next();
+                        int g = getGroup(v);
+                        if (g == NO_GROUP) {
+                            vs[i].removeValue(v, aCause);
+                        } else {
+                            cnt[i][g]++;
+                        }
+                    }
+                } finally {
+                    it.dispose();
+                }
+            }
+            counts = new IStateInt[vs.length][nbGroups];
+            for (int i = 0; i < vs.length; i++) {
+                for (int g = 0; g < nbGroups; g++) {
+                    counts[i][g] = grp.getSolver().getEnvironment().makeInt(cnt[i][g]);
+                }
+            }
+            for (int g = 0; g < nbGroups; g++) {
+                if (!grp.contains(g)) {
+                    clearGroup(g);
+                } else {
+                    for (int i = 0; i < vs.length; i++) {
+                        if (counts[i][g].get() == 0) {
+                            removeGroup(g);
+                            break;
+                        }
+                    }
+                }
+            }
+            for (IIntDeltaMonitor idm : idms) {
+                idm.unfreeze();
+            }
+        }
+
+        @Override
+        public void propagate(int idx, int mask) throws ContradictionException {
+            idms[idx].freeze();
+            if (idx < vs.length) {
+                idms[idx].forEach(varRemProc.set(idx), EventType.REMOVE);
+            } else {
+                idms[idx].forEach(grpRemProc, EventType.REMOVE);
+            }
+            idms[idx].unfreeze();
+        }
+
+        /**
+         * Remove a group from the candidates.
+         *
+         * @param g the group
+         * @throws ContradictionException if there is no more candidate groups
+         */
+        private void removeGroup(int g) throws ContradictionException {
+            if (grp.removeValue(g, aCause)) {
+                clearGroup(g);
+            }
+        }
+
+        /**
+         * Remove the values of a group that is no longer a candidate.
+         *
+         * @param g the group
+         * @throws ContradictionException if a variable has no more values
+         */
+        private void clearGroup(int g) throws ContradictionException {
+            for (int i = 0; i < vs.length; i++) {
+                for (int v : valuesOf[g]) {
+                    if (vs[i].removeValue(v, aCause)) {
+                        counts[i][g].add(-1);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public ESat isEntailed() {
+            if (!grp.instantiated()) {
+                return ESat.UNDEFINED;
+            }
+            boolean all = true;
+            for (IntVar v : vs) {
+                if (v.instantiated()) {
+                    if (getGroup(v.getValue()) != grp.getValue()) {
+                        return ESat.FALSE;
+                    }
+                } else {
+                    all = false;
+                }
+            }
+            return all ? ESat.TRUE : ESat.UNDEFINED;
+        }
+
+        /**
+         * Update the counters when a value is removed from a variable.
+         */
+        private class VarRemProc implements UnaryIntProcedure<Integer> {
+
+            private int var;
+
+            @Override
+            public UnaryIntProcedure set(Integer idxVar) {
+                this.var = idxVar;
+                return this;
+            }
+
+            @Override
+            public void execute(int val) throws ContradictionException {
+                int g = getGroup(val);
+                if (g != NO_GROUP && counts[var][g].add(-1) == 0) {
+                    removeGroup(g);
+                }
+            }
+        }
+
+        /**
+         * Remove the values of the groups that are removed.
+         */
+        private class GrpRemProc implements UnaryIntProcedure<Integer> {
+
+            @Override
+            public UnaryIntProcedure set(Integer idxVar) {
+                return this;
+            }
+
+            @Override
+            public void execute(int g) throws ContradictionException {
+                if (g >= 0 && g < valuesOf.length) {
+                    clearGroup(g);
+                }
+            }
+        }
+    }
+}
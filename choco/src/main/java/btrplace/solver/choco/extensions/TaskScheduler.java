@@ -20,6 +20,7 @@ package btrplace.solver.choco.extensions;
 
 import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import memory.IStateInt;
 import memory.IStateIntVector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +36,8 @@ import util.tools.ArrayUtils;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * A constraint to schedule tasks with regards to their resource usages on resources having a finite amount to share.
@@ -247,10 +250,31 @@ public class TaskScheduler extends IntConstraint<IntVar> {
         return b.toString();
     }
 
+    /**
+     * The propagator only re-propagates the resources that were impacted by an event:
+     * the instantiation of a d-hoster, or a change on a c-end, a d-start, an early start or a last end
+     * related to the resource. Each local scheduler then reaches its own fix point.
+     */
     class TaskSchedulerPropagator extends Propagator<IntVar> {
 
         private IntVar[] earlyStarts, lastEnds;
 
+        /**
+         * The resources to propagate.
+         */
+        private BitSet dirty;
+
+        /**
+         * The number of instantiated d-hosters.
+         */
+        private IStateInt nbDHosted;
+
+        /**
+         * {@code true} iff a variable is shared by several resources. In that case,
+         * a modification on a resource must be propagated to all the others.
+         */
+        private boolean sharedVars;
+
         public TaskSchedulerPropagator(IntVar[] earlyStarts,
                                        IntVar[] lastEnds,
                                        int[][] capas,
@@ -265,6 +289,15 @@ public class TaskScheduler extends IntConstraint<IntVar> {
 
             this.earlyStarts = earlyStarts;
             this.lastEnds = lastEnds;
+            dirty = new BitSet(scheds.length);
+            nbDHosted = earlyStarts[0].getSolver().getEnvironment().makeInt(0);
+            Map<IntVar, Boolean> seen = new IdentityHashMap<>(vars.length);
+            for (IntVar v : vars) {
+                if (!v.instantiated() && seen.put(v, Boolean.TRUE) != null) {
+                    sharedVars = true;
+                    break;
+                }
+            }
             BitSet[] outs = new BitSet[scheds.length];
             for (int i = 0; i < scheds.length; i++) {
                 outs[i] = new BitSet(cHosters.length);
@@ -309,17 +342,43 @@ public class TaskScheduler extends IntConstraint<IntVar> {
 
         @Override
         protected int getPropagationConditions(int vIdx) {
-            return EventType.INSTANTIATE.mask;
+            if (vIdx < dHosters.length + cHosters.length) {
+                return EventType.INSTANTIATE.mask;
+            }
+            return EventType.INSTANTIATE.mask + EventType.BOUND.mask;
         }
 
         private boolean first = true;
 
         @Override
         public void propagate(int idx, int mask) throws ContradictionException {
-
-            if (idx < dHosters.length) {
+            int nbD = dHosters.length;
+            int nbC = cHosters.length;
+            if (idx < nbD) {
                 int nIdx = vars[idx].getValue();
                 vIns[nIdx].add(idx);
+                nbDHosted.add(1);
+                if (nbDHosted.get() == nbD) {
+                    //Every resource has to be checked once all the d-slices are placed
+                    dirty.set(0, scheds.length);
+                } else {
+                    dirty.set(nIdx);
+                }
+            } else if (idx < nbD + nbC) {
+                dirty.set(vars[idx].getValue());
+            } else if (idx < nbD + 2 * nbC) {
+                dirty.set(cHosters[idx - nbD - nbC].getValue());
+            } else if (idx < 2 * nbD + 2 * nbC) {
+                IntVar h = dHosters[idx - nbD - 2 * nbC];
+                if (!h.instantiated()) {
+                    //Not on a resource yet
+                    return;
+                }
+                dirty.set(h.getValue());
+            } else if (idx < 2 * nbD + 2 * nbC + scheds.length) {
+                dirty.set(idx - 2 * nbD - 2 * nbC);
+            } else {
+                dirty.set(idx - 2 * nbD - 2 * nbC - scheds.length);
             }
             forcePropagate(EventType.INSTANTIATE);
         }
@@ -432,48 +491,40 @@ public class TaskScheduler extends IntConstraint<IntVar> {
         public void propagate(int evtmask) throws ContradictionException {
             if (first) {
                 first = false;
-                boolean isFull = true;
+                int nb = 0;
                 for (int i = 0; i < dHosters.length; i++) {
                     if (dHosters[i].instantiated()) {
                         int nIdx = dHosters[i].getValue();
                         vIns[nIdx].add(i);
-                    } else {
-                        isFull = false;
+                        nb++;
                     }
                 }
+                nbDHosted.set(nb);
                 //Already completely instantiated, need to propagate
-                if (isFull) {
-                    for (int j = 0; j < scheds.length; j++) {
-                        if (!scheds[j].propagate()) {
-                            this.contradiction(earlyStarts[j], "Invalid profile on resource '" + j + "'");
-                        }
-                    }
+                dirty.set(0, scheds.length);
+            }
+            if (nbDHosted.get() == dHosters.length) {
+                propagateDirtyResources();
+            }
+            dirty.clear();
+        }
+
+        /**
+         * Propagate the resources marked as dirty until none of them is left.
+         *
+         * @throws ContradictionException if a profile is invalid
+         */
+        private void propagateDirtyResources() throws ContradictionException {
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(0)) {
+                dirty.clear(i);
+                if (!scheds[i].propagate()) {
+                    this.contradiction(earlyStarts[i], "Invalid profile on resource '" + i + "'");
+                }
+                if (sharedVars && scheds[i].hasModified()) {
+                    //The modified variables may be related to other resources
+                    dirty.set(0, scheds.length);
+                    dirty.clear(i);
                 }
-            } else {
-                long size;
-                do {
-                    size = 0;
-                    for (IntVar v : vars) {
-                        size += v.getDomainSize();
-                    }
-                    boolean isFull = true;
-                    for (IntVar v : dHosters) {
-                        if (!v.instantiated()) {
-                            isFull = false;
-                            break;
-                        }
-                    }
-                    if (isFull) {
-                        for (int i = 0; i < scheds.length; i++) {
-                            if (!scheds[i].propagate()) {
-                                this.contradiction(earlyStarts[i], "Invalid profile on resource '" + i + "'");
-                            }
-                        }
-                    }
-                    for (IntVar v : vars) {
-                        size -= v.getDomainSize();
-                    }
-                } while (size > 0);
             }
         }
     }
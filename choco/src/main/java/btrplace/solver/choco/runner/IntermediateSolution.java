@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.runner;
+
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+
+/**
+ * A solution that has been computed while the solver is still searching.
+ * The plan is only built on demand, once. As it is extracted from the current state
+ * of the solver, it can only be built while the solution is notified.
+ * <p/>
+ * With a {@link btrplace.solver.choco.runner.staticPartitioning.StaticPartitioning}, a solution
+ * only concerns one partition: its plan only contains the actions of this partition.
+ *
+ * @author Fabien Hermenier
+ * @see SolutionListener
+ */
+public abstract class IntermediateSolution {
+
+    private SolutionStatistics stats;
+
+    private ReconfigurationPlan plan;
+
+    private boolean expired;
+
+    /**
+     * Make a new solution.
+     *
+     * @param st the statistics related to the solution
+     */
+    public IntermediateSolution(SolutionStatistics st) {
+        stats = st;
+        expired = false;
+    }
+
+    /**
+     * Get the statistics related to the solution.
+     * They state the time the solution was computed, in milliseconds since the beginning of the search,
+     * and its cost if the solver optimizes.
+     *
+     * @return the statistics
+     */
+    public SolutionStatistics getStatistics() {
+        return stats;
+    }
+
+    /**
+     * Get the plan associated to the solution.
+     *
+     * @return the plan
+     * @throws SolverException       if an error occurred while building the plan
+     * @throws IllegalStateException if the plan was not built during the notification
+     */
+    public ReconfigurationPlan getPlan() throws SolverException {
+        if (plan == null) {
+            if (expired) {
+                throw new IllegalStateException("The solution is no longer available, the plan must be retrieved during the notification");
+            }
+            plan = makePlan();
+        }
+        return plan;
+    }
+
+    /**
+     * Tell if the plan can still be built.
+     *
+     * @return {@code true} iff the plan is already built, or the solution is being notified
+     */
+    public boolean isAvailable() {
+        return plan != null || !expired;
+    }
+
+    /**
+     * Indicate the notification is over.
+     * The plan cannot be built anymore.
+     */
+    public void expire() {
+        expired = true;
+    }
+
+    /**
+     * Build the plan from the current state of the solver.
+     *
+     * @return the plan
+     * @throws SolverException if an error occurred
+     */
+    protected abstract ReconfigurationPlan makePlan() throws SolverException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.runner;
+
+/**
+ * A listener that is notified each time the solver computes a solution.
+ * When the solver optimizes, each new solution improves the previous one.
+ * <p/>
+ * The notifications are made by the thread that is solving the problem, while the search is paused.
+ * A listener that is shared by concurrent solving processes, such as the partitions of a
+ * {@link btrplace.solver.choco.runner.staticPartitioning.StaticPartitioning}, must be thread-safe.
+ * <p/>
+ * With a {@link btrplace.solver.choco.runner.staticPartitioning.StaticPartitioning}, each partition
+ * is solved separately: a notification only concerns the partition that computed the solution,
+ * so its plan and its statistics only cover this partition. Stating that a solution is good enough
+ * only stops the search of this partition, the others keep searching.
+ *
+ * @author Fabien Hermenier
+ * @see btrplace.solver.choco.ChocoReconfigurationAlgorithmParams#addSolutionListener(SolutionListener)
+ */
+public interface SolutionListener {
+
+    /**
+     * Notify a new solution has been computed.
+     *
+     * @param s the solution. Its plan can only be retrieved during the notification
+     * @return {@code true} to stop the search as the solution is good enough.
+     * The solving process, or the partition with a static partitioning, then returns this solution.
+     * {@code false} to keep searching
+     */
+    boolean onSolution(IntermediateSolution s);
+}
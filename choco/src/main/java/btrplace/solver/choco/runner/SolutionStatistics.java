@@ -46,6 +46,13 @@ public class SolutionStatistics {
 
     private boolean hasObjective = true;
 
+    /**
+     * The best value the objective can reach.
+     */
+    private int bound;
+
+    private boolean hasBound = false;
+
     /**
      * Make a new statistics.
      *
@@ -73,6 +80,21 @@ public class SolutionStatistics {
         optValue = o;
     }
 
+    /**
+     * Make a new statistics.
+     *
+     * @param nbN the number of opened nodes
+     * @param nbB the number of backtracks
+     * @param t   the time in milliseconds
+     * @param o   the value of the optimization variable
+     * @param b   the best value the optimization variable can reach
+     */
+    public SolutionStatistics(long nbN, long nbB, long t, int o, int b) {
+        this(nbN, nbB, t, o);
+        bound = b;
+        hasBound = true;
+    }
+
     /**
      * Get the number of opened nodes.
      *
@@ -117,4 +139,37 @@ public class SolutionStatistics {
     public boolean hasObjective() {
         return hasObjective;
     }
+
+    /**
+     * Indicates if the best value the optimization variable can reach is known.
+     *
+     * @return {@code true} if there is a bound
+     */
+    public boolean hasBound() {
+        return hasBound;
+    }
+
+    /**
+     * Get the best value the optimization variable can reach.
+     *
+     * @return an integer. Meaningless if {@link #hasBound()} is {@code false}
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Get the optimality gap of the solution, {@code |value - bound| / |value|}.
+     *
+     * @return a positive ratio. {@code -1} if there is no bound
+     */
+    public double getGap() {
+        if (!hasBound) {
+            return -1;
+        }
+        if (optValue == bound) {
+            return 0;
+        }
+        return Math.abs((double) optValue - bound) / Math.abs(optValue);
+    }
 }
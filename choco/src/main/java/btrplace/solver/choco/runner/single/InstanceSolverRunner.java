@@ -17,21 +17,26 @@
 
 package btrplace.solver.choco.runner.single;
 
-import btrplace.model.Instance;
-import btrplace.model.Model;
-import btrplace.model.Node;
-import btrplace.model.VM;
+import btrplace.model.*;
 import btrplace.model.constraint.*;
+import btrplace.plan.DefaultReconfigurationPlan;
 import btrplace.plan.ReconfigurationPlan;
 import btrplace.plan.ReconfigurationPlanChecker;
 import btrplace.plan.ReconfigurationPlanCheckerException;
+import btrplace.plan.event.Action;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ChocoReconfigurationAlgorithmParams;
 import btrplace.solver.choco.DefaultReconfigurationProblemBuilder;
+import btrplace.solver.choco.NodePooling;
 import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.SymmetryBreaker;
+import btrplace.solver.choco.constraint.CMaxConcurrentActions;
 import btrplace.solver.choco.constraint.ChocoConstraint;
 import btrplace.solver.choco.constraint.ChocoConstraintBuilder;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.runner.InstanceResult;
+import btrplace.solver.choco.runner.IntermediateSolution;
+import btrplace.solver.choco.runner.SolutionListener;
 import btrplace.solver.choco.runner.SolutionStatistics;
 import solver.Cause;
 import solver.exception.ContradictionException;
@@ -50,6 +55,11 @@ import java.util.concurrent.Callable;
  */
 public class InstanceSolverRunner implements Callable<InstanceResult> {
 
+    /**
+     * The estimator shared by all the runners.
+     */
+    private static final MisplacedVMsEstimator ESTIMATOR = new MisplacedVMsEstimator();
+
     private ChocoReconfigurationAlgorithmParams params;
 
     private ReconfigurationProblem rp;
@@ -60,10 +70,24 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
 
     private Model origin;
 
+    private DurationTable durations;
+
     private long coreRPDuration;
 
     private long speRPDuration;
 
+    private long misplacedDuration;
+
+    private int nbRepairRounds;
+
+    private Set<VM> toRun;
+
+    private Set<VM> toForge;
+
+    private Set<VM> toKill;
+
+    private Set<VM> toSleep;
+
     private long start;
 
     private List<SolutionStatistics> measures;
@@ -75,10 +99,23 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
      * @param i  the instance to solve
      */
     public InstanceSolverRunner(ChocoReconfigurationAlgorithmParams ps, Instance i) {
+        this(ps, i, null);
+    }
+
+    /**
+     * Make a new runner.
+     *
+     * @param ps the parameters for the solving process
+     * @param i  the instance to solve
+     * @param t  the durations precomputed for the instance model, or a model containing it.
+     *           {@code null} to compute them
+     */
+    public InstanceSolverRunner(ChocoReconfigurationAlgorithmParams ps, Instance i, DurationTable t) {
         cstrs = i.getSatConstraints();
         obj = i.getOptConstraint();
         origin = i.getModel();
         params = ps;
+        durations = t;
     }
 
     @Override
@@ -87,15 +124,18 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
         start = System.currentTimeMillis();
         coreRPDuration = -System.currentTimeMillis();
         measures = new ArrayList<>();
+        misplacedDuration = 0;
+        nbRepairRounds = 0;
         //Build the RP. As VM state management is not possible
         //We extract VM-state related constraints first.
         //For other constraint, we just create the right choco constraint
-        Set<VM> toRun = new HashSet<>();
-        Set<VM> toForge = new HashSet<>();
-        Set<VM> toKill = new HashSet<>();
-        Set<VM> toSleep = new HashSet<>();
+        toRun = new HashSet<>();
+        toForge = new HashSet<>();
+        toKill = new HashSet<>();
+        toSleep = new HashSet<>();
 
         List<ChocoConstraint> cConstraints = new ArrayList<>();
+        List<SatConstraint> sConstraints = new ArrayList<>();
         for (SatConstraint cstr : cstrs) {
             checkNodesExistence(origin, cstr.getInvolvedNodes());
 
@@ -118,35 +158,84 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
                 toKill.addAll(cstr.getInvolvedVMs());
             }
 
-            ChocoConstraintBuilder ccBuilder = params.getConstraintMapper().getBuilder(cstr.getClass());
-            if (ccBuilder == null) {
-                throw new SolverException(origin, "Unable to map constraint '" + cstr.getClass().getSimpleName() + "'");
-            }
-            ChocoConstraint cc = ccBuilder.build(cstr);
-            if (cc == null) {
-                throw new SolverException(origin, "Error while mapping the constraint '"
-                        + cstr.getClass().getSimpleName() + "'");
-            }
-
-            cConstraints.add(cc);
+            cConstraints.add(build(cstr));
+            sConstraints.add(cstr);
         }
 
         //Make the optimization constraint
         ChocoConstraint cObj = buildOptConstraint();
 
-        //Make the core-RP
+        Model mo = poolNodes();
+        Set<VM> toManage = null;
+        if (params.doRepair()) {
+            misplacedDuration = -System.currentTimeMillis();
+            toManage = ESTIMATOR.estimate(origin, cConstraints, sConstraints);
+            toManage.addAll(cObj.getMisPlacedVMs(origin));
+            misplacedDuration += System.currentTimeMillis();
+        }
+        //The durations are computed once for all the repair rounds
+        DurationTable table = durations != null ? durations : params.getDurationEvaluators().precompute(origin);
+        nbRepairRounds = 1;
+        ReconfigurationPlan p = solve(mo, toManage, table, cConstraints, cObj, params.getTimeLimit());
+
+        //Escalate the repair while the problem is proved to have no solution
+        int strategy = 0;
+        while (p == null && toManage != null && params.doEscalateRepair()
+                && rp != null && !rp.getSolver().hasReachedLimit()) {
+            int timeLimit = remainingTime();
+            if (timeLimit < 0) {
+                break;
+            }
+            Set<VM> wider = widen(toManage, strategy++);
+            if (wider != null && wider.size() == toManage.size()) {
+                //Nothing new, try the next strategy
+                continue;
+            }
+            toManage = wider;
+            nbRepairRounds++;
+            rp.getLogger().debug("No solution, repair round {} with {} manageable VMs", nbRepairRounds,
+                    toManage == null ? "all the" : toManage.size());
+            //The choco constraints are bound to the problem they were injected in
+            cConstraints = new ArrayList<>(cstrs.size());
+            for (SatConstraint cstr : cstrs) {
+                cConstraints.add(build(cstr));
+            }
+            p = solve(mo, toManage, table, cConstraints, buildOptConstraint(), timeLimit);
+        }
 
+        //No solutions, but still some statistics
+        if (p == null) {
+            return new InstanceResult(null, makeStatistics());
+        }
+        if (mo != origin) {
+            p = expand(p);
+        }
+        return new InstanceResult(p, makeStatistics());
+    }
 
-        DefaultReconfigurationProblemBuilder rpb = new DefaultReconfigurationProblemBuilder(origin)
+    /**
+     * Build and solve a problem.
+     *
+     * @param mo        the model to build the problem from
+     * @param toManage  the VMs that can be managed. {@code null} to manage all the VMs
+     * @param table     the durations of the actions for the elements of the model
+     * @param cs        the constraints to inject
+     * @param cObj      the objective to inject
+     * @param timeLimit the time limit in seconds
+     * @return the computed plan. {@code null} if there is no solution
+     */
+    private ReconfigurationPlan solve(final Model mo, Set<VM> toManage, DurationTable table, List<ChocoConstraint> cs, ChocoConstraint cObj, int timeLimit) throws SolverException {
+        if (nbRepairRounds > 1) {
+            //The statistics focus on the last round
+            coreRPDuration = -System.currentTimeMillis();
+            measures = new ArrayList<>();
+        }
+        DefaultReconfigurationProblemBuilder rpb = new DefaultReconfigurationProblemBuilder(mo)
                 .setNextVMsStates(toForge, toRun, toSleep, toKill)
                 .setViewMapper(params.getViewMapper())
-                .setDurationEvaluators(params.getDurationEvaluators());
-        if (params.doRepair()) {
-            Set<VM> toManage = new HashSet<>();
-            for (ChocoConstraint cstr : cConstraints) {
-                toManage.addAll(cstr.getMisPlacedVMs(origin));
-            }
-            toManage.addAll(cObj.getMisPlacedVMs(origin));
+                .setDurationEvaluators(params.getDurationEvaluators())
+                .setDurationTable(table);
+        if (toManage != null) {
             rpb.setManageableVMs(toManage);
         }
         rpb.labelVariables(params.getVerbosity() > 0);
@@ -165,23 +254,33 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
         //Customize with the constraints
         speRPDuration = -System.currentTimeMillis();
         try {
-            for (ChocoConstraint ccstr : cConstraints) {
+            for (ChocoConstraint ccstr : cs) {
                 if (!ccstr.inject(rp)) {
-                    return new InstanceResult(null, makeStatistics());
+                    return null;
                 }
             }
         } catch (UnsupportedOperationException ex) {
             //TODO: fix that ugly hack: no solution
-            return new InstanceResult(null, makeStatistics());
+            return null;
+        }
+
+        //The concurrency caps
+        if (params.getMaxConcurrentActionsPerNode() > 0 || params.getMaxConcurrentActions() > 0) {
+            new CMaxConcurrentActions(params.getMaxConcurrentActionsPerNode(), params.getMaxConcurrentActions()).inject(rp);
         }
 
         //The objective
         cObj.inject(rp);
+
+        if (params.doBreakSymmetries()) {
+            int nb = new SymmetryBreaker(rp, cstrs, obj).inject();
+            rp.getLogger().debug("{} symmetry breaking constraints", nb);
+        }
         speRPDuration += System.currentTimeMillis();
         rp.getLogger().debug("{} ms to build the core-RP + {} ms to tune it", coreRPDuration, speRPDuration);
 
         rp.getLogger().debug("{} nodes; {} VMs; {} constraints", rp.getNodes().length, rp.getVMs().length, cstrs.size());
-        rp.getLogger().debug("optimize: {}; timeLimit: {}; manageableVMs: {}", params.doOptimize(), params.getTimeLimit(), rp.getManageableVMs().size());
+        rp.getLogger().debug("optimize: {}; timeLimit: {}; manageableVMs: {}", params.doOptimize(), timeLimit, rp.getManageableVMs().size());
 
         //The solution monitor to store the measures at each solution
         rp.getSolver().getSearchLoop().plugSearchMonitor(new IMonitorSolution() {
@@ -193,13 +292,15 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
                     sol = new SolutionStatistics(m.getNodeCount(),
                             m.getBackTrackCount(),
                             (long) m.getTimeCount(),
-                            m.getBestSolutionValue().intValue());
+                            m.getBestSolutionValue().intValue(),
+                            rp.getObjectiveBound());
                 } else {
                     sol = new SolutionStatistics(m.getNodeCount(),
                             m.getBackTrackCount(),
                             (long) m.getTimeCount());
                 }
                 measures.add(sol);
+                notifyListeners(sol, mo);
             }
         });
 
@@ -207,13 +308,144 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
         SMF.log(rp.getSolver(), params.getVerbosity() >= 2, params.getVerbosity() >= 3);
 
         //The actual solving process
-        ReconfigurationPlan p = rp.solve(params.getTimeLimit(), params.doOptimize());
+        rp.setMaxOptimalityGap(params.getMaxOptimalityGap());
+        return rp.solve(timeLimit, params.doOptimize());
+    }
 
-        //No solutions, but still some statistics
-        if (p == null) {
-            return new InstanceResult(null, makeStatistics());
+    /**
+     * Notify the listeners a solution has been computed.
+     * The search is stopped once a listener considers the solution is good enough.
+     *
+     * @param sol the solution statistics
+     * @param mo  the model the problem is built from
+     */
+    private void notifyListeners(SolutionStatistics sol, final Model mo) {
+        List<SolutionListener> listeners = params.getSolutionListeners();
+        if (listeners.isEmpty()) {
+            return;
         }
-        return new InstanceResult(p, makeStatistics());
+        IntermediateSolution s = new IntermediateSolution(sol) {
+            @Override
+            protected ReconfigurationPlan makePlan() throws SolverException {
+                ReconfigurationPlan p = rp.buildReconfigurationPlan();
+                return mo != origin ? expand(p) : p;
+            }
+        };
+        boolean stop = false;
+        for (SolutionListener l : listeners) {
+            stop |= l.onSolution(s);
+        }
+        s.expire();
+        if (stop) {
+            rp.getLogger().debug("Solution considered as good enough. Stop the search");
+            rp.getSolver().getSearchLoop().interrupt("good enough solution");
+        }
+    }
+
+    /**
+     * Get the time that remains for the solving process.
+     *
+     * @return the remaining time in seconds. {@code 0} if there is no time limit,
+     * a negative number if the time limit is reached
+     */
+    private int remainingTime() {
+        if (params.getTimeLimit() <= 0) {
+            return 0;
+        }
+        int elapsed = (int) ((System.currentTimeMillis() - start + 999) / 1000);
+        int remaining = params.getTimeLimit() - elapsed;
+        return remaining > 0 ? remaining : -1;
+    }
+
+    /**
+     * Widen a set of manageable VMs.
+     * <ul>
+     * <li>strategy 0: add the running VMs on the nodes that host a manageable VM</li>
+     * <li>strategy 1: add the VMs that share a constraint with a manageable VM, and the running VMs
+     * on the nodes of such a constraint</li>
+     * <li>otherwise: every VM is manageable</li>
+     * </ul>
+     *
+     * @param vms      the current manageable VMs
+     * @param strategy the widening strategy
+     * @return the new manageable VMs. {@code null} to manage all the VMs
+     */
+    private Set<VM> widen(Set<VM> vms, int strategy) {
+        Mapping map = origin.getMapping();
+        Set<VM> res = new HashSet<>(vms);
+        if (strategy == 0) {
+            for (VM v : vms) {
+                Node n = map.getVMLocation(v);
+                if (n != null) {
+                    res.addAll(map.getRunningVMs(n));
+                }
+            }
+        } else if (strategy == 1) {
+            for (SatConstraint c : cstrs) {
+                if (!Collections.disjoint(c.getInvolvedVMs(), vms)) {
+                    for (VM v : c.getInvolvedVMs()) {
+                        if (map.contains(v)) {
+                            res.add(v);
+                        }
+                    }
+                    res.addAll(map.getRunningVMs(c.getInvolvedNodes()));
+                }
+            }
+        } else {
+            return null;
+        }
+        return res;
+    }
+
+    /**
+     * Remove the equivalent idle nodes that are in excess, if requested.
+     *
+     * @return the model to build the problem from. Either the origin or a sub-model of it
+     */
+    private Model poolNodes() {
+        if (!params.doPoolNodes()) {
+            return origin;
+        }
+        Mapping map = origin.getMapping();
+        //Each VM that may be placed uses at most one idle node
+        int nbVMs = map.getRunningVMs().size() + toRun.size();
+        Set<Node> removable = new NodePooling(origin, cstrs, obj).getRemovableNodes(nbVMs);
+        if (removable.isEmpty()) {
+            return origin;
+        }
+        Set<Node> kept = new HashSet<>(map.getAllNodes());
+        kept.removeAll(removable);
+        return new SubModel(origin, origin, kept, map.getReadyVMs());
+    }
+
+    /**
+     * Turn a plan computed on a pooled sub-model into a plan for the origin.
+     * The removed nodes stay idle so the actions are unchanged.
+     */
+    private ReconfigurationPlan expand(ReconfigurationPlan p) throws SolverException {
+        ReconfigurationPlan res = new DefaultReconfigurationPlan(origin);
+        for (Action a : p) {
+            if (!res.add(a)) {
+                throw new SolverException(origin, "Unable to add action '" + a + "' while expanding the pooled nodes");
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Make the choco implementation of a constraint.
+     */
+    private ChocoConstraint build(SatConstraint cstr) throws SolverException {
+        ChocoConstraintBuilder ccBuilder = params.getConstraintMapper().getBuilder(cstr.getClass());
+        if (ccBuilder == null) {
+            throw new SolverException(origin, "Unable to map constraint '" + cstr.getClass().getSimpleName() + "'");
+        }
+        ChocoConstraint cc = ccBuilder.build(cstr);
+        if (cc == null) {
+            throw new SolverException(origin, "Error while mapping the constraint '"
+                    + cstr.getClass().getSimpleName() + "'");
+        }
+        return cc;
     }
 
     /**
@@ -288,6 +520,8 @@ public class InstanceSolverRunner implements Callable<InstanceResult> {
                 false,//huh
                 coreRPDuration,
                 speRPDuration);
+        st.setMisplacedVMsDuration(misplacedDuration);
+        st.setNbRepairRounds(nbRepairRounds);
 
         for (SolutionStatistics m : measures) {
             st.addSolution(m);
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.runner.single;
+
+import btrplace.model.Mapping;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.Overbook;
+import btrplace.model.constraint.ResourceCapacity;
+import btrplace.model.constraint.RunningCapacity;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.constraint.checker.ModelAggregates;
+import btrplace.model.constraint.checker.ModelChecker;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.choco.constraint.COverbook;
+import btrplace.solver.choco.constraint.CResourceCapacity;
+import btrplace.solver.choco.constraint.CRunningCapacity;
+import btrplace.solver.choco.constraint.ChocoConstraint;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimate in parallel the VMs that are misplaced with regards to a batch of constraints.
+ * <p/>
+ * The constraints are split among the workers of a fork-join pool.
+ * The model is only read so it must not be modified during the estimation.
+ * <p/>
+ * The resource usage of each online node is computed once per resource using {@link ModelAggregates}
+ * and shared among the {@link CResourceCapacity} and the {@link COverbook} constraints.
+ * The other constraints are estimated using {@link ChocoConstraint#getMisPlacedVMs(Model)}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MisplacedVMsEstimator {
+
+    /**
+     * The default number of constraints estimated by a single task.
+     */
+    public static final int DEFAULT_GRAIN = 64;
+
+    private ForkJoinPool pool;
+
+    private int grain;
+
+    /**
+     * Make a new estimator that relies on the pool shared with the model checkers.
+     *
+     * @see ModelChecker#getSharedPool()
+     */
+    public MisplacedVMsEstimator() {
+        this(ModelChecker.getSharedPool(), DEFAULT_GRAIN);
+    }
+
+    /**
+     * Make a new estimator.
+     * The pool is owned by the caller, so it is never shut down by the estimator.
+     *
+     * @param p the pool to use
+     * @param g the maximum number of constraints estimated by a single task
+     */
+    public MisplacedVMsEstimator(ForkJoinPool p, int g) {
+        if (g < 1) {
+            throw new IllegalArgumentException("The grain must be strictly positive");
+        }
+        pool = p;
+        grain = g;
+    }
+
+    /**
+     * Get the maximum number of constraints estimated by a single task.
+     *
+     * @return a positive integer
+     */
+    public int getGrain() {
+        return grain;
+    }
+
+    /**
+     * Get the VMs that are misplaced with regards to a batch of constraints.
+     *
+     * @param mo    the model to consider
+     * @param cstrs the constraints
+     * @param sats  the constraint each choco constraint is built from, in the same order.
+     *              Used to share the aggregates among the supported constraints
+     * @return the misplaced VMs. May be empty
+     */
+    public Set<VM> estimate(Model mo, List<ChocoConstraint> cstrs, List<SatConstraint> sats) {
+        if (cstrs.size() != sats.size()) {
+            throw new IllegalArgumentException("The number of choco constraints (" + cstrs.size()
+                    + ") differs from the number of constraints (" + sats.size() + ")");
+        }
+        ChocoConstraint[] cs = cstrs.toArray(new ChocoConstraint[cstrs.size()]);
+        SatConstraint[] ss = sats.toArray(new SatConstraint[sats.size()]);
+        EstimateTask t = new EstimateTask(new ModelAggregates(mo), cs, ss, 0, cs.length);
+        if (cs.length <= grain) {
+            //Not worth a context switch
+            return t.compute();
+        }
+        return pool.invoke(t);
+    }
+
+    /**
+     * Estimate a single constraint.
+     *
+     * @param ag the shared aggregates
+     * @param cc the constraint to estimate
+     * @param c  the constraint {@code cc} is built from
+     * @return the misplaced VMs
+     */
+    private static Set<VM> estimate(ModelAggregates ag, ChocoConstraint cc, SatConstraint c) {
+        if (cc.getClass() == CResourceCapacity.class && c instanceof ResourceCapacity) {
+            return estimate(ag, (ResourceCapacity) c);
+        } else if (cc.getClass() == COverbook.class && c instanceof Overbook) {
+            return estimate(ag, (Overbook) c);
+        } else if (cc.getClass() == CRunningCapacity.class && c instanceof RunningCapacity) {
+            return estimate(ag, (RunningCapacity) c);
+        }
+        return cc.getMisPlacedVMs(ag.getModel());
+    }
+
+    private static Set<VM> estimate(ModelAggregates ag, ResourceCapacity c) {
+        Mapping map = ag.getModel().getMapping();
+        TObjectIntHashMap<Node> usages = ag.getUsages(c.getResource());
+        if (usages == null) {
+            return map.getRunningVMs(c.getInvolvedNodes());
+        }
+        int remainder = c.getAmount();
+        for (Node n : c.getInvolvedNodes()) {
+            remainder -= usages.get(n);
+        }
+        if (remainder >= 0) {
+            return Collections.emptySet();
+        }
+        return map.getRunningVMs(c.getInvolvedNodes());
+    }
+
+    private static Set<VM> estimate(ModelAggregates ag, Overbook c) {
+        Mapping map = ag.getModel().getMapping();
+        Node n = c.getInvolvedNodes().iterator().next();
+        TObjectIntHashMap<Node> usages = ag.getUsages(c.getResource());
+        if (usages == null) {
+            return map.getRunningVMs(n);
+        }
+        ShareableResource rc = ag.getResource(c.getResource());
+        if (usages.get(n) > (int) (c.getRatio() * rc.getCapacity(n))) {
+            return map.getRunningVMs(n);
+        }
+        return Collections.emptySet();
+    }
+
+    private static Set<VM> estimate(ModelAggregates ag, RunningCapacity c) {
+        Mapping map = ag.getModel().getMapping();
+        int nb = 0;
+        for (Node n : c.getInvolvedNodes()) {
+            nb += map.getRunningVMs(n).size();
+        }
+        if (nb <= c.getAmount()) {
+            return Collections.emptySet();
+        }
+        return map.getRunningVMs(c.getInvolvedNodes());
+    }
+
+    /**
+     * Estimate a range of constraints, split it if it is too large.
+     */
+    private class EstimateTask extends RecursiveTask<Set<VM>> {
+
+        private ModelAggregates ag;
+
+        private ChocoConstraint[] cstrs;
+
+        private SatConstraint[] sats;
+
+        private int from;
+
+        private int to;
+
+        public EstimateTask(ModelAggregates ag, ChocoConstraint[] cstrs, SatConstraint[] sats, int from, int to) {
+            this.ag = ag;
+            this.cstrs = cstrs;
+            this.sats = sats;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Set<VM> compute() {
+            if (to - from <= grain) {
+                Set<VM> res = new HashSet<>();
+                for (int i = from; i < to; i++) {
+                    res.addAll(MisplacedVMsEstimator.estimate(ag, cstrs[i], sats[i]));
+                }
+                return res;
+            }
+            int mid = (from + to) >>> 1;
+            EstimateTask left = new EstimateTask(ag, cstrs, sats, from, mid);
+            EstimateTask right = new EstimateTask(ag, cstrs, sats, mid, to);
+            left.fork();
+            Set<VM> res = right.compute();
+            Set<VM> other = left.join();
+            if (other.size() > res.size()) {
+                other.addAll(res);
+                return other;
+            }
+            res.addAll(other);
+            return res;
+        }
+    }
+}
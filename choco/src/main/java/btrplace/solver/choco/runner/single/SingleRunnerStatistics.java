@@ -70,6 +70,10 @@ public class SingleRunnerStatistics implements SolvingStatistics {
 
     private long speRPDuration;
 
+    private long misplacedDuration;
+
+    private int nbRepairRounds;
+
     private long start;
 
     /**
@@ -125,6 +129,46 @@ public class SingleRunnerStatistics implements SolvingStatistics {
         return speRPDuration;
     }
 
+    /**
+     * Set the duration of the estimation of the misplaced VMs.
+     * The estimation is a part of the core-RP building process.
+     *
+     * @param d a duration in milliseconds
+     */
+    public void setMisplacedVMsDuration(long d) {
+        misplacedDuration = d;
+    }
+
+    /**
+     * Get the duration of the estimation of the misplaced VMs.
+     *
+     * @return a duration in milliseconds. {@code 0} if the repair mode is not used
+     */
+    public long getMisplacedVMsDuration() {
+        return misplacedDuration;
+    }
+
+    /**
+     * Set the number of problems that have been solved in repair mode.
+     *
+     * @param nb a positive integer
+     */
+    public void setNbRepairRounds(int nb) {
+        nbRepairRounds = nb;
+    }
+
+    /**
+     * Get the number of problems that have been solved in repair mode.
+     * More than one problem is solved when the repair is escalated.
+     * The other statistics then focus on the last problem.
+     *
+     * @return a positive integer. {@code 0} if no problem was solved
+     * @see btrplace.solver.choco.ChocoReconfigurationAlgorithmParams#doEscalateRepair(boolean)
+     */
+    public int getNbRepairRounds() {
+        return nbRepairRounds;
+    }
+
     @Override
     public long getNbSearchNodes() {
         return nbSearchNodes;
@@ -190,7 +234,14 @@ public class SingleRunnerStatistics implements SolvingStatistics {
         if (params.getTimeLimit() > 0) {
             b.append("; timeout: ").append(params.getTimeLimit()).append("s");
         }
-        b.append("\nBuilding duration: ").append(coreRPBuildDuration).append("ms (core-RP) + ").append(speRPDuration).append("ms (specialization)");
+        b.append("\nBuilding duration: ").append(coreRPBuildDuration).append("ms (core-RP");
+        if (params.doRepair()) {
+            b.append(", including ").append(misplacedDuration).append("ms to estimate the misplaced VMs");
+            if (nbRepairRounds > 1) {
+                b.append("; last of ").append(nbRepairRounds).append(" repair rounds");
+            }
+        }
+        b.append(") + ").append(speRPDuration).append("ms (specialization)");
         b.append("\nAfter ").append(time).append("ms of search");
         if (timeout) {
             b.append(" (timeout)");
@@ -214,6 +265,9 @@ public class SingleRunnerStatistics implements SolvingStatistics {
                     .append(st.getNbBacktracks()).append(" backtrack(s)");
             if (st.hasObjective()) {
                 b.append(", objective: ").append(st.getOptValue());
+                if (st.hasBound()) {
+                    b.append(" (bound: ").append(st.getBound()).append(')');
+                }
             }
             b.append('\n');
             i++;
@@ -25,6 +25,7 @@ import btrplace.plan.ReconfigurationPlan;
 import btrplace.plan.event.Action;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.ChocoReconfigurationAlgorithmParams;
+import btrplace.solver.choco.durationEvaluator.DurationTable;
 import btrplace.solver.choco.runner.InstanceResult;
 import btrplace.solver.choco.runner.InstanceSolver;
 import btrplace.solver.choco.runner.SolvingStatistics;
@@ -99,8 +100,10 @@ public abstract class StaticPartitioning implements InstanceSolver {
         int nbConstraints = orig.getSatConstraints().size();
 
         long duration = -System.currentTimeMillis();
+        //The durations are evaluated once for all the partitions
+        DurationTable durations = cra.getDurationEvaluators().precompute(orig.getModel());
         for (Instance partition : partitions) {
-            completionService.submit(new InstanceSolverRunner(cra, partition));
+            completionService.submit(new InstanceSolverRunner(cra, partition, durations));
         }
 
         boolean solved = true;
@@ -123,6 +123,10 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
         int firstN = 0, firstB = 0, firstOptValue = 0;
         int lastN = 0, lastB = 0, lastOptValue = 0;
 
+        //The bounds of the partitions are summed up, as the objective values
+        int bound = 0;
+        boolean hasBound = true;
+
         //firstTime  == end of the last first solution
         //lastTime ==  end of the last computed partition solution
         long endFirst = start;
@@ -140,6 +144,8 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
                 firstN += first.getNbNodes();
                 firstB += first.getNbBacktracks();
                 firstOptValue += first.getOptValue();
+                hasBound &= first.hasBound();
+                bound += first.getBound();
                 endFirst = Math.max(endFirst, st.getStart() + first.getTime());
                 if (st.getSolutions().size() > 1) {
                     multipleSolution = true;
@@ -157,9 +163,16 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
             }
         }
 
-        solutions.add(new SolutionStatistics(firstN, firstB, endFirst - start, firstOptValue));
-        if (multipleSolution) {
-            solutions.add(new SolutionStatistics(lastN, lastB, endLast - start, lastOptValue));
+        if (hasBound) {
+            solutions.add(new SolutionStatistics(firstN, firstB, endFirst - start, firstOptValue, bound));
+            if (multipleSolution) {
+                solutions.add(new SolutionStatistics(lastN, lastB, endLast - start, lastOptValue, bound));
+            }
+        } else {
+            solutions.add(new SolutionStatistics(firstN, firstB, endFirst - start, firstOptValue));
+            if (multipleSolution) {
+                solutions.add(new SolutionStatistics(lastN, lastB, endLast - start, lastOptValue));
+            }
         }
         return solutions;
     }
@@ -263,6 +276,9 @@ public class StaticPartitioningStatistics implements SolvingStatistics {
                         .append(st.getNbBacktracks()).append(" backtrack(s)");
                 if (st.hasObjective()) {
                     b.append(", objective: ").append(st.getOptValue());
+                    if (st.hasBound()) {
+                        b.append(" (bound: ").append(st.getBound()).append(')');
+                    }
                 }
                 b.append('\n');
                 i++;
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.view;
+
+import btrplace.model.VM;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.Slice;
+import btrplace.solver.choco.actionModel.NodeActionModel;
+import btrplace.solver.choco.actionModel.VMActionModel;
+import btrplace.solver.choco.extensions.FastIFFEq;
+import solver.Solver;
+import solver.constraints.IntConstraintFactory;
+import solver.variables.BoolVar;
+import solver.variables.IntVar;
+import solver.variables.Task;
+import solver.variables.VariableFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A solver-side view to bound the number of actions that are executed simultaneously,
+ * on each node and on the whole infrastructure.
+ * <p/>
+ * Each action that is not instantaneous is modeled as a task of height 1. A VM action
+ * involves the node hosting its c-slice and the node hosting its d-slice.
+ * On a node that is not known yet, the height of the task is reified to the VM placement.
+ * A cumulative constraint then bounds the number of actions that involve each capped node,
+ * another one bounds the total number of actions.
+ * <p/>
+ * The caps are stated using {@link #capNode(int, int)} and {@link #capGlobal(int)}.
+ * The constraints are posted in {@link #beforeSolve(ReconfigurationProblem)}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CConcurrentActions implements ChocoModelView {
+
+    /**
+     * The view identifier.
+     */
+    public static final String VIEW_ID = "concurrentActions";
+
+    /**
+     * The value to denote a missing cap.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private int[] nodeCaps;
+
+    private int globalCap;
+
+    /**
+     * Make a new view without any cap.
+     *
+     * @param rp the problem to rely on
+     */
+    public CConcurrentActions(ReconfigurationProblem rp) {
+        nodeCaps = new int[rp.getNodes().length];
+        Arrays.fill(nodeCaps, UNBOUNDED);
+        globalCap = UNBOUNDED;
+    }
+
+    /**
+     * Cap the number of actions that involve a node simultaneously.
+     * If the node is already capped, the lowest cap is kept.
+     *
+     * @param nIdx the node index
+     * @param c    the maximum number of concurrent actions. Must be strictly positive
+     * @return {@code true} iff the cap has been stated
+     */
+    public boolean capNode(int nIdx, int c) {
+        if (c <= 0 || nIdx < 0 || nIdx >= nodeCaps.length) {
+            return false;
+        }
+        nodeCaps[nIdx] = Math.min(nodeCaps[nIdx], c);
+        return true;
+    }
+
+    /**
+     * Cap the number of actions executed simultaneously on the whole infrastructure.
+     * If there is already a cap, the lowest one is kept.
+     *
+     * @param c the maximum number of concurrent actions. Must be strictly positive
+     * @return {@code true} iff the cap has been stated
+     */
+    public boolean capGlobal(int c) {
+        if (c <= 0) {
+            return false;
+        }
+        globalCap = Math.min(globalCap, c);
+        return true;
+    }
+
+    /**
+     * Get the cap of a node.
+     *
+     * @param nIdx the node index
+     * @return the maximum number of concurrent actions. {@link #UNBOUNDED} if the node is not capped
+     */
+    public int getNodeCap(int nIdx) {
+        return nodeCaps[nIdx];
+    }
+
+    /**
+     * Get the cap for the whole infrastructure.
+     *
+     * @return the maximum number of concurrent actions. {@link #UNBOUNDED} if there is no cap
+     */
+    public int getGlobalCap() {
+        return globalCap;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return VIEW_ID;
+    }
+
+    @Override
+    public boolean beforeSolve(ReconfigurationProblem rp) {
+        Solver s = rp.getSolver();
+        List<Task> all = new ArrayList<>();
+        List<List<Task>> tasks = new ArrayList<>(nodeCaps.length);
+        List<List<IntVar>> heights = new ArrayList<>(nodeCaps.length);
+        for (int i = 0; i < nodeCaps.length; i++) {
+            tasks.add(new ArrayList<Task>());
+            heights.add(new ArrayList<IntVar>());
+        }
+
+        for (VMActionModel a : rp.getVMActions()) {
+            Slice c = a.getCSlice();
+            Slice d = a.getDSlice();
+            if ((c == null && d == null) || a.getDuration() == null || a.getDuration().getUB() == 0) {
+                continue;
+            }
+            Task t = VariableFactory.task(a.getStart(), a.getDuration(), a.getEnd());
+            all.add(t);
+            int src = -1;
+            if (c != null && c.getHoster().instantiated()) {
+                src = c.getHoster().getValue();
+                if (nodeCaps[src] != UNBOUNDED) {
+                    tasks.get(src).add(t);
+                    heights.get(src).add(VariableFactory.one(s));
+                }
+            }
+            if (d != null) {
+                placeOn(rp, a.getVM(), d.getHoster(), src, t, tasks, heights);
+            }
+        }
+
+        for (NodeActionModel a : rp.getNodeActions()) {
+            int nIdx = rp.getNode(a.getNode());
+            if (a.getDuration().getUB() == 0) {
+                continue;
+            }
+            Task t = VariableFactory.task(a.getStart(), a.getDuration(), a.getEnd());
+            all.add(t);
+            if (nodeCaps[nIdx] != UNBOUNDED) {
+                tasks.get(nIdx).add(t);
+                heights.get(nIdx).add(VariableFactory.one(s));
+            }
+        }
+
+        for (int i = 0; i < nodeCaps.length; i++) {
+            cumulative(s, tasks.get(i), heights.get(i), nodeCaps[i]);
+        }
+        if (all.size() > globalCap) {
+            IntVar[] ones = new IntVar[all.size()];
+            Arrays.fill(ones, VariableFactory.one(s));
+            s.post(IntConstraintFactory.cumulative(all.toArray(new Task[all.size()]), ones, VariableFactory.fixed(globalCap, s), true));
+        }
+        return true;
+    }
+
+    /**
+     * Register a task on the capped nodes that may host a d-slice.
+     */
+    private void placeOn(ReconfigurationProblem rp, VM v, IntVar hoster, int src, Task t,
+                         List<List<Task>> tasks, List<List<IntVar>> heights) {
+        Solver s = rp.getSolver();
+        for (int i = 0; i < nodeCaps.length; i++) {
+            if (i == src || nodeCaps[i] == UNBOUNDED || !hoster.contains(i)) {
+                continue;
+            }
+            tasks.get(i).add(t);
+            if (hoster.instantiated()) {
+                heights.get(i).add(VariableFactory.one(s));
+            } else {
+                BoolVar on = VariableFactory.bool(rp.makeVarLabel("concurrent(", v, ").on(", i, ")"), s);
+                IntVar h = VariableFactory.enumerated(rp.makeVarLabel("concurrent(", v, ").height(", i, ")"), new int[]{0, 1}, s);
+                s.post(new FastIFFEq(on, hoster, i));
+                s.post(new FastIFFEq(on, h, 1));
+                heights.get(i).add(h);
+            }
+        }
+    }
+
+    private static void cumulative(Solver s, List<Task> ts, List<IntVar> hs, int cap) {
+        if (ts.size() > cap) {
+            s.post(IntConstraintFactory.cumulative(ts.toArray(new Task[ts.size()]), hs.toArray(new IntVar[hs.size()]), VariableFactory.fixed(cap, s), true));
+        }
+    }
+
+    @Override
+    public boolean insertActions(ReconfigurationProblem rp, ReconfigurationPlan p) {
+        return true;
+    }
+
+    @Override
+    public boolean cloneVM(VM vm, VM clone) {
+        return true;
+    }
+}
@@ -36,7 +36,6 @@ import solver.Solver;
 import solver.constraints.IntConstraintFactory;
 import solver.exception.ContradictionException;
 import solver.variables.IntVar;
-import solver.variables.RealVar;
 import solver.variables.VariableFactory;
 
 import java.util.ArrayList;
@@ -60,7 +59,10 @@ public class CShareableResource implements ChocoModelView {
 
     private IntVar[] vmAllocation;
 
-    private RealVar[] ratios;
+    /**
+     * The overbooking ratio of each node, in {@code 1/RoundedUpDivision.PRECISION} units.
+     */
+    private int[] ratios;
 
     private ReconfigurationProblem rp;
 
@@ -78,6 +80,11 @@ public class CShareableResource implements ChocoModelView {
      */
     public static final double UNCHECKED_RATIO = Double.MAX_VALUE / 100;
 
+    /**
+     * The fixed-point counterpart of {@link #UNCHECKED_RATIO}.
+     */
+    private static final int UNCHECKED = Integer.MAX_VALUE;
+
     /**
      * Make a new mapping.
      *
@@ -94,13 +101,13 @@ public class CShareableResource implements ChocoModelView {
         Node[] nodes = p.getNodes();
         phyRcUsage = new IntVar[nodes.length];
         virtRcUsage = new IntVar[nodes.length];
-        this.ratios = new RealVar[nodes.length];
+        this.ratios = new int[nodes.length];
         id = ShareableResource.VIEW_ID_BASE + r.getResourceIdentifier();
         for (int i = 0; i < nodes.length; i++) {
             Node nId = p.getNode(i);
             phyRcUsage[i] = VariableFactory.bounded(p.makeVarLabel("phyRcUsage('", r.getResourceIdentifier(), "', '", nId, "')"), 0, r.getCapacity(nodes[i]), p.getSolver());
             virtRcUsage[i] = VariableFactory.bounded(p.makeVarLabel("virtRcUsage('", r.getResourceIdentifier(), "', '", nId, "')"), 0, Integer.MAX_VALUE / 100, p.getSolver());
-            ratios[i] = VariableFactory.real(p.makeVarLabel("overbook('", r.getResourceIdentifier(), "', '", nId, "')"), 1, UNCHECKED_RATIO, 0.01, p.getSolver());
+            ratios[i] = UNCHECKED;
         }
 
 
@@ -228,23 +235,56 @@ public class CShareableResource implements ChocoModelView {
 
     /**
      * Get the overbooking ratio for a node.
-     * <b>WARNING: it is only allowed to reduce the upper-bound of the ratio using {@code #setSup(x)} methods</b>
+     * The ratio can only be reduced using {@link #capOverbookRatio(int, double)}.
      *
      * @param nId the node identifier
-     * @return an array of ratios.
+     * @return the ratio. {@link #UNCHECKED_RATIO} if the ratio has never been capped
      */
-    public RealVar getOverbookRatio(int nId) {
-        return ratios[nId];
+    public double getOverbookRatio(int nId) {
+        return toRatio(ratios[nId]);
     }
 
     /**
      * Get the overbooking ratios for every nodes.
-     * <b>WARNING: it is only allowed to reduce the upper-bound of the ratio using {@code #setSup(x)} methods</b>
+     * The ratios can only be reduced using {@link #capOverbookRatio(int, double)}.
      *
      * @return an array of ratios.
      */
-    public RealVar[] getOverbookRatios() {
-        return ratios;
+    public double[] getOverbookRatios() {
+        double[] res = new double[ratios.length];
+        for (int i = 0; i < ratios.length; i++) {
+            res[i] = toRatio(ratios[i]);
+        }
+        return res;
+    }
+
+    /**
+     * Cap the overbooking ratio of a node.
+     * The ratio is stored with a precision of {@code 1/RoundedUpDivision.PRECISION}
+     * and rounded down so the resulting capacity never exceeds the expected one.
+     * If the node already has a lower ratio, it is kept.
+     *
+     * @param nId the node identifier
+     * @param r   the maximum ratio. Must be greater or equal to 1
+     * @return {@code false} if the ratio is lower than 1
+     */
+    public boolean capOverbookRatio(int nId, double r) {
+        if (r < 1) {
+            return false;
+        }
+        //UNCHECKED is reserved to denote an uncapped ratio
+        int fp = (int) Math.min(RoundedUpDivision.toFixedPoint(r), UNCHECKED - 1);
+        if (fp < ratios[nId]) {
+            ratios[nId] = fp;
+        }
+        return true;
+    }
+
+    private static double toRatio(int fp) {
+        if (fp == UNCHECKED) {
+            return UNCHECKED_RATIO;
+        }
+        return (double) fp / RoundedUpDivision.PRECISION;
     }
 
     /**
@@ -326,23 +366,20 @@ public class CShareableResource implements ChocoModelView {
                 //TODO: might be too late depending on the symmetry breaking on the actions schedule
                 insertAllocateAction(p, vm, destNode, dSlice.getStart().getValue());
             } else {
-                //TODO: not constant time operation. Maybe a big failure
-                VM dVM = clones.containsKey(vm) ? clones.get(vm) : vm;
-                for (Action a : p) {
-                    if (a instanceof RunningVMPlacement) {
-                        RunningVMPlacement tmp = (RunningVMPlacement) a;
-                        if (tmp.getVM() == dVM) {
-                            if (a instanceof MigrateVM) {
-                                //For a migrated VM, we allocate once the migration over
-                                insertAllocateEvent(a, Action.Hook.POST, dVM);
-                            } else {
-                                //Resume or Boot VM
-                                //As the VM was not running, we pre-allocate
-                                insertAllocateEvent(a, Action.Hook.PRE, dVM);
-                            }
-                            break;
-                        }
-                    }
+                //The VM may have been cloned for a previous solution only
+                VM dVM = clones.get(vm);
+                Action a = dVM != null ? p.getPlacement(dVM) : null;
+                if (a == null) {
+                    dVM = vm;
+                    a = p.getPlacement(vm);
+                }
+                if (a instanceof MigrateVM) {
+                    //For a migrated VM, we allocate once the migration over
+                    insertAllocateEvent(a, Action.Hook.POST, dVM);
+                } else if (a != null) {
+                    //Resume or Boot VM
+                    //As the VM was not running, we pre-allocate
+                    insertAllocateEvent(a, Action.Hook.PRE, dVM);
                 }
             }
         }
@@ -408,21 +445,14 @@ public class CShareableResource implements ChocoModelView {
     }
 
     private boolean linkVirtualToPhysicalUsage(int nIdx) {
-        double r = ratios[nIdx].getUB();
-        if (r == UNCHECKED_RATIO) {
+        int r = ratios[nIdx];
+        if (r == UNCHECKED) {
             //Default overbooking ratio is 1.
-            r = 1;
-        }
-
-        try {
-            ratios[nIdx].updateBounds(r, r, Cause.Null);
-        } catch (ContradictionException ex) {
-            rp.getLogger().error("Unable to set '{}' to {}", ratios[nIdx], r);
-            return false;
+            r = RoundedUpDivision.PRECISION;
+            ratios[nIdx] = r;
         }
 
-
-        if (r == 1) {
+        if (r == RoundedUpDivision.PRECISION) {
             solver.post(IntConstraintFactory.arithm(phyRcUsage[nIdx], "=", virtRcUsage[nIdx]));
             try {
                 virtRcUsage[nIdx].updateUpperBound(phyRcUsage[nIdx].getUB(), Cause.Null);
@@ -432,9 +462,9 @@ public class CShareableResource implements ChocoModelView {
             }
         } else {
             int maxPhy = getSourceResource().getCapacity(rp.getNode(nIdx));
-            int maxVirt = (int) (maxPhy * r);
+            int maxVirt = (int) ((long) maxPhy * r / RoundedUpDivision.PRECISION);
             if (maxVirt != 0) {
-                solver.post(new RoundedUpDivision(phyRcUsage[nIdx], virtRcUsage[nIdx], r));
+                solver.post(new RoundedUpDivision(phyRcUsage[nIdx], virtRcUsage[nIdx], r, RoundedUpDivision.PRECISION));
             } else {
                 try {
                     phyRcUsage[nIdx].instantiateTo(0, Cause.Null);
@@ -21,11 +21,16 @@ import btrplace.model.*;
 import btrplace.model.constraint.*;
 import btrplace.model.view.ShareableResource;
 import btrplace.plan.ReconfigurationPlan;
+import btrplace.plan.event.Action;
+import btrplace.plan.event.ForgeVM;
 import btrplace.solver.SolverException;
 import btrplace.solver.choco.actionModel.ActionModelUtils;
 import btrplace.solver.choco.constraint.ChocoConstraint;
 import btrplace.solver.choco.constraint.ChocoConstraintBuilder;
+import btrplace.solver.choco.runner.IntermediateSolution;
+import btrplace.solver.choco.runner.SolutionListener;
 import btrplace.solver.choco.runner.SolvingStatistics;
+import btrplace.solver.choco.runner.single.SingleRunnerStatistics;
 import btrplace.solver.choco.view.ModelViewMapper;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -34,10 +39,7 @@ import solver.constraints.IntConstraintFactory;
 import solver.variables.IntVar;
 import solver.variables.VF;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -65,9 +67,28 @@ public class DefaultChocoReconfigurationAlgorithmTest {
         cra.doRepair(true);
         Assert.assertEquals(cra.doRepair(), true);
 
+        Assert.assertTrue(cra.doEscalateRepair());
+        cra.doEscalateRepair(false);
+        Assert.assertFalse(cra.doEscalateRepair());
+
         cra.setVerbosity(3);
         Assert.assertEquals(cra.getVerbosity(), 3);
 
+        Assert.assertFalse(cra.doBreakSymmetries());
+        cra.doBreakSymmetries(true);
+        Assert.assertTrue(cra.doBreakSymmetries());
+
+        Assert.assertFalse(cra.doPoolNodes());
+        cra.doPoolNodes(true);
+        Assert.assertTrue(cra.doPoolNodes());
+
+        Assert.assertEquals(cra.getMaxConcurrentActions(), 0);
+        Assert.assertEquals(cra.getMaxConcurrentActionsPerNode(), 0);
+        cra.setMaxConcurrentActions(7);
+        cra.setMaxConcurrentActionsPerNode(2);
+        Assert.assertEquals(cra.getMaxConcurrentActions(), 7);
+        Assert.assertEquals(cra.getMaxConcurrentActionsPerNode(), 2);
+
         Assert.assertNotNull(cra.getViewMapper());
         ModelViewMapper m = new ModelViewMapper();
         cra.setViewMapper(m);
@@ -199,6 +220,181 @@ public class DefaultChocoReconfigurationAlgorithmTest {
         Assert.assertEquals(st.getNbManagedVMs(), 2); //vm2, vm3.
     }
 
+    @Test
+    public void testSolutionListener() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        MappingFiller mf = new MappingFiller(mo.getMapping()).on(n1, n2, n3);
+        for (int i = 0; i < 6; i++) {
+            mf.run(n1, mo.newVM());
+        }
+        Set<SatConstraint> cstrs = new HashSet<SatConstraint>(Ban.newBan(mo.getMapping().getAllVMs(), Collections.singleton(n1)));
+
+        final List<Integer> costs = new ArrayList<>();
+        SolutionListener all = new SolutionListener() {
+            @Override
+            public boolean onSolution(IntermediateSolution s) {
+                try {
+                    Assert.assertEquals(s.getPlan().getSize(), 6);
+                } catch (SolverException ex) {
+                    Assert.fail(ex.getMessage(), ex);
+                }
+                costs.add(s.getStatistics().getOptValue());
+                return false;
+            }
+        };
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        Assert.assertTrue(cra.getSolutionListeners().isEmpty());
+        cra.addSolutionListener(all);
+        Assert.assertEquals(cra.getSolutionListeners(), Collections.singletonList(all));
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertFalse(costs.isEmpty());
+        Assert.assertEquals(costs.size(), cra.getStatistics().getSolutions().size());
+        //Each solution improves the previous one
+        for (int i = 1; i < costs.size(); i++) {
+            Assert.assertTrue(costs.get(i) < costs.get(i - 1), costs.toString());
+        }
+
+        //Stop at the first solution
+        Assert.assertTrue(cra.removeSolutionListener(all));
+        Assert.assertFalse(cra.removeSolutionListener(all));
+        final List<IntermediateSolution> sols = new ArrayList<>();
+        cra.addSolutionListener(new SolutionListener() {
+            @Override
+            public boolean onSolution(IntermediateSolution s) {
+                sols.add(s);
+                return true;
+            }
+        });
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(sols.size(), 1);
+        Assert.assertEquals(cra.getStatistics().getSolutions().size(), 1);
+        //The plan was not retrieved during the notification
+        Assert.assertFalse(sols.get(0).isAvailable());
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p));
+        }
+    }
+
+    /**
+     * Build the plan of every intermediate solution while VMs are re-instantiated.
+     * Each VM must be cloned once whatever the number of built plans.
+     */
+    @Test
+    public void testSolutionListenerWithClones() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        MappingFiller mf = new MappingFiller(mo.getMapping()).on(n1, n2, n3);
+        for (int i = 0; i < 4; i++) {
+            VM vm = mo.newVM();
+            mf.run(n1, vm);
+            mo.getAttributes().put(vm, "template", "small");
+            mo.getAttributes().put(vm, "clone", true);
+            mo.getAttributes().put(vm, "migrate", 20);
+            mo.getAttributes().put(vm, "forge", 3);
+            mo.getAttributes().put(vm, "boot", 2);
+            mo.getAttributes().put(vm, "shutdown", 1);
+        }
+        Set<SatConstraint> cstrs = new HashSet<SatConstraint>(Ban.newBan(mo.getMapping().getAllVMs(), Collections.singleton(n1)));
+
+        final Set<VM> forged = new HashSet<>();
+        final int[] nbPlans = {0};
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        cra.addSolutionListener(new SolutionListener() {
+            @Override
+            public boolean onSolution(IntermediateSolution s) {
+                try {
+                    for (Action a : s.getPlan()) {
+                        if (a instanceof ForgeVM) {
+                            forged.add(((ForgeVM) a).getVM());
+                        }
+                    }
+                    nbPlans[0]++;
+                } catch (SolverException ex) {
+                    Assert.fail(ex.getMessage(), ex);
+                }
+                return false;
+            }
+        });
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(nbPlans[0], cra.getStatistics().getSolutions().size());
+        //At most one clone per VM
+        Assert.assertTrue(forged.size() <= 4, forged.toString());
+        for (Action a : p) {
+            if (a instanceof ForgeVM) {
+                Assert.assertTrue(forged.contains(((ForgeVM) a).getVM()));
+            }
+        }
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p));
+        }
+    }
+
+    @Test
+    public void testEscalateRepair() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        VM vm4 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3).run(n1, vm1, vm2).run(n2, vm3, vm4);
+        ShareableResource rc = new ShareableResource("cpu", 4, 2);
+        rc.setCapacity(n3, 2);
+        mo.attach(rc);
+
+        //vm1 can only go to n2 once vm3 or vm4 has moved to n3
+        Set<SatConstraint> cstrs = new HashSet<SatConstraint>(Ban.newBan(Collections.singleton(vm1), Arrays.asList(n1, n3)));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doRepair(true);
+        cra.doEscalateRepair(false);
+        Assert.assertNull(cra.solve(mo, cstrs));
+        Assert.assertEquals(((SingleRunnerStatistics) cra.getStatistics()).getNbRepairRounds(), 1);
+
+        //vm2 is added first, then all the VMs
+        cra.doEscalateRepair(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 2);
+        Assert.assertEquals(((SingleRunnerStatistics) cra.getStatistics()).getNbRepairRounds(), 3);
+        Assert.assertEquals(p.getResult().getMapping().getVMLocation(vm1), n2);
+    }
+
+    @Test
+    public void testNodePooling() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        MappingFiller mf = new MappingFiller(mo.getMapping()).on(n1).run(n1, vm1, vm2);
+        for (int i = 0; i < 10; i++) {
+            mf.on(mo.newNode());
+        }
+        Set<SatConstraint> cstrs = new HashSet<SatConstraint>(Ban.newBan(mo.getMapping().getAllVMs(), Collections.singleton(n1)));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doPoolNodes(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getOrigin(), mo);
+        Assert.assertEquals(p.getSize(), 2);
+        //n1 and 2 idle nodes, one per VM to place
+        Assert.assertEquals(((SingleRunnerStatistics) cra.getStatistics()).getNbNodes(), 3);
+        for (SatConstraint c : cstrs) {
+            Assert.assertTrue(c.isSatisfied(p));
+        }
+    }
+
     @Test(expectedExceptions = {SolverException.class})
     public void testWithUnknownVMs() throws SolverException {
         Model mo = new DefaultModel();
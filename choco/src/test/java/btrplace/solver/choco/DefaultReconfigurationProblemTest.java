@@ -906,6 +906,58 @@ public class DefaultReconfigurationProblemTest {
         Assert.assertEquals(s.getMeasures().getSolutionCount(), 4);
     }
 
+    /**
+     * Test a maximization problem with an alterer that always targets unreachable values.
+     * The targets must be relaxed until the optimal value is proved.
+     *
+     * @throws SolverException
+     */
+    @Test
+    public void testMaximizationWithOvershootingAlterer() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        map.addOnlineNode(n1);
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            VM vm = mo.newVM();
+            map.addOnlineNode(n);
+            map.addRunningVM(vm, n1);
+        }
+        final ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).labelVariables().build();
+        Solver s = rp.getSolver();
+        final IntVar nbNodes = VF.bounded("nbNodes", 1, map.getOnlineNodes().size(), s);
+        IntVar[] hosters = SliceUtils.extractHoster(ActionModelUtils.getDSlices(rp.getVMActions()));
+        s.post(IntConstraintFactory.nvalues(hosters, nbNodes, "at_least_AC"));
+
+        rp.setObjective(false, nbNodes);
+        final int[] nbRelaxed = {0};
+        rp.setObjectiveAlterer(new BacktrackingObjectiveAlterer() {
+            @Override
+            public int getBudget() {
+                return 1;
+            }
+
+            @Override
+            public int onUnreachableBound(ReconfigurationProblem rp, int bound, int lastValue) {
+                nbRelaxed[0]++;
+                return bound - 1;
+            }
+
+            @Override
+            public int newBound(ReconfigurationProblem rp, int currentValue) {
+                //Far beyond the 10 nodes that can host a VM
+                return currentValue + 100;
+            }
+        });
+
+        ReconfigurationPlan plan = rp.solve(0, true);
+        Assert.assertNotNull(plan);
+        Assert.assertTrue(nbRelaxed[0] > 0);
+        //No completeness loss despite the unreachable targets
+        Assert.assertEquals(usedNodes(plan.getResult().getMapping()), 10);
+    }
+
     /**
      * Test an unsolvable optimisation problem with an alterer. No solution
      *
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.MinMTTR;
+import btrplace.model.constraint.Offline;
+import btrplace.model.constraint.OptConstraint;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link NodePooling}.
+ *
+ * @author Fabien Hermenier
+ */
+public class NodePoolingTest {
+
+    @Test
+    public void testPools() {
+        Model mo = new DefaultModel();
+        List<Node> ns = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ns.add(mo.newNode());
+        }
+        VM vm1 = mo.newVM();
+        Mapping map = mo.getMapping();
+        for (int i = 0; i < 6; i++) {
+            map.addOnlineNode(ns.get(i));
+        }
+        map.addOfflineNode(ns.get(6));
+        map.addOfflineNode(ns.get(7));
+        map.addRunningVM(vm1, ns.get(0));
+
+        ShareableResource rc = new ShareableResource("cpu", 4, 1);
+        rc.setCapacity(ns.get(5), 8);
+        mo.attach(rc);
+        mo.getAttributes().put(ns.get(4), "boot", 7);
+
+        List<SatConstraint> cstrs = Collections.<SatConstraint>singletonList(new Offline(ns.get(3)));
+        NodePooling np = new NodePooling(mo, cstrs, new MinMTTR());
+        Assert.assertTrue(np.isSupported());
+        //n0 is not idle, n3 is constrained, n4 has a specific attribute, n5 a specific capacity
+        List<List<Node>> pools = np.getPools();
+        Assert.assertEquals(pools.size(), 2);
+        Assert.assertEquals(pools.get(0), Arrays.asList(ns.get(1), ns.get(2)));
+        Assert.assertEquals(pools.get(1), Arrays.asList(ns.get(6), ns.get(7)));
+
+        Assert.assertEquals(np.getRemovableNodes(1), new HashSet<>(Arrays.asList(ns.get(2), ns.get(7))));
+        Assert.assertEquals(np.getRemovableNodes(0), new HashSet<>(Arrays.asList(ns.get(1), ns.get(2), ns.get(6), ns.get(7))));
+        Assert.assertTrue(np.getRemovableNodes(2).isEmpty());
+    }
+
+    @Test
+    public void testUnsupported() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        OptConstraint o = new OptConstraint() {
+            @Override
+            public String id() {
+                return "foo";
+            }
+        };
+        NodePooling np = new NodePooling(mo, Collections.<SatConstraint>emptyList(), o);
+        Assert.assertFalse(np.isSupported());
+        Assert.assertTrue(np.getPools().isEmpty());
+        Assert.assertTrue(np.getRemovableNodes(0).isEmpty());
+
+        np = new NodePooling(mo, Collections.<SatConstraint>emptyList(), new MinMTTR());
+        Assert.assertTrue(np.isSupported());
+        Assert.assertEquals(np.getPools().size(), 1);
+    }
+}
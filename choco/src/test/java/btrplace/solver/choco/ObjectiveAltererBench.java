@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Offline;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.constraint.COffline;
+import btrplace.solver.choco.constraint.minMTTR.CMinMTTR;
+import solver.search.loop.monitors.IMonitorSolution;
+import solver.search.measure.IMeasures;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Compare the time-to-quality curves of the {@link ObjectiveAlterer}s on
+ * random instances where some nodes must be turned off, so their VMs must be relocated.
+ * For each alterer, every computed solution is reported with its time and its objective value.
+ *
+ * @author Fabien Hermenier
+ */
+public class ObjectiveAltererBench {
+
+    /**
+     * Make an instance.
+     *
+     * @param nbNodes the number of nodes
+     * @param seed    the seed for the random generator
+     * @return the model
+     */
+    public static Model makeModel(int nbNodes, long seed) {
+        Random rnd = new Random(seed);
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        ShareableResource cpu = new ShareableResource("cpu", 16, 0);
+        for (int i = 0; i < nbNodes; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            //Nodes are filled at ~50%
+            int free = 16;
+            while (free > 8) {
+                VM v = mo.newVM();
+                int c = 1 + rnd.nextInt(4);
+                map.addRunningVM(v, n);
+                cpu.setConsumption(v, c);
+                mo.getAttributes().put(v, "migrate", 1 + rnd.nextInt(10));
+                free -= c;
+            }
+        }
+        mo.attach(cpu);
+        return mo;
+    }
+
+    /**
+     * Solve an instance.
+     *
+     * @param mo        the model
+     * @param ratio     the ratio of nodes to turn off
+     * @param a         the alterer to use
+     * @param timeLimit the time limit in seconds
+     * @throws SolverException if an error occurred
+     */
+    public static void bench(Model mo, double ratio, ObjectiveAlterer a, int timeLimit) throws SolverException {
+        final ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo)
+                .setNextVMsStates(Collections.<VM>emptySet(), mo.getMapping().getAllVMs(),
+                        Collections.<VM>emptySet(), Collections.<VM>emptySet()).build();
+        int nb = (int) (mo.getMapping().getOnlineNodes().size() * ratio);
+        for (Node n : mo.getMapping().getOnlineNodes()) {
+            if (nb-- == 0) {
+                break;
+            }
+            new COffline(new Offline(n)).inject(rp);
+        }
+        new CMinMTTR().inject(rp);
+        rp.setObjectiveAlterer(a);
+        final StringBuilder curve = new StringBuilder();
+        rp.getSolver().getSearchLoop().plugSearchMonitor(new IMonitorSolution() {
+            @Override
+            public void onSolution() {
+                IMeasures m = rp.getSolver().getMeasures();
+                curve.append(' ').append((long) m.getTimeCount()).append(':').append(rp.getObjective().getValue());
+            }
+        });
+        rp.solve(timeLimit, true);
+        System.err.println(mo.getMapping().getOnlineNodes().size() + " " + a.getClass().getSimpleName()
+                + " bound=" + rp.getObjectiveBound() + curve);
+    }
+
+    public static void main(String[] args) throws SolverException {
+        for (int nbNodes = 50; nbNodes <= 400; nbNodes *= 2) {
+            ObjectiveAlterer[] alterers = {
+                    new DefaultObjectiveAlterer(),
+                    new GeometricObjectiveAlterer(0.25),
+                    new DichotomicObjectiveAlterer(),
+                    new AdaptiveObjectiveAlterer()
+            };
+            for (ObjectiveAlterer a : alterers) {
+                bench(makeModel(nbNodes, nbNodes), 0.2, a, 30);
+            }
+        }
+    }
+}
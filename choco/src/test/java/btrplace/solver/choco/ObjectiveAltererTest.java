@@ -22,9 +22,13 @@ import btrplace.model.Model;
 import btrplace.solver.SolverException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import solver.ResolutionPolicy;
 import solver.variables.IntVar;
 import solver.variables.VF;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 /**
  * Unit tests for {@link btrplace.solver.choco.ObjectiveAlterer}.
  *
@@ -47,4 +51,66 @@ public class ObjectiveAltererTest {
         Assert.assertEquals(oa.newBound(rp, 25), 50);
         Assert.assertEquals(oa.newBound(rp, 50), 100);
     }
+
+    private static ReconfigurationProblem mockRP(ResolutionPolicy p, int bound) {
+        ReconfigurationProblem rp = mock(ReconfigurationProblem.class);
+        when(rp.getResolutionPolicy()).thenReturn(p);
+        when(rp.getObjectiveBound()).thenReturn(bound);
+        return rp;
+    }
+
+    @Test
+    public void testGeometric() {
+        GeometricObjectiveAlterer oa = new GeometricObjectiveAlterer(0.5, 20);
+        Assert.assertEquals(oa.getBudget(), 20);
+        ReconfigurationProblem rp = mockRP(ResolutionPolicy.MINIMIZE, 10);
+        Assert.assertEquals(oa.newBound(rp, 100), 55);
+        Assert.assertEquals(oa.onUnreachableBound(rp, 55, 100), 78);
+        //At least one unit
+        Assert.assertEquals(oa.newBound(rp, 11), 10);
+
+        rp = mockRP(ResolutionPolicy.MAXIMIZE, 100);
+        Assert.assertEquals(oa.newBound(rp, 10), 55);
+        Assert.assertEquals(oa.onUnreachableBound(rp, 55, 10), 32);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testGeometricWithBadRatio() {
+        new GeometricObjectiveAlterer(1.5);
+    }
+
+    @Test
+    public void testDichotomic() {
+        ReconfigurationProblem rp = mockRP(ResolutionPolicy.MINIMIZE, 10);
+        DichotomicObjectiveAlterer oa = new DichotomicObjectiveAlterer();
+        Assert.assertEquals(oa.getBudget(), BacktrackingObjectiveAlterer.DEFAULT_BUDGET);
+        Assert.assertEquals(oa.newBound(rp, 100), 54);
+        Assert.assertEquals(oa.onUnreachableBound(rp, 54, 100), 77);
+        Assert.assertEquals(oa.newBound(rp, 77), 65);
+        //Nothing between the unreachable target and the value
+        Assert.assertEquals(oa.newBound(rp, 55), 54);
+
+        oa = new DichotomicObjectiveAlterer();
+        rp = mockRP(ResolutionPolicy.MAXIMIZE, 100);
+        Assert.assertEquals(oa.newBound(rp, 10), 56);
+        Assert.assertEquals(oa.onUnreachableBound(rp, 56, 10), 33);
+    }
+
+    @Test
+    public void testAdaptive() {
+        ReconfigurationProblem rp = mockRP(ResolutionPolicy.MINIMIZE, 10);
+        AdaptiveObjectiveAlterer oa = new AdaptiveObjectiveAlterer();
+        Assert.assertEquals(oa.getRatio(), AdaptiveObjectiveAlterer.MAX_RATIO);
+        Assert.assertEquals(oa.newBound(rp, 100), 55);
+        //The target was reached
+        Assert.assertEquals(oa.newBound(rp, 50), 30);
+        Assert.assertEquals(oa.getNbReached(), 1);
+        //Less aggressive
+        Assert.assertEquals(oa.onUnreachableBound(rp, 30, 50), 45);
+        Assert.assertEquals(oa.getNbUnreachable(), 1);
+        Assert.assertEquals(oa.getRatio(), 0.125);
+        //Reached again, more aggressive
+        Assert.assertEquals(oa.newBound(rp, 42), 34);
+        Assert.assertEquals(oa.getRatio(), 0.25);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+/**
+ * Unit tests for {@link SymmetryBreaker}.
+ *
+ * @author Fabien Hermenier
+ */
+public class SymmetryBreakerTest {
+
+    @Test
+    public void testClasses() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node[] ns = new Node[4];
+        for (int i = 0; i < ns.length; i++) {
+            ns[i] = mo.newNode();
+            map.addOnlineNode(ns[i]);
+        }
+        VM[] vms = new VM[5];
+        for (int i = 0; i < vms.length; i++) {
+            vms[i] = mo.newVM();
+            map.addReadyVM(vms[i]);
+        }
+        map.addRunningVM(vms[0], ns[0]);
+        ShareableResource rc = new ShareableResource("cpu", 4, 1);
+        rc.setConsumption(vms[3], 2);
+        mo.attach(rc);
+
+        Set<VM> toRun = new HashSet<>(Arrays.asList(vms));
+        List<SatConstraint> cstrs = new ArrayList<SatConstraint>(Running.newRunning(toRun));
+        cstrs.add(new Ban(vms[4], Collections.singleton(ns[1])));
+
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo)
+                .setNextVMsStates(Collections.<VM>emptySet(), toRun,
+                        Collections.<VM>emptySet(), Collections.<VM>emptySet()).build();
+        SymmetryBreaker sb = new SymmetryBreaker(rp, cstrs, new MinMTTR());
+        //vm3 consumes more, vm4 is banned
+        Assert.assertEquals(sb.getVMClasses().size(), 1);
+        Assert.assertEquals(new HashSet<>(sb.getVMClasses().get(0)), new HashSet<>(Arrays.asList(vms[1], vms[2])));
+        //n0 hosts a VM, n1 is involved in the ban
+        Assert.assertEquals(sb.getNodeClasses().size(), 1);
+        Assert.assertEquals(new HashSet<>(sb.getNodeClasses().get(0)), new HashSet<>(Arrays.asList(ns[2], ns[3])));
+        Assert.assertEquals(sb.inject(), 2);
+        Assert.assertNotNull(rp.solve(0, false));
+    }
+
+    @Test
+    public void testSolve() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        for (int i = 0; i < 4; i++) {
+            map.addOnlineNode(mo.newNode());
+        }
+        Set<VM> vms = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            VM v = mo.newVM();
+            map.addReadyVM(v);
+            vms.add(v);
+        }
+        mo.attach(new ShareableResource("cpu", 2, 1));
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doBreakSymmetries(true);
+        ReconfigurationPlan p = cra.solve(mo, new ArrayList<SatConstraint>(Running.newRunning(vms)));
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getResult().getMapping().getRunningVMs(), vms);
+    }
+}
@@ -364,6 +364,53 @@ public class RelocatableVMModelTest {
         }
     }
 
+    /**
+     * The plan can be built several times without creating new clones.
+     */
+    @Test
+    public void testRebuildPlanWithReInstantiation() throws SolverException, ContradictionException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+
+        final VM vm10 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addRunningVM(vm10, n1);
+        DurationEvaluators dev = DurationEvaluators.newBundle();
+        dev.register(MigrateVM.class, new ConstantActionDuration(20));
+        dev.register(ForgeVM.class, new ConstantActionDuration(3));
+        dev.register(BootVM.class, new ConstantActionDuration(2));
+        dev.register(ShutdownVM.class, new ConstantActionDuration(1));
+
+        mo.getAttributes().put(vm10, "template", "small");
+        mo.getAttributes().put(vm10, "clone", true);
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo)
+                .setNextVMsStates(Collections.<VM>emptySet(), map.getAllVMs(), Collections.<VM>emptySet(), Collections.<VM>emptySet())
+                .setDurationEvaluators(dev)
+                .labelVariables()
+                .setManageableVMs(map.getAllVMs())
+                .build();
+        RelocatableVMModel am = (RelocatableVMModel) rp.getVMAction(vm10);
+        am.getRelocationMethod().instantiateTo(1, Cause.Null);
+        am.getDSlice().getHoster().instantiateTo(rp.getNode(n2), Cause.Null);
+        new CMinMTTR().inject(rp);
+        ReconfigurationPlan p = rp.solve(10, true);
+        Assert.assertNotNull(p);
+
+        VM clone = rp.cloneVM(vm10);
+        Assert.assertEquals(rp.cloneVM(vm10), clone);
+        for (int i = 0; i < 3; i++) {
+            ReconfigurationPlan p2 = rp.buildReconfigurationPlan();
+            Assert.assertEquals(p2, p);
+            Assert.assertEquals(p2.getResult().getMapping().getRunningVMs(n2), Collections.singleton(clone));
+        }
+        //No other VM was created
+        Assert.assertEquals(mo.newVM().id(), clone.id() + 1);
+    }
+
     @Test
     public void testForcedMigration() throws SolverException, ContradictionException {
         Model mo = new DefaultModel();
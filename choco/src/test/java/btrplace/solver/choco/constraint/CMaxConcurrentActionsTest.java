@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CMaxConcurrentActions}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMaxConcurrentActionsTest {
+
+    @Test
+    public void testPerNodeCap() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3).run(n1, vm1, vm2);
+        mo.getAttributes().put(vm1, "migrate", 5);
+        mo.getAttributes().put(vm2, "migrate", 5);
+        List<SatConstraint> cstrs = new ArrayList<SatConstraint>(Ban.newBan(mo.getMapping().getAllVMs(), Collections.singleton(n1)));
+
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getDuration(), 5);
+
+        //The two migrations leave n1 so they are sequential
+        cra.setMaxConcurrentActionsPerNode(1);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 2);
+        Assert.assertEquals(p.getDuration(), 10);
+
+        //The node attribute overrides the default cap
+        cra.setMaxConcurrentActionsPerNode(0);
+        mo.getAttributes().put(n1, CMaxConcurrentActions.CAP_ATTRIBUTE, 1);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getDuration(), 10);
+
+        cra.setMaxConcurrentActionsPerNode(1);
+        mo.getAttributes().put(n1, CMaxConcurrentActions.CAP_ATTRIBUTE, 2);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getDuration(), 5);
+    }
+
+    @Test
+    public void testGlobalCap() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3).run(n1, vm1, vm2).run(n2, vm3);
+        for (VM v : mo.getMapping().getAllVMs()) {
+            mo.getAttributes().put(v, "migrate", 5);
+        }
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.addAll(Ban.newBan(mo.getMapping().getRunningVMs(n1), Collections.singleton(n1)));
+        cstrs.addAll(Ban.newBan(mo.getMapping().getRunningVMs(n2), Collections.singleton(n2)));
+
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertEquals(p.getDuration(), 5);
+
+        //At most 2 migrations at a time
+        cra.setMaxConcurrentActions(2);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 3);
+        Assert.assertEquals(p.getDuration(), 10);
+    }
+
+    @Test(expectedExceptions = {SolverException.class})
+    public void testBadNodeCap() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1).run(n1, vm1);
+        mo.getAttributes().put(n1, CMaxConcurrentActions.CAP_ATTRIBUTE, 0);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.setMaxConcurrentActionsPerNode(1);
+        cra.solve(mo, Collections.<SatConstraint>emptyList());
+    }
+
+    @Test
+    public void testGetMisplaced() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1).run(n1, vm1);
+        Assert.assertTrue(new CMaxConcurrentActions(1, 1).getMisPlacedVMs(mo).isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.constraint;
+
+import btrplace.model.*;
+import btrplace.model.constraint.Ban;
+import btrplace.model.constraint.MigrationBandwidth;
+import btrplace.model.constraint.SatConstraint;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.MappingFiller;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CMigrationBandwidth}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMigrationBandwidthTest {
+
+    @Test
+    public void testSerializedMigrations() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1, n2, n3).run(n1, vm1, vm2);
+        for (Node n : mo.getMapping().getAllNodes()) {
+            mo.getAttributes().put(n, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 1000);
+        }
+        mo.getAttributes().put(vm1, "migrate", 5);
+        mo.getAttributes().put(vm2, "migrate", 5);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.addAll(Ban.newBan(mo.getMapping().getRunningVMs(), Collections.singleton(n1)));
+
+        MigrationBandwidth mb = new MigrationBandwidth(mo.getMapping().getAllNodes());
+        cstrs.add(mb);
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        ReconfigurationPlan p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getSize(), 2);
+        //The two migrations leave n1 so they are sequential
+        Assert.assertTrue(p.getDuration() >= 10);
+        Assert.assertTrue(mb.isSatisfied(p));
+
+        //Nodes without bandwidth are not restricted
+        for (Node n : mo.getMapping().getAllNodes()) {
+            mo.getAttributes().unset(n, MigrationBandwidth.BANDWIDTH_ATTRIBUTE);
+        }
+        cra.doOptimize(true);
+        p = cra.solve(mo, cstrs);
+        Assert.assertNotNull(p);
+        Assert.assertEquals(p.getDuration(), 5);
+    }
+
+    @Test
+    public void testGetMisplaced() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        VM vm1 = mo.newVM();
+        new MappingFiller(mo.getMapping()).on(n1).run(n1, vm1);
+        CMigrationBandwidth c = new CMigrationBandwidth(new MigrationBandwidth(Collections.singleton(n1)));
+        Assert.assertTrue(c.getMisPlacedVMs(mo).isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.constraint.minMTTR;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.ChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.DefaultChocoReconfigurationAlgorithm;
+import btrplace.solver.choco.runner.SolutionStatistics;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link CMinMTTR}.
+ *
+ * @author Fabien Hermenier
+ */
+public class CMinMTTRTest {
+
+    @Test
+    public void testLowerBound() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm3, n2);
+        map.addReadyVM(vm2);
+        Attributes attrs = mo.getAttributes();
+        attrs.put(vm1, "migrate", 3);
+        attrs.put(vm2, "boot", 2);
+        attrs.put(n3, "shutdown", 4);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        cstrs.add(new Ban(vm1, Collections.singleton(n1)));
+        cstrs.add(new Running(vm2));
+        cstrs.add(new Offline(n3));
+
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        ReconfigurationPlan p = cra.solve(mo, cstrs, new MinMTTR());
+        Assert.assertNotNull(p);
+        //The migration of vm1, the boot of vm2, the shutdown of n3
+        for (SolutionStatistics st : cra.getStatistics().getSolutions()) {
+            Assert.assertTrue(st.hasBound());
+            Assert.assertEquals(st.getBound(), 9);
+            Assert.assertTrue(st.getOptValue() >= st.getBound());
+        }
+    }
+
+    @Test
+    public void testStopWithinGap() throws SolverException {
+        Model mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        List<SatConstraint> cstrs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Node n = mo.newNode();
+            map.addOnlineNode(n);
+            VM v = mo.newVM();
+            map.addReadyVM(v);
+            cstrs.add(new Running(v));
+        }
+        ChocoReconfigurationAlgorithm cra = new DefaultChocoReconfigurationAlgorithm();
+        cra.doOptimize(true);
+        cra.setMaxOptimalityGap(1);
+        Assert.assertEquals(cra.getMaxOptimalityGap(), 1d);
+        Assert.assertNotNull(cra.solve(mo, cstrs, new MinMTTR()));
+        //Any solution is within a 100% gap
+        List<SolutionStatistics> sols = cra.getStatistics().getSolutions();
+        Assert.assertEquals(sols.size(), 1);
+        Assert.assertTrue(sols.get(0).getGap() <= 1);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.constraint.minMTTR;
+
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.Offline;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.DefaultReconfigurationProblemBuilder;
+import btrplace.solver.choco.ObjectiveAltererBench;
+import btrplace.solver.choco.ReconfigurationProblem;
+import btrplace.solver.choco.constraint.COffline;
+import solver.search.measure.IMeasures;
+
+import java.util.Collections;
+
+/**
+ * Measure the time and the search effort to compute the first solution
+ * with {@link CMinMTTR}, and thus {@link OnStableNodeFirst}, on random instances
+ * where some nodes must be turned off, so their VMs must be relocated.
+ * Run it on a tree with and without the heuristic to compare.
+ *
+ * @author Fabien Hermenier
+ */
+public class OnStableNodeFirstBench {
+
+    /**
+     * Solve an instance up to the first solution.
+     *
+     * @param mo        the model
+     * @param ratio     the ratio of nodes to turn off
+     * @param timeLimit the time limit in seconds
+     * @throws SolverException if an error occurred
+     */
+    public static void bench(Model mo, double ratio, int timeLimit) throws SolverException {
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo)
+                .setNextVMsStates(Collections.<VM>emptySet(), mo.getMapping().getAllVMs(),
+                        Collections.<VM>emptySet(), Collections.<VM>emptySet()).build();
+        int nb = (int) (mo.getMapping().getOnlineNodes().size() * ratio);
+        for (Node n : mo.getMapping().getOnlineNodes()) {
+            if (nb-- == 0) {
+                break;
+            }
+            new COffline(new Offline(n)).inject(rp);
+        }
+        new CMinMTTR().inject(rp);
+        boolean solved = rp.solve(timeLimit, false) != null;
+        IMeasures m = rp.getSolver().getMeasures();
+        System.err.println(mo.getMapping().getOnlineNodes().size() + " nodes, "
+                + mo.getMapping().getAllVMs().size() + " VMs: solved=" + solved
+                + " time=" + (long) m.getTimeCount() + " nodes=" + m.getNodeCount()
+                + " backtracks=" + m.getBacktrackCount()
+                + (solved ? " cost=" + rp.getObjective().getValue() : ""));
+    }
+
+    public static void main(String[] args) throws SolverException {
+        for (int nbNodes = 50; nbNodes <= 800; nbNodes *= 2) {
+            bench(ObjectiveAltererBench.makeModel(nbNodes, nbNodes), 0.2, 60);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.constraint.minMTTR;
+
+import btrplace.model.*;
+import btrplace.solver.SolverException;
+import btrplace.solver.choco.DefaultReconfigurationProblemBuilder;
+import btrplace.solver.choco.ReconfigurationProblem;
+import memory.IEnvironment;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import solver.Cause;
+import solver.exception.ContradictionException;
+import solver.variables.IntVar;
+
+/**
+ * Unit tests for {@link OnStableNodeFirst}.
+ *
+ * @author Fabien Hermenier
+ */
+public class OnStableNodeFirstTest {
+
+    private Model mo;
+
+    private VM vm1, vm2, vm3;
+
+    private Node n1, n2, n3, n4;
+
+    /**
+     * vm1 on n1, vm2 on n2, vm3 on n3. n4 is empty.
+     */
+    private ReconfigurationProblem makeProblem() throws SolverException {
+        mo = new DefaultModel();
+        Mapping map = mo.getMapping();
+        vm1 = mo.newVM();
+        vm2 = mo.newVM();
+        vm3 = mo.newVM();
+        n1 = mo.newNode();
+        n2 = mo.newNode();
+        n3 = mo.newNode();
+        n4 = mo.newNode();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addOnlineNode(n4);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n2);
+        map.addRunningVM(vm3, n3);
+        return new DefaultReconfigurationProblemBuilder(mo).labelVariables().build();
+    }
+
+    private static IntVar start(ReconfigurationProblem rp, VM v) {
+        return rp.getVMAction(v).getDSlice().getStart();
+    }
+
+    private static void place(ReconfigurationProblem rp, VM v, Node n) throws ContradictionException {
+        rp.getVMAction(v).getDSlice().getHoster().instantiateTo(rp.getNode(n), Cause.Null);
+    }
+
+    private OnStableNodeFirst makeHeuristic(ReconfigurationProblem rp) throws SolverException {
+        CMinMTTR obj = new CMinMTTR();
+        obj.inject(rp);
+        return new OnStableNodeFirst(rp, obj);
+    }
+
+    @Test
+    public void testSelectionOrder() throws SolverException, ContradictionException {
+        ReconfigurationProblem rp = makeProblem();
+        OnStableNodeFirst h = makeHeuristic(rp);
+        //vm1 goes to n4 that no VM leaves, vm2 goes to n1 that vm1 leaves, vm3 stays on n3
+        place(rp, vm3, n3);
+        place(rp, vm2, n1);
+        place(rp, vm1, n4);
+
+        //First the VM going to a node that no VM leaves
+        Assert.assertEquals(h.getVariable(), start(rp, vm1));
+        Assert.assertTrue(h.hasNext());
+        start(rp, vm1).instantiateTo(0, Cause.Null);
+        //Then the other moving VMs
+        Assert.assertEquals(h.getVariable(), start(rp, vm2));
+        start(rp, vm2).instantiateTo(0, Cause.Null);
+        //Then the staying VMs
+        Assert.assertEquals(h.getVariable(), start(rp, vm3));
+        start(rp, vm3).instantiateTo(0, Cause.Null);
+        //Everything is scheduled
+        Assert.assertNull(h.getVariable());
+        Assert.assertFalse(h.hasNext());
+    }
+
+    @Test
+    public void testSelectionAfterInstantiation() throws SolverException, ContradictionException {
+        ReconfigurationProblem rp = makeProblem();
+        OnStableNodeFirst h = makeHeuristic(rp);
+        place(rp, vm1, n4);
+        place(rp, vm2, n1);
+        place(rp, vm3, n3);
+        //A start moment instantiated by another strategy is skipped
+        start(rp, vm1).instantiateTo(0, Cause.Null);
+        start(rp, vm2).instantiateTo(0, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm3));
+    }
+
+    @Test
+    public void testBacktrack() throws SolverException, ContradictionException {
+        ReconfigurationProblem rp = makeProblem();
+        OnStableNodeFirst h = makeHeuristic(rp);
+        IEnvironment env = rp.getSolver().getEnvironment();
+        env.worldPush();
+        place(rp, vm1, n4);
+        place(rp, vm2, n1);
+        place(rp, vm3, n3);
+        Assert.assertEquals(h.getVariable(), start(rp, vm1));
+
+        env.worldPush();
+        start(rp, vm1).instantiateTo(0, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm2));
+        start(rp, vm2).instantiateTo(0, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm3));
+
+        //The skipped start moments are available again
+        env.worldPop();
+        Assert.assertEquals(h.getVariable(), start(rp, vm1));
+        start(rp, vm1).instantiateTo(0, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm2));
+
+        //No VM is placed anymore, so no category is filled
+        env.worldPop();
+        start(rp, vm2).updateLowerBound(1, Cause.Null);
+        start(rp, vm3).updateLowerBound(1, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm1));
+        place(rp, vm3, n3);
+        Assert.assertEquals(h.getVariable(), start(rp, vm3));
+    }
+
+    @Test
+    public void testSmallestLowerBoundFirst() throws SolverException, ContradictionException {
+        ReconfigurationProblem rp = makeProblem();
+        OnStableNodeFirst h = makeHeuristic(rp);
+        //No VM is placed, the start moment having the smallest lower bound is selected
+        start(rp, vm1).updateLowerBound(5, Cause.Null);
+        start(rp, vm2).updateLowerBound(3, Cause.Null);
+        start(rp, vm3).updateLowerBound(2, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm3));
+        start(rp, vm3).instantiateTo(2, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm2));
+        //An instantiated start moment does not hide the following ones
+        start(rp, vm1).instantiateTo(5, Cause.Null);
+        Assert.assertEquals(h.getVariable(), start(rp, vm2));
+        start(rp, vm2).instantiateTo(3, Cause.Null);
+        Assert.assertNull(h.getVariable());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package btrplace.solver.choco.constraint.minMTTR;
+
+import btrplace.model.VM;
+import gnu.trove.set.hash.TIntHashSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import solver.Cause;
+import solver.Solver;
+import solver.exception.ContradictionException;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link RandomVMPlacement}.
+ *
+ * @author Fabien Hermenier
+ */
+public class RandomVMPlacementTest {
+
+    private static final Map<IntVar, VM> NO_VMS = Collections.emptyMap();
+
+    @Test
+    public void testReproducible() throws ContradictionException {
+        Solver s = new Solver();
+        IntVar x = VF.enumerated("x", 0, 100, s);
+        for (int i = 0; i < 100; i += 3) {
+            x.removeValue(i, Cause.Null);
+        }
+        RandomVMPlacement p1 = new RandomVMPlacement(null, NO_VMS, null, false, 17);
+        RandomVMPlacement p2 = new RandomVMPlacement(null, NO_VMS, null, false, 17);
+        for (int i = 0; i < 100; i++) {
+            int v = p1.selectValue(x);
+            Assert.assertTrue(x.contains(v));
+            Assert.assertEquals(p2.selectValue(x), v);
+        }
+    }
+
+    @Test
+    public void testSparseDomain() {
+        Solver s = new Solver();
+        IntVar x = VF.enumerated("x", new int[]{3, 500, 999}, s);
+        RandomVMPlacement p = new RandomVMPlacement(null, NO_VMS, null, false, 1);
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            int v = p.selectValue(x);
+            Assert.assertTrue(x.contains(v));
+            picked.add(v);
+        }
+        Assert.assertEquals(picked.size(), 3);
+    }
+
+    @Test
+    public void testRanks() {
+        Solver s = new Solver();
+        IntVar x = VF.enumerated("x", new int[]{3, 500, 999}, s);
+        TIntHashSet[] ranks = {new TIntHashSet(new int[]{7, 1000, 500}), new TIntHashSet(new int[]{3})};
+        RandomVMPlacement p = new RandomVMPlacement(null, NO_VMS, ranks, false, 1);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(p.selectValue(x), 500);
+        }
+
+        //No candidates in the first rank
+        ranks = new TIntHashSet[]{new TIntHashSet(new int[]{7}), new TIntHashSet(new int[]{3, 999})};
+        p = new RandomVMPlacement(null, NO_VMS, ranks, false, 1);
+        for (int i = 0; i < 20; i++) {
+            int v = p.selectValue(x);
+            Assert.assertTrue(v == 3 || v == 999);
+        }
+
+        //No candidates at all
+        ranks = new TIntHashSet[]{new TIntHashSet(new int[]{7})};
+        p = new RandomVMPlacement(null, NO_VMS, ranks, false, 1);
+        Assert.assertEquals(p.selectValue(x), -1);
+    }
+}
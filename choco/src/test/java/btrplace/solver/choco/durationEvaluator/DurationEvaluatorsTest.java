@@ -26,6 +26,8 @@ import btrplace.solver.SolverException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
+
 /**
  * Unit tests for {@link ActionDurationEvaluator}.
  *
@@ -88,6 +90,19 @@ public class DurationEvaluatorsTest {
         Assert.assertEquals(d.getEvaluator(btrplace.plan.event.MigrateVM.class), ev);
     }
 
+    @Test(dependsOnMethods = {"testInstantiateAndIsRegistered", "testUnregister", "testRegister"})
+    public void testGetRegisteredActions() {
+        DurationEvaluators d = new DurationEvaluators();
+        d.register(btrplace.plan.event.MigrateVM.class, new ConstantActionDuration(7));
+        Assert.assertEquals(d.getRegisteredActions(), Collections.singleton(btrplace.plan.event.MigrateVM.class));
+        try {
+            d.getRegisteredActions().clear();
+            Assert.fail("The registered actions must not be modifiable");
+        } catch (UnsupportedOperationException ex) {
+            Assert.assertTrue(d.isRegistered(btrplace.plan.event.MigrateVM.class));
+        }
+    }
+
     @Test(dependsOnMethods = {"testInstantiateAndIsRegistered", "testUnregister", "testRegister"})
     public void testEvaluate() throws SolverException {
         DurationEvaluators d = new DurationEvaluators();
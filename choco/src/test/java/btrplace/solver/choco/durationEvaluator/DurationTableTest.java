@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.*;
+import btrplace.model.view.ShareableResource;
+import btrplace.plan.event.*;
+import btrplace.solver.SolverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link DurationTable}.
+ *
+ * @author Fabien Hermenier
+ */
+public class DurationTableTest {
+
+    @Test
+    public void testPrecompute() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addReadyVM(vm2);
+        mo.getAttributes().put(vm1, "migrate", 4);
+        mo.getAttributes().put(n1, "shutdown", 11);
+
+        DurationEvaluators dev = DurationEvaluators.newBundle();
+        DurationTable t = dev.precompute(mo);
+        Assert.assertEquals(t.getModel(), mo);
+        Assert.assertEquals(t.get(MigrateVM.class, vm1), 4);
+        Assert.assertEquals(t.get(MigrateVM.class, vm2), 1);
+        Assert.assertEquals(t.get(BootVM.class, vm2), 1);
+        Assert.assertEquals(t.get(ShutdownNode.class, n1), 11);
+        Assert.assertEquals(t.get(BootNode.class, n1), 1);
+
+        //The table is a snapshot
+        mo.getAttributes().put(vm1, "migrate", 7);
+        Assert.assertEquals(t.get(MigrateVM.class, vm1), 4);
+
+        //Elements out of the mapping are evaluated on demand
+        VM vm3 = mo.newVM();
+        mo.getAttributes().put(vm3, "boot", 5);
+        Assert.assertEquals(t.get(BootVM.class, vm3), 5);
+    }
+
+    @Test
+    public void testSubModel() throws SolverException {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addRunningVM(vm2, n2);
+        mo.getAttributes().put(vm2, "migrate", 3);
+        DurationTable t = DurationEvaluators.newBundle().precompute(mo);
+
+        SubModel sm = new SubModel(mo, new DefaultElementBuilder(), Collections.singleton(n2));
+        Assert.assertEquals(t.get(MigrateVM.class, vm2), DurationEvaluators.newBundle().evaluate(sm, MigrateVM.class, vm2));
+    }
+
+    @Test
+    public void testInvalidDurations() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        Node n1 = mo.newNode();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addRunningVM(vm2, n1);
+        ShareableResource rc = new ShareableResource("mem", 0, 0);
+        rc.setConsumption(vm1, 2);
+        mo.attach(rc);
+
+        DurationEvaluators dev = new DurationEvaluators();
+        dev.register(MigrateVM.class, new LinearToAResourceActionDuration<VM>("mem", 3, -2));
+        dev.register(BootNode.class, new ConstantActionDuration(2));
+        DurationTable t = dev.precompute(mo);
+        Assert.assertEquals(t.get(MigrateVM.class, vm1), 4);
+        Assert.assertEquals(t.get(BootNode.class, n1), 2);
+        try {
+            t.get(MigrateVM.class, vm2);
+            Assert.fail();
+        } catch (SolverException ex) {
+            Assert.assertTrue(ex.getMessage().contains("MigrateVM"), ex.getMessage());
+        }
+        //Unregistered actions are still reported
+        try {
+            t.get(ShutdownVM.class, vm1);
+            Assert.fail();
+        } catch (SolverException ex) {
+            Assert.assertNotNull(ex.getMessage());
+        }
+    }
+}
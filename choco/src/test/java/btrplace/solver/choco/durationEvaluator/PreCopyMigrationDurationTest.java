@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.solver.choco.durationEvaluator;
+
+import btrplace.model.DefaultModel;
+import btrplace.model.Model;
+import btrplace.model.Node;
+import btrplace.model.VM;
+import btrplace.model.constraint.MigrationBandwidth;
+import btrplace.model.view.ShareableResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link PreCopyMigrationDuration}.
+ *
+ * @author Fabien Hermenier
+ */
+public class PreCopyMigrationDurationTest {
+
+    @Test
+    public void testDuration() {
+        //No dirty pages, a single copy
+        Assert.assertEquals(PreCopyMigrationDuration.duration(2048, 0, 100, 30, 50), 21);
+        //Converging rounds: 2048/128 = 16s, then 16 * 32 = 512 MB in 4s, then 128 MB in 1s,
+        //then 32 MB in 0.25s with the VM suspended
+        Assert.assertEquals(PreCopyMigrationDuration.duration(2048, 32, 128, 30, 50), 22);
+        //A dirty rate higher than the bandwidth, bounded by the number of rounds
+        Assert.assertEquals(PreCopyMigrationDuration.duration(1000, 200, 100, 3, 50), 40);
+        //At least 1 second
+        Assert.assertEquals(PreCopyMigrationDuration.duration(0, 0, 100, 30, 50), 1);
+    }
+
+    @Test
+    public void testEvaluate() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        mo.getMapping().addOnlineNode(n1);
+        mo.getMapping().addOnlineNode(n2);
+        mo.getMapping().addRunningVM(vm1, n1);
+        mo.getMapping().addRunningVM(vm2, n2);
+        mo.getMapping().addReadyVM(vm3);
+        ShareableResource mem = new ShareableResource("mem", 0, 1000);
+        mo.attach(mem);
+        mo.getAttributes().put(n1, MigrationBandwidth.BANDWIDTH_ATTRIBUTE, 500);
+        mo.getAttributes().put(vm1, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 100);
+
+        PreCopyMigrationDuration d = new PreCopyMigrationDuration("mem", 100);
+        Assert.assertEquals(d.getResourceId(), "mem");
+        Assert.assertEquals(d.getDefaultBandwidth(), 100);
+        Assert.assertEquals(d.getMaxRounds(), PreCopyMigrationDuration.DEFAULT_MAX_ROUNDS);
+        Assert.assertEquals(d.getStopThreshold(), PreCopyMigrationDuration.DEFAULT_STOP_THRESHOLD);
+        //1000/500 = 2s, 200 MB in 0.4s, 40 MB in 0.08s
+        Assert.assertEquals(d.evaluate(mo, vm1), 3);
+        //The default bandwidth
+        Assert.assertEquals(d.evaluate(mo, vm2), 10);
+        Assert.assertEquals(d.evaluate(mo, vm3), 10);
+
+        mo.getAttributes().put(vm2, PreCopyMigrationDuration.DIRTY_RATE_ATTRIBUTE, 50.0);
+        Assert.assertTrue(d.evaluate(mo, vm2) > 10);
+
+        Assert.assertEquals(new PreCopyMigrationDuration("bar", 100).evaluate(mo, vm1), -1);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadBandwidth() {
+        new PreCopyMigrationDuration("mem", 0);
+    }
+}
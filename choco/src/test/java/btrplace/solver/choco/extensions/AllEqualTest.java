@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import solver.Solver;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+/**
+ * Unit tests for {@link AllEqual} and {@link SameGroup}.
+ *
+ * @author Fabien Hermenier
+ */
+public class AllEqualTest {
+
+    @Test
+    public void testAllEqual() {
+        Solver s = new Solver();
+        IntVar[] vs = new IntVar[]{
+                VF.enumerated("v0", 0, 5, s),
+                VF.enumerated("v1", new int[]{1, 3, 5}, s),
+                VF.enumerated("v2", new int[]{3, 4, 5}, s)};
+        s.post(new AllEqual(s, vs));
+        s.findAllSolutions();
+        //3 and 5
+        Assert.assertEquals(s.getMeasures().getSolutionCount(), 2);
+    }
+
+    @Test
+    public void testSameGroup() {
+        Solver s = new Solver();
+        //values 0,1 in group 0, 2,3 in group 1, 4 in no group
+        int[] groupOf = {0, 0, 1, 1, SameGroup.NO_GROUP};
+        IntVar[] vs = new IntVar[]{
+                VF.enumerated("v0", 0, 4, s),
+                VF.enumerated("v1", new int[]{1, 3, 4}, s)};
+        IntVar grp = VF.enumerated("grp", 0, 1, s);
+        s.post(new SameGroup(s, vs, groupOf, grp));
+        s.findAllSolutions();
+        //(0|1, 1) in group 0, (2|3, 3) in group 1
+        Assert.assertEquals(s.getMeasures().getSolutionCount(), 4);
+    }
+}
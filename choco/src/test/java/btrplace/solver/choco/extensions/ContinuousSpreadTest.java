@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import solver.Solver;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+/**
+ * Unit tests for {@link ContinuousSpread}.
+ *
+ * @author Fabien Hermenier
+ */
+public class ContinuousSpreadTest {
+
+    /**
+     * VM0 leaves node 0 for node 1, that is left by VM1 at 3 or later.
+     */
+    @Test
+    public void testStartAfterLeaving() {
+        Solver s = new Solver();
+        IntVar[] dHosters = new IntVar[]{VF.enumerated("dH0", 1, 1, s), VF.enumerated("dH1", 0, 2, s)};
+        IntVar[] dStarts = new IntVar[]{VF.bounded("dS0", 0, 5, s), VF.bounded("dS1", 0, 5, s)};
+        IntVar[] cEnds = new IntVar[]{VF.bounded("cE0", 0, 5, s), VF.bounded("cE1", 3, 5, s)};
+        s.post(new ContinuousSpread(s, dHosters, dStarts, new int[]{0, 1}, cEnds));
+        Assert.assertTrue(s.findSolution());
+        Assert.assertTrue(dStarts[0].getValue() >= cEnds[1].getValue());
+        Assert.assertNotEquals(dHosters[1].getValue(), 1);
+    }
+
+    /**
+     * VM0 must start before VM1 leaves node 1.
+     */
+    @Test
+    public void testNoOverlap() {
+        Solver s = new Solver();
+        IntVar[] dHosters = new IntVar[]{VF.enumerated("dH0", 1, 1, s), VF.enumerated("dH1", 0, 2, s)};
+        IntVar[] dStarts = new IntVar[]{VF.bounded("dS0", 0, 2, s), VF.bounded("dS1", 0, 5, s)};
+        IntVar[] cEnds = new IntVar[]{VF.bounded("cE0", 0, 5, s), VF.bounded("cE1", 3, 5, s)};
+        s.post(new ContinuousSpread(s, dHosters, dStarts, new int[]{0, 1}, cEnds));
+        Assert.assertFalse(s.findSolution());
+    }
+
+    /**
+     * The VMs are currently on the same node, so they can swap their position.
+     */
+    @Test
+    public void testCurrentlyGathered() {
+        Solver s = new Solver();
+        IntVar[] dHosters = new IntVar[]{VF.enumerated("dH0", 0, 0, s), VF.enumerated("dH1", 1, 1, s), VF.enumerated("dH2", 0, 2, s)};
+        IntVar[] dStarts = new IntVar[]{VF.bounded("dS0", 0, 2, s), VF.bounded("dS1", 0, 5, s), VF.bounded("dS2", 0, 5, s)};
+        IntVar[] cEnds = new IntVar[]{VF.bounded("cE0", 3, 5, s), VF.bounded("cE1", 3, 5, s), null};
+        s.post(new ContinuousSpread(s, dHosters, dStarts, new int[]{0, 0, ContinuousSpread.NO_CSLICE}, cEnds));
+        Assert.assertTrue(s.findSolution());
+        Assert.assertEquals(dHosters[2].getValue(), 2);
+    }
+}
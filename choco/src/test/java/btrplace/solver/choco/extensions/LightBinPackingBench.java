@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import solver.Solver;
+import solver.search.loop.monitors.SMF;
+import solver.search.measure.IMeasures;
+import solver.search.strategy.IntStrategyFactory;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+/**
+ * Compare the filtering rules of {@link LightBinPackingPropagator}
+ * on random consolidation instances.
+ * For each set of rules, the number of nodes and the solving duration are reported.
+ *
+ * @author Fabien Hermenier
+ */
+public class LightBinPackingBench {
+
+    private static final EnumSet<LightBinPackingPropagator.Rule>[] RULES = new EnumSet[]{
+            EnumSet.noneOf(LightBinPackingPropagator.Rule.class),
+            EnumSet.of(LightBinPackingPropagator.Rule.DELTA_MONITORS),
+            EnumSet.of(LightBinPackingPropagator.Rule.DELTA_MONITORS, LightBinPackingPropagator.Rule.KNAPSACK),
+            EnumSet.of(LightBinPackingPropagator.Rule.DELTA_MONITORS, LightBinPackingPropagator.Rule.L2_BOUND),
+            LightBinPackingPropagator.getDefaultRules()
+    };
+
+    /**
+     * Pack items into bins.
+     *
+     * @param capa      the capacity of each bin
+     * @param sizes     the size of each item
+     * @param rules     the filtering rules to use
+     * @param timeLimit the time limit in seconds
+     */
+    public static void bench(int[] capa, int[][] sizes, EnumSet<LightBinPackingPropagator.Rule> rules, int timeLimit) {
+        Solver s = new Solver();
+        IntVar[][] loads = new IntVar[sizes.length][capa.length];
+        for (int d = 0; d < sizes.length; d++) {
+            for (int b = 0; b < capa.length; b++) {
+                loads[d][b] = VF.bounded("l" + d + "_" + b, 0, capa[b], s);
+            }
+        }
+        IntVar[] bins = new IntVar[sizes[0].length];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = VF.enumerated("b" + i, 0, capa.length - 1, s);
+        }
+        String[] labels = new String[sizes.length];
+        for (int d = 0; d < labels.length; d++) {
+            labels[d] = "d" + d;
+        }
+        s.post(new LightBinPacking(labels, s.getEnvironment(), loads, sizes, bins, rules));
+        s.set(IntStrategyFactory.firstFail_InDomainMin(bins));
+        SMF.limitTime(s, timeLimit * 1000);
+        Boolean ok = s.findSolution();
+        IMeasures m = s.getMeasures();
+        System.err.println(capa.length + " " + bins.length + " " + rules + " " + ok + " " + m.getNodeCount() + " " + (long) m.getTimeCount());
+    }
+
+    public static void main(String[] args) {
+        Random rnd = new Random(0);
+        for (int nbBins = 10; nbBins <= 100; nbBins += 10) {
+            int nbItems = nbBins * 5;
+            int[] capa = new int[nbBins];
+            for (int b = 0; b < nbBins; b++) {
+                capa[b] = 100;
+            }
+            //Items fill ~90% of the bins
+            int[][] sizes = new int[2][nbItems];
+            for (int d = 0; d < sizes.length; d++) {
+                for (int i = 0; i < nbItems; i++) {
+                    sizes[d][i] = 8 + rnd.nextInt(21);
+                }
+            }
+            for (EnumSet<LightBinPackingPropagator.Rule> r : RULES) {
+                bench(capa, sizes, r, 30);
+            }
+        }
+    }
+}
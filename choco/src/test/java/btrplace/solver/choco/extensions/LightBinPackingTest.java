@@ -18,14 +18,19 @@
 package btrplace.solver.choco.extensions;
 
 
+import org.testng.Assert;
 import org.testng.annotations.Test;
 import solver.Solver;
 import solver.constraints.Constraint;
 import solver.constraints.IntConstraintFactory;
+import solver.search.strategy.IntStrategyFactory;
 import solver.variables.IntVar;
 import solver.variables.VF;
+import util.tools.ArrayUtils;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Random;
 
 /**
@@ -125,6 +130,98 @@ public class LightBinPackingTest {
         testPack(2);
     }
 
+    @Test
+    public void testL2() {
+        //8 items of size 6 with a capacity of 10: one per bin
+        int[] sizes = {6, 6, 6, 6, 6, 6, 6, 6};
+        Assert.assertEquals(LightBinPackingPropagator.l2(sizes, sizes.length, 10, new long[sizes.length + 1]), 8);
+        //The small items fill the remaining space
+        sizes = new int[]{3, 3, 3, 3, 7, 7};
+        Assert.assertEquals(LightBinPackingPropagator.l2(sizes, sizes.length, 10, new long[sizes.length + 1]), 3);
+        sizes = new int[]{1, 1, 2, 2};
+        Assert.assertEquals(LightBinPackingPropagator.l2(sizes, sizes.length, 10, new long[sizes.length + 1]), 1);
+    }
+
+    @Test
+    public void testNoSum() {
+        int[] sizes = {7, 5, 5};
+        int[] bounds = new int[2];
+        //Reachable sums: 0, 5, 7, 10, 12, 17
+        Assert.assertTrue(LightBinPackingPropagator.noSum(sizes, 3, 17, 8, 9, bounds));
+        Assert.assertEquals(bounds[0], 7);
+        Assert.assertEquals(bounds[1], 10);
+        Assert.assertFalse(LightBinPackingPropagator.noSum(sizes, 3, 17, 8, 10, bounds));
+        Assert.assertFalse(LightBinPackingPropagator.noSum(sizes, 3, 17, 0, 4, bounds));
+        Assert.assertFalse(LightBinPackingPropagator.noSum(sizes, 3, 17, 13, 17, bounds));
+    }
+
+    /**
+     * Count the solutions of a bin packing instance.
+     *
+     * @param capa  the capacity of each bin
+     * @param sizes the size of each item, for each dimension
+     * @param rules the filtering rules to use
+     * @return the number of solutions
+     */
+    private static long countSolutions(int[] capa, int[][] sizes, EnumSet<LightBinPackingPropagator.Rule> rules) {
+        Solver s = new Solver();
+        IntVar[][] loads = new IntVar[sizes.length][capa.length];
+        String[] labels = new String[sizes.length];
+        for (int d = 0; d < sizes.length; d++) {
+            labels[d] = "d" + d;
+            for (int b = 0; b < capa.length; b++) {
+                loads[d][b] = VF.bounded("l" + d + "_" + b, 0, capa[b], s);
+            }
+        }
+        IntVar[] bins = new IntVar[sizes[0].length];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = VF.enumerated("b" + i, 0, capa.length - 1, s);
+        }
+        s.post(new LightBinPacking(labels, s.getEnvironment(), loads, sizes, bins, rules));
+        s.set(IntStrategyFactory.firstFail_InDomainMin(ArrayUtils.append(bins, ArrayUtils.flatten(loads))));
+        return s.findAllSolutions();
+    }
+
+    /**
+     * The rules only remove values that belong to no solution,
+     * so every set of rules must lead to the same solutions.
+     */
+    @Test
+    public void testRulesPreserveSolutions() {
+        List<EnumSet<LightBinPackingPropagator.Rule>> allRules = Arrays.asList(
+                EnumSet.noneOf(LightBinPackingPropagator.Rule.class),
+                EnumSet.of(LightBinPackingPropagator.Rule.KNAPSACK),
+                EnumSet.of(LightBinPackingPropagator.Rule.L2_BOUND),
+                EnumSet.of(LightBinPackingPropagator.Rule.DELTA_MONITORS),
+                LightBinPackingPropagator.getDefaultRules()
+        );
+        Random rnd = new Random(0);
+        for (int x = 0; x < 10; x++) {
+            int[] capa = new int[3 + rnd.nextInt(2)];
+            for (int b = 0; b < capa.length; b++) {
+                capa[b] = 5 + rnd.nextInt(6);
+            }
+            int[][] sizes = new int[2][5 + rnd.nextInt(3)];
+            for (int d = 0; d < sizes.length; d++) {
+                for (int i = 0; i < sizes[d].length; i++) {
+                    sizes[d][i] = rnd.nextInt(5);
+                }
+            }
+            long expected = countSolutions(capa, sizes, allRules.get(0));
+            for (EnumSet<LightBinPackingPropagator.Rule> rules : allRules) {
+                Assert.assertEquals(countSolutions(capa, sizes, rules), expected, "Rules " + rules + " on "
+                        + Arrays.toString(capa) + " " + Arrays.deepToString(sizes));
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultRulesAreCopied() {
+        EnumSet<LightBinPackingPropagator.Rule> rules = LightBinPackingPropagator.getDefaultRules();
+        rules.clear();
+        Assert.assertEquals(LightBinPackingPropagator.getDefaultRules(), EnumSet.allOf(LightBinPackingPropagator.Rule.class));
+    }
+
     /**
      * var = array[index]
      */
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import memory.IStateIntVector;
+import solver.Cause;
+import solver.Solver;
+import solver.exception.ContradictionException;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Measure the time and the memory allocated by the propagation
+ * of a {@link LocalTaskScheduler} once its profiles are in a steady state.
+ * <p/>
+ * The allocation counter is provided by the HotSpot {@code ThreadMXBean}.
+ *
+ * @author Fabien Hermenier
+ */
+public class LocalTaskSchedulerBench {
+
+    private static LocalTaskScheduler make(Solver s, int nbSlices, int nbDims) {
+        int horizon = nbSlices * 10;
+        int[][] capacities = new int[nbDims][1];
+        int[][] cUsages = new int[nbDims][nbSlices];
+        int[][] dUsages = new int[nbDims][nbSlices];
+        for (int i = 0; i < nbDims; i++) {
+            capacities[i][0] = nbSlices;
+            Arrays.fill(cUsages[i], 1);
+            Arrays.fill(dUsages[i], 1);
+        }
+        IntVar[] cEnds = new IntVar[nbSlices];
+        IntVar[] dStarts = new IntVar[nbSlices];
+        BitSet outs = new BitSet(nbSlices);
+        IStateIntVector vIn = s.getEnvironment().makeIntVector(0, 0);
+        int[] assocs = new int[nbSlices];
+        Arrays.fill(assocs, LocalTaskScheduler.NO_ASSOCIATIONS);
+        for (int j = 0; j < nbSlices; j++) {
+            cEnds[j] = VF.bounded("cEnd" + j, 0, horizon, s);
+            dStarts[j] = VF.bounded("dStart" + j, 0, horizon, s);
+            outs.set(j);
+            vIn.add(j);
+        }
+        IntVar early = VF.bounded("early", 0, horizon, s);
+        IntVar last = VF.bounded("last", 0, horizon, s);
+        return new LocalTaskScheduler(0, early, last, capacities, cUsages, cEnds, outs,
+                dUsages, dStarts, vIn, assocs, assocs.clone(), Cause.Null);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public static void bench(int nbSlices, int nbDims, int nbRuns) throws ContradictionException {
+        Solver s = new Solver();
+        LocalTaskScheduler sched = make(s, nbSlices, nbDims);
+
+        //Warm-up, the first runs reach the fix point
+        for (int i = 0; i < nbRuns; i++) {
+            sched.propagate();
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < nbRuns; i++) {
+            sched.propagate();
+        }
+        long end = System.nanoTime();
+        bytes = allocatedBytes() - bytes;
+        System.err.println(nbSlices + " " + nbDims + " " + (end - start) / nbRuns + "ns/run " + bytes / nbRuns + "B/run");
+    }
+
+    public static void main(String[] args) throws ContradictionException {
+        int nbRuns = 10000;
+        for (int nbSlices = 10; nbSlices <= 1000; nbSlices *= 10) {
+            for (int nbDims = 1; nbDims <= 3; nbDims++) {
+                bench(nbSlices, nbDims, nbRuns);
+            }
+        }
+    }
+}
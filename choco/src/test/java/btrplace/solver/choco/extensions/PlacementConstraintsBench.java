@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.extensions;
+
+import solver.Solver;
+import solver.constraints.IntConstraintFactory;
+import solver.search.strategy.IntStrategyFactory;
+import solver.variables.IntVar;
+import solver.variables.VF;
+
+/**
+ * Compare the decomposition of the gather and the among constraints
+ * with {@link AllEqual} and {@link SameGroup}.
+ * For each model, the number of constraints, the memory used to state the model
+ * and the time to compute a solution are reported.
+ *
+ * @author Fabien Hermenier
+ */
+public class PlacementConstraintsBench {
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Build and solve a model with groups of VMs that must be gathered
+     * and groups of VMs that must be on a single group of nodes.
+     *
+     * @param nbNodes   the number of nodes
+     * @param groupSize the number of VMs per group
+     * @param nbGroups  the number of groups of VMs, per kind of constraint
+     * @param nbEdges   the number of groups of nodes
+     * @param global    {@code true} to use the global constraints
+     */
+    public static void bench(int nbNodes, int groupSize, int nbGroups, int nbEdges, boolean global) {
+        long mem = usedMemory();
+        long st = System.currentTimeMillis();
+        Solver s = new Solver();
+        int[] edgeOf = new int[nbNodes];
+        for (int n = 0; n < nbNodes; n++) {
+            edgeOf[n] = n % nbEdges;
+        }
+        IntVar[] all = new IntVar[2 * nbGroups * groupSize];
+        int x = 0;
+        for (int g = 0; g < nbGroups; g++) {
+            //gather
+            IntVar[] hosts = new IntVar[groupSize];
+            for (int i = 0; i < groupSize; i++) {
+                hosts[i] = VF.enumerated("g" + g + "-" + i, 0, nbNodes - 1, s);
+                all[x++] = hosts[i];
+            }
+            if (global) {
+                s.post(new AllEqual(s, hosts));
+            } else {
+                for (int i = 0; i < groupSize; i++) {
+                    for (int j = 0; j < i; j++) {
+                        s.post(IntConstraintFactory.arithm(hosts[i], "=", hosts[j]));
+                    }
+                }
+            }
+            //among
+            IntVar edge = VF.enumerated("e" + g, 0, nbEdges - 1, s);
+            hosts = new IntVar[groupSize];
+            for (int i = 0; i < groupSize; i++) {
+                hosts[i] = VF.enumerated("a" + g + "-" + i, 0, nbNodes - 1, s);
+                all[x++] = hosts[i];
+            }
+            if (global) {
+                s.post(new SameGroup(s, hosts, edgeOf, edge));
+            } else {
+                for (IntVar h : hosts) {
+                    s.post(IntConstraintFactory.element(h, edgeOf, edge, 0, "detect"));
+                }
+            }
+        }
+        int nbCstrs = s.getCstrs().length;
+        mem = usedMemory() - mem;
+        long build = System.currentTimeMillis() - st;
+        s.set(IntStrategyFactory.firstFail_InDomainMin(all));
+        st = System.currentTimeMillis();
+        boolean ok = s.findSolution();
+        long solve = System.currentTimeMillis() - st;
+        System.err.println((global ? "global" : "decomposed") + " " + nbNodes + " " + groupSize + " " + nbGroups
+                + " " + ok + " " + nbCstrs + " constraints " + mem / 1024 + "KB " + build + "ms " + solve + "ms");
+    }
+
+    public static void main(String[] args) {
+        for (int groupSize = 10; groupSize <= 40; groupSize += 10) {
+            for (int nbGroups = 100; nbGroups <= 1000; nbGroups *= 10) {
+                bench(1000, groupSize, nbGroups, 20, false);
+                bench(1000, groupSize, nbGroups, 20, true);
+            }
+        }
+    }
+}
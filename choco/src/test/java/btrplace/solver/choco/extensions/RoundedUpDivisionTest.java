@@ -50,6 +50,35 @@ public class RoundedUpDivisionTest {
         Assert.assertEquals(s.findAllSolutions(), 49);
         //Assert.assertEquals(s.getNbSolutions(), 33);
     }
+
+    @Test
+    public void testToFixedPoint() {
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(1), 1000);
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(1.5), 1500);
+        //Not exactly representable as doubles
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(2.01), 2010);
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(4.02), 4020);
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(8.11), 8110);
+        //Rounded down beyond the precision
+        Assert.assertEquals(RoundedUpDivision.toFixedPoint(1.2349), 1234);
+    }
+
+    @Test
+    public void testFixedPointDivider() {
+        Solver s = new Solver();
+        IntVar a = VF.bounded("a", 0, 32, s);
+        IntVar b = VF.bounded("b", 0, 48, s);
+        s.post(new RoundedUpDivision(a, b, 3, 2));
+        Assert.assertEquals(s.findAllSolutions(), 49);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadDivider() {
+        Solver s = new Solver();
+        IntVar a = VF.bounded("a", 0, 5, s);
+        IntVar b = VF.bounded("b", 0, 5, s);
+        new RoundedUpDivision(a, b, 0, RoundedUpDivision.PRECISION);
+    }
     /*
     private static void pretty(int a, int b, double q) {
         StringBuilder a1 = new StringBuilder();
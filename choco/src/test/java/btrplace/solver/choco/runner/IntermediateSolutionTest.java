@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.runner;
+
+import btrplace.model.DefaultModel;
+import btrplace.plan.DefaultReconfigurationPlan;
+import btrplace.plan.ReconfigurationPlan;
+import btrplace.solver.SolverException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link IntermediateSolution}.
+ *
+ * @author Fabien Hermenier
+ */
+public class IntermediateSolutionTest {
+
+    private static class MockSolution extends IntermediateSolution {
+
+        private int nbBuilds = 0;
+
+        public MockSolution(SolutionStatistics st) {
+            super(st);
+        }
+
+        @Override
+        protected ReconfigurationPlan makePlan() throws SolverException {
+            nbBuilds++;
+            return new DefaultReconfigurationPlan(new DefaultModel());
+        }
+    }
+
+    @Test
+    public void testLazyPlan() throws SolverException {
+        SolutionStatistics st = new SolutionStatistics(1, 2, 3, 4);
+        MockSolution s = new MockSolution(st);
+        Assert.assertEquals(s.getStatistics(), st);
+        Assert.assertTrue(s.isAvailable());
+        Assert.assertEquals(s.nbBuilds, 0);
+        ReconfigurationPlan p = s.getPlan();
+        Assert.assertNotNull(p);
+        //Built once
+        Assert.assertSame(s.getPlan(), p);
+        Assert.assertEquals(s.nbBuilds, 1);
+        //Still available once built
+        s.expire();
+        Assert.assertTrue(s.isAvailable());
+        Assert.assertSame(s.getPlan(), p);
+    }
+
+    @Test(expectedExceptions = {IllegalStateException.class})
+    public void testExpired() throws SolverException {
+        MockSolution s = new MockSolution(new SolutionStatistics(1, 2, 3));
+        s.expire();
+        Assert.assertFalse(s.isAvailable());
+        s.getPlan();
+    }
+}
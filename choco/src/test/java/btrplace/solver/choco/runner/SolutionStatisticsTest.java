@@ -44,6 +44,19 @@ public class SolutionStatisticsTest {
         Assert.assertEquals(3, st.getTime());
         Assert.assertTrue(st.hasObjective());
         Assert.assertEquals(4, st.getOptValue());
+        Assert.assertFalse(st.hasBound());
+        Assert.assertEquals(st.getGap(), -1d);
+    }
+
+    @Test
+    public void testInstantiateWithBound() {
+        SolutionStatistics st = new SolutionStatistics(1, 2, 3, 8, 6);
+        Assert.assertTrue(st.hasObjective());
+        Assert.assertTrue(st.hasBound());
+        Assert.assertEquals(8, st.getOptValue());
+        Assert.assertEquals(6, st.getBound());
+        Assert.assertEquals(st.getGap(), 0.25d);
+        Assert.assertEquals(new SolutionStatistics(1, 2, 3, 0, 0).getGap(), 0d);
     }
 
 }
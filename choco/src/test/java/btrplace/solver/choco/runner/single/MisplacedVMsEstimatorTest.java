@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package btrplace.solver.choco.runner.single;
+
+import btrplace.model.*;
+import btrplace.model.constraint.*;
+import btrplace.model.constraint.checker.ModelChecker;
+import btrplace.model.view.ShareableResource;
+import btrplace.solver.choco.constraint.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link MisplacedVMsEstimator}.
+ *
+ * @author Fabien Hermenier
+ */
+public class MisplacedVMsEstimatorTest {
+
+    @Test
+    public void testEstimate() {
+        Model mo = new DefaultModel();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        Node n3 = mo.newNode();
+        VM vm1 = mo.newVM();
+        VM vm2 = mo.newVM();
+        VM vm3 = mo.newVM();
+        VM vm4 = mo.newVM();
+        VM vm5 = mo.newVM();
+        Mapping map = mo.getMapping();
+        map.addOnlineNode(n1);
+        map.addOnlineNode(n2);
+        map.addOnlineNode(n3);
+        map.addRunningVM(vm1, n1);
+        map.addRunningVM(vm2, n1);
+        map.addRunningVM(vm3, n2);
+        map.addRunningVM(vm4, n3);
+        map.addReadyVM(vm5);
+
+        ShareableResource rc = new ShareableResource("cpu", 4, 2);
+        rc.setConsumption(vm4, 5);
+        mo.attach(rc);
+
+        List<SatConstraint> cstrs = new ArrayList<>();
+        List<ChocoConstraint> ccs = new ArrayList<>();
+        //Satisfied: 4 cpu
+        ResourceCapacity c1 = new ResourceCapacity(n1, "cpu", 4);
+        cstrs.add(c1);
+        ccs.add(new CResourceCapacity(c1));
+        //Violated: 5 > 4 * 1
+        Overbook c2 = new Overbook(n3, "cpu", 1);
+        cstrs.add(c2);
+        ccs.add(new COverbook(c2));
+        //Satisfied
+        Overbook c3 = new Overbook(n1, "cpu", 1);
+        cstrs.add(c3);
+        ccs.add(new COverbook(c3));
+        //Satisfied
+        RunningCapacity c4 = new RunningCapacity(n2, 1);
+        cstrs.add(c4);
+        ccs.add(new CRunningCapacity(c4));
+        //Violated: 2 VMs on n1
+        Spread c5 = new Spread(new HashSet<>(Arrays.asList(vm1, vm2)));
+        cstrs.add(c5);
+        ccs.add(new CSpread(c5));
+        //Satisfied
+        Ban c6 = new Ban(vm3, Collections.singleton(n1));
+        cstrs.add(c6);
+        ccs.add(new CBan(c6));
+        //Violated, no such resource
+        ResourceCapacity c7 = new ResourceCapacity(n2, "mem", 6);
+        cstrs.add(c7);
+        ccs.add(new CResourceCapacity(c7));
+
+        Set<VM> expected = new HashSet<>();
+        for (ChocoConstraint cc : ccs) {
+            expected.addAll(cc.getMisPlacedVMs(mo));
+        }
+        Assert.assertEquals(expected, new HashSet<>(Arrays.asList(vm1, vm2, vm3, vm4)));
+
+        //A small grain to force the splitting
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MisplacedVMsEstimator est = new MisplacedVMsEstimator(pool, 1);
+            Assert.assertEquals(est.getGrain(), 1);
+            Assert.assertEquals(est.estimate(mo, ccs, cstrs), expected);
+        } finally {
+            pool.shutdown();
+        }
+
+        //Without splitting
+        Assert.assertEquals(new MisplacedVMsEstimator().estimate(mo, ccs, cstrs), expected);
+        Assert.assertTrue(new MisplacedVMsEstimator().estimate(mo, Collections.<ChocoConstraint>emptyList(), Collections.<SatConstraint>emptyList()).isEmpty());
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testBadGrain() {
+        new MisplacedVMsEstimator(ModelChecker.getSharedPool(), 0);
+    }
+
+    @Test(expectedExceptions = {IllegalArgumentException.class})
+    public void testMismatch() {
+        Node n1 = new DefaultModel().newNode();
+        new MisplacedVMsEstimator().estimate(new DefaultModel(), Collections.<ChocoConstraint>emptyList(),
+                Collections.<SatConstraint>singletonList(new RunningCapacity(n1, 1)));
+    }
+}
@@ -48,6 +48,9 @@ public class SingleRunnerStatisticsTest {
         Assert.assertFalse(st.hitTimeout());
         Assert.assertEquals(st.getCoreRPBuildDuration(), 7);
         Assert.assertEquals(st.getSpeRPDuration(), 34);
+        Assert.assertEquals(st.getMisplacedVMsDuration(), 0);
+        st.setMisplacedVMsDuration(5);
+        Assert.assertEquals(st.getMisplacedVMsDuration(), 5);
         System.out.println(st);
     }
 
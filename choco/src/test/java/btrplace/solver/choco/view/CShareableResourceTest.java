@@ -200,6 +200,37 @@ public class CShareableResourceTest {
         Assert.assertNull(p);
     }
 
+    /**
+     * The ratios that are not exact binary fractions must not reduce the capacity.
+     */
+    @Test
+    public void testCapOverbookRatio() throws SolverException {
+        Model mo = new DefaultModel();
+        VM vm1 = mo.newVM();
+        Node n1 = mo.newNode();
+        Node n2 = mo.newNode();
+        new MappingFiller(mo.getMapping()).on(n1, n2).run(n1, vm1).get();
+        ShareableResource rc = new ShareableResource("foo", 0, 0);
+        rc.setCapacity(n1, 100);
+        rc.setConsumption(vm1, 201);
+        mo.attach(rc);
+
+        ReconfigurationProblem rp = new DefaultReconfigurationProblemBuilder(mo).build();
+        CShareableResource rcm = (CShareableResource) rp.getView(ShareableResource.VIEW_ID_BASE + "foo");
+        int nIdx = rp.getNode(n1);
+        Assert.assertEquals(rcm.getOverbookRatio(nIdx), CShareableResource.UNCHECKED_RATIO);
+        Assert.assertFalse(rcm.capOverbookRatio(nIdx, 0.5));
+        Assert.assertTrue(rcm.capOverbookRatio(nIdx, 8.11));
+        Assert.assertEquals(rcm.getOverbookRatio(nIdx), 8.11);
+        Assert.assertTrue(rcm.capOverbookRatio(nIdx, 2.01));
+        Assert.assertEquals(rcm.getOverbookRatio(nIdx), 2.01);
+        //A higher ratio is ignored
+        Assert.assertTrue(rcm.capOverbookRatio(nIdx, 4.02));
+        Assert.assertEquals(rcm.getOverbookRatio(nIdx), 2.01);
+        //The 201 virtual units exactly fit in 100 * 2.01
+        Assert.assertNotNull(rp.solve(0, false));
+    }
+
     @Test
     public void testWithFloat() throws SolverException {
         Model mo = new DefaultModel();
@@ -79,6 +79,7 @@ public class ConstraintsConverter extends AbstractJSONObjectConverter<Constraint
         c.register(new SplitConverter());
         c.register(new SpreadConverter());
         c.register(new MaxOnlineConverter());
+        c.register(new MigrationBandwidthConverter());
         c.register(new MinMTTRConverter());
         return c;
     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2013 University of Nice Sophia-Antipolis
+ *
+ * This file is part of btrplace.
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package btrplace.json.model.constraint;
+
+import btrplace.json.JSONConverterException;
+import btrplace.model.constraint.MigrationBandwidth;
+import net.minidev.json.JSONObject;
+
+/**
+ * JSON converter for the {@link MigrationBandwidth} constraint.
+ *
+ * @author Fabien Hermenier
+ */
+public class MigrationBandwidthConverter extends ConstraintConverter<MigrationBandwidth> {
+
+    @Override
+    public Class<MigrationBandwidth> getSupportedConstraint() {
+        return MigrationBandwidth.class;
+    }
+
+    @Override
+    public String getJSONId() {
+        return "migrationBandwidth";
+    }
+
+    @Override
+    public MigrationBandwidth fromJSON(JSONObject in) throws JSONConverterException {
+        checkId(in);
+        return new MigrationBandwidth(requiredNodes(in, "nodes"));
+    }
+
+    @Override
+    public JSONObject toJSON(MigrationBandwidth o) {
+        JSONObject c = new JSONObject();
+        c.put("id", getJSONId());
+        c.put("nodes", nodesToJSON(o.getInvolvedNodes()));
+        return c;
+    }
+}